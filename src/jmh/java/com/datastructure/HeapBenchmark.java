@@ -0,0 +1,104 @@
+package com.datastructure;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link BinaryHeap} against {@link DaryHeap} of arity 4 and 8, with and without the aligned
+ * layout, on push/poll-heavy workloads:
+ *
+ * <ul>
+ *   <li>{@code hold}: a queue of {@code size} entries where every operation polls the minimum and
+ *       pushes a new key, the steady state of a timer or event queue.
+ *   <li>{@code burst}: push 1000 keys onto the same queue and then poll 1000, reported per
+ *       element. The pushes mostly stop near the leaves; the polls all sink to the bottom.
+ * </ul>
+ *
+ * <p>Keys are boxed once in setup and reused, so the measured loops allocate nothing apart from
+ * growing the heap array once during the first burst.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class HeapBenchmark {
+  private static final int KEYS = 1 << 20;
+
+  public enum Layout {
+    BINARY(0, false),
+    DARY_4(4, false),
+    DARY_4_ALIGNED(4, true),
+    DARY_8(8, false),
+    DARY_8_ALIGNED(8, true);
+
+    final int arity;
+    final boolean aligned;
+
+    Layout(int arity, boolean aligned) {
+      this.arity = arity;
+      this.aligned = aligned;
+    }
+  }
+
+  @Param
+  public Layout layout;
+
+  @Param({"1000", "100000", "1000000", "4000000"})
+  public int size;
+
+  private Long[] keys;
+  private int next;
+  // 每个 trial 只用其中一个, 分支总是走同一边
+  private BinaryHeap<Long> binary;
+  private DaryHeap<Long> dary;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(42L);
+    keys = new Long[KEYS];
+    for (int i = 0; i < KEYS; i++) keys[i] = random.nextLong();
+    binary = new BinaryHeap<>(size);
+    dary = new DaryHeap<>(Math.max(layout.arity, 2), size, layout.aligned);
+  }
+
+  @Setup(Level.Iteration)
+  public void fill() {
+    binary.clear();
+    dary.clear();
+    for (int i = 0; i < size; i++) add(nextKey());
+  }
+
+  @Benchmark
+  public Long hold() {
+    Long min = poll();
+    add(nextKey());
+    return min;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(1000)
+  public long burst() {
+    for (int i = 0; i < 1000; i++) add(nextKey());
+    long sum = 0;
+    for (int i = 0; i < 1000; i++) sum += poll();
+    return sum;
+  }
+
+  private Long nextKey() {
+    Long key = keys[next];
+    next = (next + 1) & (KEYS - 1);
+    return key;
+  }
+
+  private void add(Long key) {
+    if (layout == Layout.BINARY) binary.add(key);
+    else dary.add(key);
+  }
+
+  private Long poll() {
+    return layout == Layout.BINARY ? binary.poll() : dary.poll();
+  }
+}
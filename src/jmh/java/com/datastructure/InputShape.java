@@ -0,0 +1,62 @@
+package com.datastructure;
+
+import java.util.Random;
+
+/** The input distributions every sort benchmark is run against. */
+public enum InputShape {
+  RANDOM {
+    @Override
+    void fill(int[] ary, Random random) {
+      for (int i = 0; i < ary.length; i++) ary[i] = random.nextInt();
+    }
+  },
+  SORTED {
+    @Override
+    void fill(int[] ary, Random random) {
+      for (int i = 0; i < ary.length; i++) ary[i] = i;
+    }
+  },
+  // 有序数据后面不断追加, 大约 1% 的元素不在正确的位置上 (比如按时间追加的序列)
+  NEARLY_SORTED {
+    @Override
+    void fill(int[] ary, Random random) {
+      for (int i = 0; i < ary.length; i++) ary[i] = i;
+      for (int i = 0; i < ary.length / 100; i++) {
+        int j = random.nextInt(ary.length);
+        int k = Math.min(ary.length - 1, j + random.nextInt(64));
+        int tmp = ary[j];
+        ary[j] = ary[k];
+        ary[k] = tmp;
+      }
+    }
+  },
+  REVERSED {
+    @Override
+    void fill(int[] ary, Random random) {
+      for (int i = 0; i < ary.length; i++) ary[i] = ary.length - i;
+    }
+  },
+  // 只有 16 个不同的值, 用来测试大量重复元素的情况
+  FEW_UNIQUE {
+    @Override
+    void fill(int[] ary, Random random) {
+      for (int i = 0; i < ary.length; i++) ary[i] = random.nextInt(16);
+    }
+  },
+  // 0, 1, 2 ... n/2 ... 2, 1, 0
+  ORGAN_PIPE {
+    @Override
+    void fill(int[] ary, Random random) {
+      int n = ary.length;
+      for (int i = 0; i < n; i++) ary[i] = i < n / 2 ? i : n - i - 1;
+    }
+  };
+
+  abstract void fill(int[] ary, Random random);
+
+  public int[] generate(int size, long seed) {
+    int[] ary = new int[size];
+    fill(ary, new Random(seed));
+    return ary;
+  }
+}
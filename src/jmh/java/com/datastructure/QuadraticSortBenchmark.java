@@ -0,0 +1,50 @@
+package com.datastructure;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of the O(n^2) sorters, capped at 10K elements because a single sort of a million
+ * elements takes minutes. The O(n log n) sorters live in {@link SortBenchmark}.
+ *
+ * <p>Each invocation copies the pristine input into a preallocated work array before sorting, so
+ * the copy costs the same for every algorithm and allocates nothing itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+public class QuadraticSortBenchmark {
+
+  @Param({"BUBBLE", "SELECTION", "INSERTION"})
+  public SortAlgorithm algorithm;
+
+  @Param({"1000", "10000"})
+  public int size;
+
+  @Param
+  public InputShape shape;
+
+  private int[] input;
+  private int[] work;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    input = shape.generate(size, 42L);
+    work = new int[size];
+  }
+
+  @TearDown(Level.Iteration)
+  public void verify() {
+    SortAlgorithm.checkSorted(algorithm, work);
+  }
+
+  @Benchmark
+  public int[] sort() {
+    System.arraycopy(input, 0, work, 0, size);
+    algorithm.sort(work);
+    return work;
+  }
+}
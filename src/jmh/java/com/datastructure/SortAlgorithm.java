@@ -0,0 +1,37 @@
+package com.datastructure;
+
+/** Maps a benchmark parameter name onto a sorter instance from the main source set. */
+public enum SortAlgorithm {
+  BUBBLE(new BubbleSort()),
+  SELECTION(new SelectionSort()),
+  INSERTION(new InsertionSort()),
+  MERGE(new MergeSort()),
+  PARALLEL_MERGE(new ParallelMergeSort()),
+  TIM(new TimSort()),
+  QUICK(new QuickSort()),
+  QUICK_DUAL_PIVOT(new QuickSort(QuickSort.Partition.DUAL_PIVOT)),
+  QUICK_BLOCK(new QuickSort(QuickSort.Partition.BLOCK)),
+  RADIX(new RadixSort()),
+  PARALLEL_RADIX(new ParallelRadixSort());
+
+  private final Sorter sorter;
+
+  SortAlgorithm(Sorter sorter) {
+    this.sorter = sorter;
+  }
+
+  public Sorter sorter() {
+    return sorter;
+  }
+
+  public void sort(int[] ary) {
+    sorter.sort(ary);
+  }
+
+  static void checkSorted(SortAlgorithm algorithm, int[] ary) {
+    for (int i = 1; i < ary.length; i++) {
+      if (ary[i - 1] > ary[i])
+        throw new IllegalStateException(algorithm + " left the input unsorted at index " + i);
+    }
+  }
+}
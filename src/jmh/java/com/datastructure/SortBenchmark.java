@@ -0,0 +1,53 @@
+package com.datastructure;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of the O(n log n) and linear-time sorters across input sizes and shapes. Run with the
+ * GC profiler ({@code ./gradlew jmh}) to get the allocation rate per sort next to the ops/s.
+ *
+ * <p>Each invocation copies the pristine input into a preallocated work array before sorting, so
+ * the copy costs the same for every algorithm and allocates nothing itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SortBenchmark {
+
+  @Param({
+    "MERGE", "PARALLEL_MERGE", "TIM", "QUICK", "QUICK_DUAL_PIVOT", "QUICK_BLOCK", "RADIX",
+    "PARALLEL_RADIX"
+  })
+  public SortAlgorithm algorithm;
+
+  @Param({"1000", "100000", "1000000", "10000000"})
+  public int size;
+
+  @Param
+  public InputShape shape;
+
+  private int[] input;
+  private int[] work;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    input = shape.generate(size, 42L);
+    work = new int[size];
+  }
+
+  @TearDown(Level.Iteration)
+  public void verify() {
+    SortAlgorithm.checkSorted(algorithm, work);
+  }
+
+  @Benchmark
+  public int[] sort() {
+    System.arraycopy(input, 0, work, 0, size);
+    algorithm.sort(work);
+    return work;
+  }
+}
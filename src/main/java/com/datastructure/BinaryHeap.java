@@ -1,33 +1,40 @@
 package com.datastructure;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
-
+import java.util.function.Consumer;
+
+/**
+ * A binary min-heap backed by a plain array.
+ *
+ * <p>Sift operations move a hole instead of swapping: the element being placed is held aside,
+ * parents (or children) are shifted into the hole one level at a time, and the element is written
+ * once at its final position. That is about half the array writes of swapping, with no list calls
+ * in the loop. {@link IntHeap}, {@link LongHeap} and {@link DoubleHeap} do the same for primitive
+ * keys without boxing.
+ */
 public class BinaryHeap<T extends Comparable<T>> {
+  private static final int DEFAULT_CAPACITY = 8;
+
   private int heapSize = 0;
-  private int heapCapacity = 0;
-  private List<T> heap = null;
+  private Object[] heap;
 
   public BinaryHeap(T[] elems) {
-
-    heapSize = heapCapacity = elems.length;
-
-    heap = new ArrayList<T>(heapCapacity);
+    heapSize = elems.length;
+    heap = Arrays.copyOf(elems, Math.max(heapSize, 1), Object[].class);
     for (int i = 0; i < heapSize; i++) {
-      heap.add(elems[i]);
-    }
-    for (int i = Math.max(heapSize / 2 - 1, 0); i >= 0; i--) {
-      sink(i);
+      if (heap[i] == null) throw new IllegalArgumentException();
     }
+    heapify();
   }
 
   public BinaryHeap(int sz) {
-    heap = new ArrayList<T>(sz);
+    if (sz < 0) throw new IllegalArgumentException("Illegal Capacity");
+    heap = new Object[Math.max(sz, 1)];
   }
 
   public BinaryHeap() {
-    this(1);
+    this(DEFAULT_CAPACITY);
   }
 
   public int size() {
@@ -35,17 +42,16 @@ public class BinaryHeap<T extends Comparable<T>> {
   }
 
   public void clear() {
-    for (int i = 0; i < heapSize; i++) {
-      heap.set(i, null);
-    }
+    Arrays.fill(heap, 0, heapSize, null);
     heapSize = 0;
   }
 
+  @SuppressWarnings("unchecked")
   public T peek() {
     if (isEmpty()) {
       return null;
     }
-    return heap.get(0);
+    return (T) heap[0];
   }
 
   public T poll() {
@@ -53,65 +59,139 @@ public class BinaryHeap<T extends Comparable<T>> {
   }
 
   public boolean contains(T elem) {
+    return indexOf(elem) >= 0;
+  }
+
+  private int indexOf(T elem) {
     for (int i = 0; i < heapSize; i++) {
-      if (heap.get(i).equals(elem)) {
-        return true;
+      if (heap[i].equals(elem)) {
+        return i;
       }
     }
-    return false;
+    return -1;
   }
 
   public void add(T elem) {
     if (elem == null) throw new IllegalArgumentException();
-    if (heapSize < heapCapacity) {
-      heap.set(heapSize, elem);
-
+    if (heapSize == heap.length) heap = Arrays.copyOf(heap, heap.length * 2);
+    heapSize += 1;
+    swim(heapSize - 1, elem);
+  }
+
+  /**
+   * Adds all of {@code elems}, growing the array at most once. A small batch is swum in one
+   * element at a time; a batch large enough that this could cost more than rebuilding (about
+   * {@code k log n} against {@code 2n} comparisons) is appended as is and the whole heap is
+   * rebuilt bottom-up.
+   */
+  public void addAll(Collection<? extends T> elems) {
+    Object[] batch = elems.toArray();
+    for (Object elem : batch) {
+      if (elem == null) throw new IllegalArgumentException();
+    }
+    int k = batch.length;
+    if (k == 0) return;
+    int total = heapSize + k;
+    if (total < 0) throw new IllegalStateException("Heap too large");
+    // heap.length * 2 溢出时为负数, 取 total
+    if (total > heap.length) heap = Arrays.copyOf(heap, Math.max(total, heap.length * 2));
+    System.arraycopy(batch, 0, heap, heapSize, k);
+    int start = heapSize;
+    heapSize = total;
+    // log2(total) 向下取整就够了, 只是一个估计
+    int depth = 31 - Integer.numberOfLeadingZeros(total);
+    if ((long) k * depth > 2L * total) {
+      heapify();
     } else {
-      heap.add(elem);
-      heapCapacity += 1;
+      for (int i = start; i < total; i++) swim(i, heap[i]);
     }
-    heapSize += 1;
-    swim(heapSize - 1);
   }
 
-  private boolean less(int m, int n) {
-    T e1 = heap.get(m);
-    T e2 = heap.get(n);
+  /**
+   * Polls up to {@code k} smallest elements in ascending order and passes them to {@code sink}.
+   * Returns how many were polled, which is less than {@code k} only if the heap ran out.
+   */
+  @SuppressWarnings("unchecked")
+  public int pollN(int k, Consumer<? super T> sink) {
+    if (k < 0) throw new IllegalArgumentException("Illegal count: " + k);
+    if (sink == null) throw new IllegalArgumentException("Null sink");
+    int n = Math.min(k, heapSize);
+    for (int i = 0; i < n; i++) {
+      Object top = heap[0];
+      int last = --heapSize;
+      Object tail = heap[last];
+      heap[last] = null;
+      if (last > 0) sink(0, tail);
+      sink.accept((T) top);
+    }
+    return n;
+  }
+
+  /**
+   * Replaces the smallest element with {@code elem} and returns it, with a single sink from the
+   * root instead of a poll followed by an add. On an empty heap this just adds {@code elem} and
+   * returns null. A top-k aggregator keeps a heap of k elements and calls this whenever a new
+   * element is larger than {@link #peek()}.
+   */
+  @SuppressWarnings("unchecked")
+  public T replaceTop(T elem) {
+    if (elem == null) throw new IllegalArgumentException();
+    if (isEmpty()) {
+      add(elem);
+      return null;
+    }
+    T top = (T) heap[0];
+    sink(0, elem);
+    return top;
+  }
 
-    return e1.compareTo(e2) <= 0;
+  // 自底向上建堆 (Floyd), 从最后一个内部节点开始往前下沉, O(n)
+  private void heapify() {
+    for (int i = (heapSize >>> 1) - 1; i >= 0; i--) {
+      sink(i);
+    }
   }
 
-  private void swap(int prev, int next) {
-    T e1 = heap.get(prev);
-    T e2 = heap.get(next);
-    heap.set(prev, e2);
-    heap.set(next, e1);
+  @SuppressWarnings("unchecked")
+  private boolean less(Object a, Object b) {
+    return ((T) a).compareTo((T) b) <= 0;
   }
 
-  private void sink(int k) {
-    while (k < heapSize) {
-      int left = 2 * k + 1;
-      int right = 2 * k + 2;
-      int smallest = left;
-      if (right < heapSize && less(right, left)) {
-        smallest = right;
-      }
-      if (smallest >= heapSize || less(k, smallest)) {
-        break;
+  // 从 k 往下找 elem 的位置, 较小的子节点依次上移填补空位, 最后写一次 elem
+  @SuppressWarnings("unchecked")
+  private void sink(int k, Object elem) {
+    Object[] heap = this.heap;
+    int half = heapSize >>> 1;
+    while (k < half) {
+      int child = 2 * k + 1;
+      Object c = heap[child];
+      int right = child + 1;
+      if (right < heapSize && ((T) heap[right]).compareTo((T) c) < 0) {
+        c = heap[child = right];
       }
-
-      swap(k, smallest);
-      k = smallest;
+      if (((T) elem).compareTo((T) c) <= 0) break;
+      heap[k] = c;
+      k = child;
     }
+    heap[k] = elem;
   }
 
-  private void swim(int k) {
-    int parent = (k - 1) / 2;
-    while (k > 0 && less(k, parent)) {
-      swap(k, parent);
+  private void sink(int k) {
+    sink(k, heap[k]);
+  }
+
+  // 从 k 往上找 elem 的位置, 较大的父节点依次下移
+  @SuppressWarnings("unchecked")
+  private void swim(int k, Object elem) {
+    Object[] heap = this.heap;
+    while (k > 0) {
+      int parent = (k - 1) >>> 1;
+      Object p = heap[parent];
+      if (((T) p).compareTo((T) elem) <= 0) break;
+      heap[k] = p;
       k = parent;
-      parent = (k - 1) / 2;
     }
+    heap[k] = elem;
   }
 
   public boolean isEmpty() {
@@ -119,32 +199,24 @@ public class BinaryHeap<T extends Comparable<T>> {
   }
 
   public boolean remove(T elem) {
-    for (int i = 0; i < heapSize; i++) {
-      if (heap.get(i).equals(elem)) {
-        T rem = removeAt(i);
-        return rem != null;
-      }
-    }
-    return false;
+    int i = indexOf(elem);
+    if (i < 0) return false;
+    removeAt(i);
+    return true;
   }
 
+  //  用最后一个元素填补 k 的空位: 先往下沉, 没有移动的话它可能比新的父节点小, 再往上浮
+  @SuppressWarnings("unchecked")
   private T removeAt(int k) {
     if (isEmpty()) return null;
 
-    T removed = heap.get(k);
-    T tail = heap.get(heapSize - 1);
-
-    if (k == heapSize - 1) {
-      heap.set(heapSize - 1, null);
-      heapSize -= 1;
-    } else {
-      swap(k, heapSize - 1);
-      heap.set(heapSize - 1, null);
-      heapSize -= 1;
-      sink(k);
-      if (heap.get(k).equals(tail)) {
-        swim(k);
-      }
+    T removed = (T) heap[k];
+    int last = --heapSize;
+    Object tail = heap[last];
+    heap[last] = null;
+    if (k != last) {
+      sink(k, tail);
+      if (heap[k] == tail) swim(k, tail);
     }
     return removed;
   }
@@ -155,13 +227,13 @@ public class BinaryHeap<T extends Comparable<T>> {
     int left = 2 * k + 1;
     int right = 2 * k + 2;
 
-    if (left < heapSize && !less(k, left)) return false;
-    if (right < heapSize && !less(k, right)) return false;
+    if (left < heapSize && !less(heap[k], heap[left])) return false;
+    if (right < heapSize && !less(heap[k], heap[right])) return false;
 
     return isMinHeap(left) && isMinHeap(right);
   }
 
   public String toString() {
-    return heap.toString();
+    return Arrays.toString(Arrays.copyOf(heap, heapSize));
   }
 }
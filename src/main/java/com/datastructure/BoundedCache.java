@@ -0,0 +1,374 @@
+package com.datastructure;
+
+import java.util.function.BiConsumer;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A cache bounded by the total weight of its entries, with O(1) get, put and eviction. Entries are
+ * found through a {@link HashTableSeparateChaining} and ordered in {@link DoublyLinkedList}s whose
+ * nodes the entries keep, so moving an entry on a hit never searches a list.
+ *
+ * <p>With {@link Policy#LRU} the least recently used entries are evicted first. {@link
+ * Policy#WINDOW_TINY_LFU} puts new entries into a small LRU window (1% of the weight); entries
+ * leaving the window only get into the main space if they have been used more often than the entry
+ * they would push out, as counted by a small frequency sketch. The main space is a segmented LRU:
+ * entries start in a probation segment and move to the protected segment (80% of the main space)
+ * on their next hit. This keeps one-off scans from flushing entries that are used all the time.
+ *
+ * <p>Each entry weighs 1 unless a weigher is given. The eviction listener is called for every
+ * entry evicted to respect the maximum weight, not for entries removed or replaced by the caller.
+ * This class is not thread-safe.
+ */
+public class BoundedCache<K, V> {
+
+  public enum Policy {
+    LRU,
+    WINDOW_TINY_LFU
+  }
+
+  // 元素在哪个队列里
+  private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+  private static final class CacheEntry<K, V> {
+    final K key;
+    V value;
+    long weight;
+    int queue;
+    DoublyLinkedList.Node<CacheEntry<K, V>> node;
+
+    CacheEntry(K key, V value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  private final Policy policy;
+  private final long maximumWeight, windowMaximum, protectedMaximum;
+  private final ToLongBiFunction<? super K, ? super V> weigher;
+  private final BiConsumer<? super K, ? super V> evictionListener;
+
+  private final HashTableSeparateChaining<K, CacheEntry<K, V>> map;
+  private final DoublyLinkedList<CacheEntry<K, V>> window = new DoublyLinkedList<>();
+  private final DoublyLinkedList<CacheEntry<K, V>> probation = new DoublyLinkedList<>();
+  private final DoublyLinkedList<CacheEntry<K, V>> protectedQueue = new DoublyLinkedList<>();
+  private final FrequencySketch sketch;
+
+  private long weightedSize, windowWeight, protectedWeight;
+  private long hitCount, missCount, evictionCount;
+
+  public BoundedCache(long maximumSize) {
+    this(maximumSize, Policy.WINDOW_TINY_LFU, (k, v) -> 1, null);
+  }
+
+  public BoundedCache(long maximumSize, Policy policy) {
+    this(maximumSize, policy, (k, v) -> 1, null);
+  }
+
+  /**
+   * @param weigher returns the weight of an entry, at least 0; called once when the value is put
+   * @param evictionListener called with every evicted entry, may be null
+   */
+  public BoundedCache(
+      long maximumWeight,
+      Policy policy,
+      ToLongBiFunction<? super K, ? super V> weigher,
+      BiConsumer<? super K, ? super V> evictionListener) {
+    if (maximumWeight < 0) throw new IllegalArgumentException("Illegal maximumWeight");
+    if (policy == null) throw new IllegalArgumentException("Null policy");
+    if (weigher == null) throw new IllegalArgumentException("Null weigher");
+    this.maximumWeight = maximumWeight;
+    this.policy = policy;
+    this.weigher = weigher;
+    this.evictionListener = evictionListener;
+    this.map = new HashTableSeparateChaining<>();
+    if (policy == Policy.LRU) {
+      windowMaximum = maximumWeight;
+      protectedMaximum = 0;
+      sketch = null;
+    } else {
+      windowMaximum = Math.max(Math.min(1, maximumWeight), maximumWeight / 100);
+      protectedMaximum = (maximumWeight - windowMaximum) / 5 * 4;
+      // sketch 按元素个数估计大小, 带权重时这只是个上限
+      sketch = new FrequencySketch((int) Math.min(maximumWeight, 1 << 24));
+    }
+  }
+
+  public Policy policy() {
+    return policy;
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  public long weightedSize() {
+    return weightedSize;
+  }
+
+  public long maximumWeight() {
+    return maximumWeight;
+  }
+
+  public long hitCount() {
+    return hitCount;
+  }
+
+  public long missCount() {
+    return missCount;
+  }
+
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  // 还没有任何请求时返回 1
+  public double hitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+
+  // 不影响顺序, 也不计入命中率
+  public boolean containsKey(K key) {
+    return key != null && map.containsKey(key);
+  }
+
+  public V get(K key) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    CacheEntry<K, V> entry = map.get(key);
+    if (sketch != null) sketch.increment(key);
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    onHit(entry);
+    return entry.value;
+  }
+
+  // 返回原来的值, 没有时返回 null. 新的元素有可能马上就被淘汰
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    if (value == null) throw new IllegalArgumentException("Null value");
+    long weight = weigher.applyAsLong(key, value);
+    if (weight < 0) throw new IllegalArgumentException("Negative weight");
+    if (sketch != null) sketch.increment(key);
+
+    CacheEntry<K, V> entry = map.get(key);
+    V oldValue = null;
+    if (entry == null) {
+      entry = new CacheEntry<>(key, value, weight);
+      map.put(key, entry);
+      entry.queue = WINDOW;
+      entry.node = window.addLastNode(entry);
+      windowWeight += weight;
+      weightedSize += weight;
+    } else {
+      oldValue = entry.value;
+      entry.value = value;
+      long delta = weight - entry.weight;
+      entry.weight = weight;
+      weightedSize += delta;
+      if (entry.queue == WINDOW) windowWeight += delta;
+      else if (entry.queue == PROTECTED) protectedWeight += delta;
+      onHit(entry);
+    }
+    evictEntries();
+    return oldValue;
+  }
+
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    CacheEntry<K, V> entry = map.remove(key);
+    if (entry == null) return null;
+    unlink(entry);
+    return entry.value;
+  }
+
+  public void clear() {
+    for (CacheEntry<K, V> entry : map.values()) queueOf(entry.queue).remove(entry.node);
+    map.clear();
+    weightedSize = windowWeight = protectedWeight = 0;
+  }
+
+  private DoublyLinkedList<CacheEntry<K, V>> queueOf(int queue) {
+    if (queue == WINDOW) return window;
+    return queue == PROBATION ? probation : protectedQueue;
+  }
+
+  //  window 和 protected 里的元素移到各自队尾; probation 里的元素再次被访问, 升级到 protected,
+  //  protected 超出大小时把最久没用的降回 probation.
+  private void onHit(CacheEntry<K, V> entry) {
+    if (entry.queue != PROBATION) {
+      queueOf(entry.queue).moveToLast(entry.node);
+      if (entry.queue == PROTECTED) demoteProtected();
+      return;
+    }
+    probation.unlink(entry.node);
+    protectedQueue.linkLast(entry.node);
+    entry.queue = PROTECTED;
+    protectedWeight += entry.weight;
+    demoteProtected();
+  }
+
+  private void demoteProtected() {
+    while (protectedWeight > protectedMaximum) {
+      DoublyLinkedList.Node<CacheEntry<K, V>> node = protectedQueue.firstNode();
+      CacheEntry<K, V> entry = node.data();
+      protectedQueue.unlink(node);
+      probation.linkLast(node);
+      entry.queue = PROBATION;
+      protectedWeight -= entry.weight;
+    }
+  }
+
+  private void evictEntries() {
+    if (policy == Policy.LRU) {
+      while (weightedSize > maximumWeight) evict(window.firstNode().data());
+      return;
+    }
+    // 超出 window 的元素进入 probation 的队尾, 成为候选
+    int candidates = 0;
+    while (windowWeight > windowMaximum) {
+      DoublyLinkedList.Node<CacheEntry<K, V>> node = window.firstNode();
+      CacheEntry<K, V> entry = node.data();
+      window.unlink(node);
+      probation.linkLast(node);
+      entry.queue = PROBATION;
+      windowWeight -= entry.weight;
+      candidates++;
+    }
+    //  候选从 probation 的队尾开始, 和队头 (最久没被访问的) 比较访问频率, 输的一方被淘汰.
+    //  probation 空了以后再依次从 protected 和 window 淘汰.
+    while (weightedSize > maximumWeight) {
+      DoublyLinkedList.Node<CacheEntry<K, V>> victim = probation.firstNode();
+      DoublyLinkedList.Node<CacheEntry<K, V>> candidate =
+          candidates > 0 ? probation.lastNode() : null;
+      if (victim == null) {
+        victim = protectedQueue.firstNode();
+        if (victim == null) victim = window.firstNode();
+        evict(victim.data());
+      } else if (candidate == null || candidate == victim) {
+        evict(victim.data());
+        candidates = 0;
+      } else if (admit(candidate.data().key, victim.data().key)) {
+        evict(victim.data());
+      } else {
+        evict(candidate.data());
+        candidates--;
+      }
+    }
+  }
+
+  // 候选的访问频率高于被淘汰者时才让它留下; 相等时留下原来的元素
+  private boolean admit(K candidate, K victim) {
+    return sketch.frequency(candidate) > sketch.frequency(victim);
+  }
+
+  private void evict(CacheEntry<K, V> entry) {
+    map.remove(entry.key);
+    unlink(entry);
+    evictionCount++;
+    if (evictionListener != null) evictionListener.accept(entry.key, entry.value);
+  }
+
+  private void unlink(CacheEntry<K, V> entry) {
+    queueOf(entry.queue).remove(entry.node);
+    entry.node = null;
+    weightedSize -= entry.weight;
+    if (entry.queue == WINDOW) windowWeight -= entry.weight;
+    else if (entry.queue == PROTECTED) protectedWeight -= entry.weight;
+  }
+
+  @Override
+  public String toString() {
+    return "BoundedCache{policy="
+        + policy
+        + ", size="
+        + size()
+        + ", weightedSize="
+        + weightedSize
+        + ", hits="
+        + hitCount
+        + ", misses="
+        + missCount
+        + ", evictions="
+        + evictionCount
+        + "}";
+  }
+
+  //  Count-Min sketch, 每个计数器 4 位 (最大 15), 一个 long 里放 16 个.
+  //  一个 key 在 4 行里各有一个计数器, 第 i 行的计数器在 indexOf(hash, i) 选出的 long 里, 各行一般是不同的 long.
+  //  hash 的低 2 位选出一组 4 个计数器 (start), 第 i 行用这一组里的第 i 个. 取最小值作为频率.
+  //  增加的次数达到 10 倍容量时所有计数器减半, 让很久以前的热点慢慢被忘掉.
+  static final class FrequencySketch {
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask, sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+      int n = 8;
+      while (n < maximumSize) n <<= 1;
+      table = new long[n];
+      tableMask = n - 1;
+      sampleSize = 10 * Math.max(maximumSize, 1);
+    }
+
+    int frequency(Object key) {
+      int hash = HashTableSeparateChaining.spread(key.hashCode());
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        int index = indexOf(hash, i);
+        int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+        frequency = Math.min(frequency, count);
+      }
+      return frequency;
+    }
+
+    void increment(Object key) {
+      int hash = HashTableSeparateChaining.spread(key.hashCode());
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++additions == sampleSize) reset();
+    }
+
+    private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) == mask) return false;
+      table[index] += 1L << offset;
+      return true;
+    }
+
+    // 每一行用不同的种子把 hash 映射到 table 的一个下标
+    private int indexOf(int hash, int row) {
+      long h = (hash + SEEDS[row]) * SEEDS[row];
+      h += h >>> 32;
+      return (int) h & tableMask;
+    }
+
+    //  所有计数器减半. 奇数的计数器减半时丢掉了 0.5, additions 按丢掉的总量修正
+    private void reset() {
+      int odd = 0;
+      for (int i = 0; i < table.length; i++) {
+        odd += Long.bitCount(table[i] & ONE_MASK);
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions = (additions - (odd >>> 2)) >>> 1;
+    }
+  }
+}
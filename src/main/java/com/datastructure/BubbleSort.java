@@ -1,13 +1,17 @@
 package com.datastructure;
 
-public class BubbleSort {
+import java.util.Comparator;
 
-  public void sort(int[] ary) {
+public class BubbleSort implements Sorter {
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
     // 总共有 n-1个pass
-    int n = ary.length - 1;
+    int n = to - from - 1;
     for (int i = 0; i < n; i++) {
       // 每个pass只需要比较从 0 ~ n-i
-      for (int j = 0; j < n - i - 1; j++) {
+      for (int j = from; j < from + n - i; j++) {
         if (ary[j] > ary[j + 1]) {
           int tmp = ary[j];
           ary[j] = ary[j + 1];
@@ -16,4 +20,35 @@ public class BubbleSort {
       }
     }
   }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from - 1;
+    for (int i = 0; i < n; i++) {
+      for (int j = from; j < from + n - i; j++) {
+        if (ary[j] > ary[j + 1]) {
+          long tmp = ary[j];
+          ary[j] = ary[j + 1];
+          ary[j + 1] = tmp;
+        }
+      }
+    }
+  }
+
+  // 只交换严格逆序的相邻元素, 所以是稳定的
+  @Override
+  public <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from - 1;
+    for (int i = 0; i < n; i++) {
+      for (int j = from; j < from + n - i; j++) {
+        if (comparator.compare(ary[j], ary[j + 1]) > 0) {
+          T tmp = ary[j];
+          ary[j] = ary[j + 1];
+          ary[j + 1] = tmp;
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,569 @@
+package com.datastructure;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A thread-safe cache bounded by weight, with expiry and refresh-ahead loading, for use on request
+ * paths where a single lock would be a point of contention.
+ *
+ * <p>Entries live in a {@link ConcurrentHashTable}, so reads and writes of the data never block
+ * each other. The eviction order (LRU, in a {@link DoublyLinkedList}) and the expiry schedule (a
+ * {@link TimerWheel}) are not thread-safe; they are only updated by the thread that holds the
+ * eviction lock. Reads record the accessed entry in one of several striped ring buffers and only
+ * try to take the lock once their buffer is full; a read that finds its buffer full or contended
+ * simply drops the record, which costs a little LRU precision and never blocks. Writes go through
+ * an unbounded queue, so the policy never loses an insert or removal, and try the lock right
+ * away.
+ *
+ * <p>Entries can expire a fixed time after they were written or last read; expired entries are
+ * never returned, even before the timer wheel has removed them. With refreshAfterWrite a read of an
+ * entry older than that loads a new value on the executor and returns the current one meanwhile.
+ *
+ * <p>The eviction listener is called for every entry evicted by size or removed because it
+ * expired, never while the eviction lock is held. Keys and values must not be null.
+ */
+public class ConcurrentBoundedCache<K, V> {
+  private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+  // 读缓冲的条数, 大约是 CPU 数的 4 倍, 取 2 的幂
+  private static final int READ_BUFFERS;
+
+  static {
+    int n = 1;
+    while (n < 4 * NCPU && n < 128) n <<= 1;
+    READ_BUFFERS = n;
+  }
+
+  static final class CacheNode<K, V> extends TimerWheel.Timer {
+    final K key;
+    volatile V value;
+    volatile long weight;
+    volatile long writeTime, accessTime;
+    // 在 map 里时为 true. 只在持有节点的锁时修改
+    volatile boolean alive = true;
+    // 1 表示有一个刷新任务正在进行
+    volatile int refreshing;
+
+    // 以下只在持有 evictionLock 时访问. accessNode == null 表示不在淘汰顺序里
+    DoublyLinkedList.Node<CacheNode<K, V>> accessNode;
+    long policyWeight;
+
+    CacheNode(K key, V value, long weight, long now) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+      this.writeTime = now;
+      this.accessTime = now;
+    }
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicIntegerFieldUpdater<CacheNode> REFRESHING =
+      AtomicIntegerFieldUpdater.newUpdater(CacheNode.class, "refreshing");
+
+  //  有损的环形缓冲. 读者用 CAS 抢一个位置写入, 缓冲满了或者抢失败就放弃这次记录;
+  //  只有持有 evictionLock 的线程会读出来. 一个位置被抢到但还没写入时, 读出到这里就先停下.
+  private static final class ReadBuffer<T> {
+    static final int SIZE = 16;
+    static final int MASK = SIZE - 1;
+
+    final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(SIZE);
+    final AtomicLong writeCounter = new AtomicLong();
+    volatile long readCounter;
+
+    // 返回缓冲是不是该被清空了
+    boolean offer(T e) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      if (tail - head >= SIZE) return true;
+      if (!writeCounter.compareAndSet(tail, tail + 1)) return false;
+      slots.lazySet((int) (tail & MASK), e);
+      return tail + 1 - head >= SIZE;
+    }
+
+    void drain(Consumer<T> consumer) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      for (; head < tail; head++) {
+        int i = (int) (head & MASK);
+        T e = slots.get(i);
+        if (e == null) break;
+        slots.lazySet(i, null);
+        consumer.accept(e);
+      }
+      readCounter = head;
+    }
+  }
+
+  private final long maximumWeight;
+  private final long expireAfterWriteNanos, expireAfterAccessNanos, refreshAfterWriteNanos;
+  private final ToLongBiFunction<? super K, ? super V> weigher;
+  private final Function<? super K, ? extends V> loader;
+  private final Executor executor;
+  private final BiConsumer<? super K, ? super V> evictionListener;
+  private final LongSupplier ticker;
+
+  private final ConcurrentHashTable<K, CacheNode<K, V>> map = new ConcurrentHashTable<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final ReadBuffer<CacheNode<K, V>>[] readBuffers;
+  private final ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+
+  // 以下只在持有 evictionLock 时访问
+  private final DoublyLinkedList<CacheNode<K, V>> accessOrder = new DoublyLinkedList<>();
+  private final TimerWheel<CacheNode<K, V>> timerWheel;
+  private final List<Map.Entry<K, V>> pendingNotifications = new ArrayList<>();
+  private long weightedSize;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  private ConcurrentBoundedCache(Builder<K, V> builder) {
+    this.maximumWeight = builder.maximumWeight;
+    this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+    this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+    this.refreshAfterWriteNanos = builder.refreshAfterWriteNanos;
+    this.weigher = builder.weigher;
+    this.loader = builder.loader;
+    this.executor = builder.executor;
+    this.evictionListener = builder.evictionListener;
+    this.ticker = builder.ticker;
+    this.readBuffers = newReadBuffers(READ_BUFFERS);
+    boolean expires = expireAfterWriteNanos > 0 || expireAfterAccessNanos > 0;
+    this.timerWheel = expires ? new TimerWheel<>(ticker.getAsLong()) : null;
+  }
+
+  // 不能直接创建泛型数组
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <T> ReadBuffer<T>[] newReadBuffers(int n) {
+    ReadBuffer<T>[] buffers = new ReadBuffer[n];
+    for (int i = 0; i < n; i++) buffers[i] = new ReadBuffer<>();
+    return buffers;
+  }
+
+  public static <K, V> Builder<K, V> builder() {
+    return new Builder<>();
+  }
+
+  //  参数比较多, 而且大部分是可选的, 所以用 builder 创建:
+  //    ConcurrentBoundedCache.<K, V>builder().maximumSize(10000)
+  //        .expireAfterWrite(5, TimeUnit.MINUTES).loader(this::load).build();
+  public static final class Builder<K, V> {
+    private long maximumWeight = Long.MAX_VALUE;
+    private long expireAfterWriteNanos, expireAfterAccessNanos, refreshAfterWriteNanos;
+    private ToLongBiFunction<? super K, ? super V> weigher = (k, v) -> 1;
+    private Function<? super K, ? extends V> loader;
+    private Executor executor = ForkJoinPool.commonPool();
+    private BiConsumer<? super K, ? super V> evictionListener;
+    private LongSupplier ticker = System::nanoTime;
+
+    private Builder() {}
+
+    public Builder<K, V> maximumSize(long maximumSize) {
+      return maximumWeight(maximumSize);
+    }
+
+    public Builder<K, V> maximumWeight(long maximumWeight) {
+      if (maximumWeight < 0) throw new IllegalArgumentException("Illegal maximumWeight");
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    // 返回元素的权重, 不能小于 0. 在写入时调用一次
+    public Builder<K, V> weigher(ToLongBiFunction<? super K, ? super V> weigher) {
+      if (weigher == null) throw new IllegalArgumentException("Null weigher");
+      this.weigher = weigher;
+      return this;
+    }
+
+    public Builder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+      expireAfterWriteNanos = toNanos(duration, unit);
+      return this;
+    }
+
+    public Builder<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+      expireAfterAccessNanos = toNanos(duration, unit);
+      return this;
+    }
+
+    // 需要同时设置 loader
+    public Builder<K, V> refreshAfterWrite(long duration, TimeUnit unit) {
+      refreshAfterWriteNanos = toNanos(duration, unit);
+      return this;
+    }
+
+    //  get 在 key 不存在时, 以及刷新时用来加载 value, 返回 null 表示没有这个 key.
+    //  get 里的加载持有 ConcurrentHashTable 的 bin 锁, 不能再访问这个 cache.
+    public Builder<K, V> loader(Function<? super K, ? extends V> loader) {
+      if (loader == null) throw new IllegalArgumentException("Null loader");
+      this.loader = loader;
+      return this;
+    }
+
+    // 刷新在这里执行, 默认是 ForkJoinPool.commonPool()
+    public Builder<K, V> executor(Executor executor) {
+      if (executor == null) throw new IllegalArgumentException("Null executor");
+      this.executor = executor;
+      return this;
+    }
+
+    public Builder<K, V> evictionListener(BiConsumer<? super K, ? super V> evictionListener) {
+      this.evictionListener = evictionListener;
+      return this;
+    }
+
+    // 纳秒时钟, 测试时可以换成手动拨动的时钟
+    public Builder<K, V> ticker(LongSupplier ticker) {
+      if (ticker == null) throw new IllegalArgumentException("Null ticker");
+      this.ticker = ticker;
+      return this;
+    }
+
+    private static long toNanos(long duration, TimeUnit unit) {
+      if (duration <= 0) throw new IllegalArgumentException("Illegal duration");
+      return unit.toNanos(duration);
+    }
+
+    public ConcurrentBoundedCache<K, V> build() {
+      if (refreshAfterWriteNanos > 0 && loader == null) {
+        throw new IllegalArgumentException("refreshAfterWrite requires a loader");
+      }
+      return new ConcurrentBoundedCache<>(this);
+    }
+  }
+
+  // 包括已经过期但还没被清理的元素
+  public int size() {
+    return map.size();
+  }
+
+  public long weightedSize() {
+    evictionLock.lock();
+    try {
+      return weightedSize;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public long hitCount() {
+    return hitCount.sum();
+  }
+
+  public long missCount() {
+    return missCount.sum();
+  }
+
+  // 包括因为过期而被删除的元素
+  public long evictionCount() {
+    return evictionCount.sum();
+  }
+
+  private boolean hasExpired(CacheNode<K, V> node, long now) {
+    return (expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos)
+        || (expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos);
+  }
+
+  public V getIfPresent(K key) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    CacheNode<K, V> node = map.get(key);
+    if (node == null) {
+      missCount.increment();
+      return null;
+    }
+    long now = ticker.getAsLong();
+    if (hasExpired(node, now)) {
+      missCount.increment();
+      tryCleanUp();
+      return null;
+    }
+    V value = node.value;
+    hitCount.increment();
+    if (expireAfterAccessNanos > 0) node.accessTime = now;
+    int probe = HashTableSeparateChaining.spread((int) Thread.currentThread().getId());
+    if (readBuffers[probe & (READ_BUFFERS - 1)].offer(node)) tryCleanUp();
+    refreshIfNeeded(node, now);
+    return value;
+  }
+
+  //  key 不存在 (或者已经过期) 时用 loader 加载. 同一个 key 同时只有一个线程在加载,
+  //  其它线程等它加载完. loader 返回 null 时什么也不插入, 返回 null.
+  public V get(K key) {
+    if (loader == null) throw new IllegalStateException("No loader");
+    V value = getIfPresent(key);
+    if (value != null) return value;
+    CacheNode<K, V> existing = map.get(key);
+    if (existing != null && hasExpired(existing, ticker.getAsLong())) {
+      if (retire(existing)) afterWrite(() -> onExpiredRemoval(existing));
+    }
+    boolean[] loaded = {false};
+    CacheNode<K, V> node =
+        map.computeIfAbsent(
+            key,
+            k -> {
+              V v = loader.apply(k);
+              if (v == null) return null;
+              loaded[0] = true;
+              return newNode(k, v);
+            });
+    if (node == null) return null;
+    if (loaded[0]) afterWrite(() -> onAdd(node));
+    return node.value;
+  }
+
+  private CacheNode<K, V> newNode(K key, V value) {
+    long weight = weigher.applyAsLong(key, value);
+    if (weight < 0) throw new IllegalArgumentException("Negative weight");
+    return new CacheNode<>(key, value, weight, ticker.getAsLong());
+  }
+
+  // 返回原来的值, 没有 (或者已经过期) 时返回 null
+  public V put(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    if (value == null) throw new IllegalArgumentException("Null value");
+    CacheNode<K, V> node = newNode(key, value);
+    while (true) {
+      CacheNode<K, V> prior = map.putIfAbsent(key, node);
+      if (prior == null) {
+        afterWrite(() -> onAdd(node));
+        return null;
+      }
+      V oldValue;
+      synchronized (prior) {
+        // 拿到节点之后它被删除了, 重新插入
+        if (!prior.alive) continue;
+        oldValue = hasExpired(prior, node.writeTime) ? null : prior.value;
+        prior.value = value;
+        prior.weight = node.weight;
+        prior.writeTime = node.writeTime;
+        prior.accessTime = node.writeTime;
+      }
+      afterWrite(() -> onUpdate(prior));
+      return oldValue;
+    }
+  }
+
+  // 返回被删除的值, 没有 (或者已经过期) 时返回 null
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    while (true) {
+      CacheNode<K, V> node = map.get(key);
+      if (node == null) return null;
+      if (!retire(node)) continue;
+      afterWrite(() -> onRemove(node));
+      return hasExpired(node, ticker.getAsLong()) ? null : node.value;
+    }
+  }
+
+  // 弱一致: 逐个删除当时能看到的 key
+  public void clear() {
+    for (K key : map.keys()) remove(key);
+  }
+
+  //  把节点从 map 里删掉, 并标记为不再有效. 节点的锁保证了 put 不会更新一个已经被删除的节点.
+  //  返回 false 表示节点已经被别的线程删除了.
+  private boolean retire(CacheNode<K, V> node) {
+    synchronized (node) {
+      if (!node.alive) return false;
+      map.remove(node.key, node);
+      node.alive = false;
+      return true;
+    }
+  }
+
+  private void refreshIfNeeded(CacheNode<K, V> node, long now) {
+    if (refreshAfterWriteNanos <= 0) return;
+    long writeTime = node.writeTime;
+    if (now - writeTime < refreshAfterWriteNanos) return;
+    if (!REFRESHING.compareAndSet(node, 0, 1)) return;
+    try {
+      executor.execute(
+          () -> {
+            try {
+              V value = loader.apply(node.key);
+              if (value != null) replaceIfUnchanged(node, writeTime, value);
+            } catch (RuntimeException e) {
+              // 刷新失败时保留旧的值, 下次读到时再试
+            } finally {
+              node.refreshing = 0;
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      node.refreshing = 0;
+    }
+  }
+
+  // 刷新期间这个 key 被写过或者删除了, 就放弃刷新的结果
+  private void replaceIfUnchanged(CacheNode<K, V> node, long writeTime, V value) {
+    long weight = weigher.applyAsLong(node.key, value);
+    if (weight < 0) throw new IllegalArgumentException("Negative weight");
+    synchronized (node) {
+      if (!node.alive || node.writeTime != writeTime) return;
+      long now = ticker.getAsLong();
+      node.value = value;
+      node.weight = weight;
+      node.writeTime = now;
+      node.accessTime = now;
+    }
+    afterWrite(() -> onUpdate(node));
+  }
+
+  private void afterWrite(Runnable task) {
+    writeBuffer.add(task);
+    tryCleanUp();
+  }
+
+  //  拿不到锁就直接返回: 持有锁的线程释放锁之后会再检查 writeBuffer, 所以写入不会被漏掉.
+  private void tryCleanUp() {
+    do {
+      if (!evictionLock.tryLock()) return;
+      List<Map.Entry<K, V>> notifications;
+      try {
+        notifications = maintenance();
+      } finally {
+        evictionLock.unlock();
+      }
+      notifyListener(notifications);
+    } while (!writeBuffer.isEmpty());
+  }
+
+  /** Applies all pending reads and writes to the policy, then expires and evicts entries. */
+  public void cleanUp() {
+    List<Map.Entry<K, V>> notifications;
+    evictionLock.lock();
+    try {
+      notifications = maintenance();
+    } finally {
+      evictionLock.unlock();
+    }
+    notifyListener(notifications);
+    if (!writeBuffer.isEmpty()) tryCleanUp();
+  }
+
+  private List<Map.Entry<K, V>> maintenance() {
+    for (ReadBuffer<CacheNode<K, V>> buffer : readBuffers) buffer.drain(this::onAccess);
+    for (Runnable task; (task = writeBuffer.poll()) != null; ) task.run();
+    if (timerWheel != null) timerWheel.advance(ticker.getAsLong(), this::expire);
+    while (weightedSize > maximumWeight) {
+      CacheNode<K, V> victim = accessOrder.firstNode().data();
+      boolean removed = retire(victim);
+      onRemove(victim);
+      if (removed) notifyLater(victim);
+    }
+    if (pendingNotifications.isEmpty()) return null;
+    List<Map.Entry<K, V>> notifications = new ArrayList<>(pendingNotifications);
+    pendingNotifications.clear();
+    return notifications;
+  }
+
+  private void notifyLater(CacheNode<K, V> node) {
+    evictionCount.increment();
+    if (evictionListener != null) {
+      pendingNotifications.add(new AbstractMap.SimpleImmutableEntry<>(node.key, node.value));
+    }
+  }
+
+  private void notifyListener(List<Map.Entry<K, V>> notifications) {
+    if (notifications == null) return;
+    for (Map.Entry<K, V> entry : notifications) {
+      evictionListener.accept(entry.getKey(), entry.getValue());
+    }
+  }
+
+  // 以下的方法都在持有 evictionLock 时调用
+
+  private void onAccess(CacheNode<K, V> node) {
+    if (node.accessNode == null) return;
+    accessOrder.moveToLast(node.accessNode);
+    if (expireAfterAccessNanos > 0) schedule(node);
+  }
+
+  // 插入的任务可能在删除的任务之后才执行, 这时节点已经不在 map 里了, 什么也不做
+  private void onAdd(CacheNode<K, V> node) {
+    if (!node.alive || node.accessNode != null) return;
+    node.accessNode = accessOrder.addLastNode(node);
+    node.policyWeight = node.weight;
+    weightedSize += node.policyWeight;
+    schedule(node);
+  }
+
+  private void onUpdate(CacheNode<K, V> node) {
+    if (node.accessNode == null) return;
+    weightedSize += node.weight - node.policyWeight;
+    node.policyWeight = node.weight;
+    accessOrder.moveToLast(node.accessNode);
+    schedule(node);
+  }
+
+  private void onRemove(CacheNode<K, V> node) {
+    if (node.accessNode == null) return;
+    accessOrder.remove(node.accessNode);
+    node.accessNode = null;
+    weightedSize -= node.policyWeight;
+    if (timerWheel != null) timerWheel.deschedule(node);
+  }
+
+  private void onExpiredRemoval(CacheNode<K, V> node) {
+    onRemove(node);
+    notifyLater(node);
+  }
+
+  // 写入和访问两种过期时间里先到的那个
+  private void schedule(CacheNode<K, V> node) {
+    if (timerWheel == null) return;
+    node.deadline = deadlineOf(node);
+    timerWheel.schedule(node);
+  }
+
+  private long deadlineOf(CacheNode<K, V> node) {
+    long writeDeadline = node.writeTime + expireAfterWriteNanos;
+    long accessDeadline = node.accessTime + expireAfterAccessNanos;
+    if (expireAfterWriteNanos <= 0) return accessDeadline;
+    if (expireAfterAccessNanos <= 0) return writeDeadline;
+    return writeDeadline - accessDeadline < 0 ? writeDeadline : accessDeadline;
+  }
+
+  //  timer 到期时调用. 读缓冲是有损的, 节点的 accessTime 可能比安排 timer 时更新,
+  //  这时按新的时间重新安排.
+  private boolean expire(CacheNode<K, V> node) {
+    if (!hasExpired(node, ticker.getAsLong())) {
+      node.deadline = deadlineOf(node);
+      return false;
+    }
+    boolean removed = retire(node);
+    onRemove(node);
+    if (removed) notifyLater(node);
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "ConcurrentBoundedCache{size="
+        + size()
+        + ", hits="
+        + hitCount()
+        + ", misses="
+        + missCount()
+        + ", evictions="
+        + evictionCount()
+        + "}";
+  }
+}
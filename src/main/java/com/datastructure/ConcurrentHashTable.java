@@ -0,0 +1,508 @@
+/**
+ * A thread-safe hash-table with lock-free reads, following the design of
+ * java.util.concurrent.ConcurrentHashMap.
+ *
+ * <p>Each bin is a singly linked chain whose head lives in an {@link AtomicReferenceArray}. An
+ * insert into an empty bin is a single compareAndSet. Any other update locks the head node of the
+ * bin it touches, so writers only contend when they hit the same bin. Readers never lock: the
+ * links and values are volatile, and a removal only unlinks nodes, so a concurrent reader
+ * either sees a key or doesn't.
+ *
+ * <p>The table doubles once it is three quarters full. Resizing is cooperative: the bins are
+ * claimed in strides by any thread that runs into the resize, each bin is split into its lo/hi
+ * halves in the new table and then replaced with a forwarding node. Readers and writers that reach
+ * a forwarding node continue in the new table, so the map stays fully usable during a resize.
+ *
+ * <p>Keys and values must not be null. The size is kept in a {@link LongAdder}, so concurrent
+ * inserts don't contend on a single counter.
+ */
+package com.datastructure;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+public class ConcurrentHashTable<K, V> implements Iterable<K> {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  // 每个线程一次至少认领这么多个 bin 来搬迁
+  private static final int MIN_TRANSFER_STRIDE = 16;
+
+  private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+  // 特殊节点的 hash. 普通节点的 hash 总是非负的
+  private static final int MOVED = -1;
+  private static final int RESERVED = -2;
+
+  private static class Node<K, V> {
+    final int hash;
+    final K key;
+    volatile V value;
+    volatile Node<K, V> next;
+
+    Node(int hash, K key, V value, Node<K, V> next) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  // 已经搬到 nextTable 的 bin 的头节点
+  private static final class ForwardingNode<K, V> extends Node<K, V> {
+    final AtomicReferenceArray<Node<K, V>> nextTable;
+
+    ForwardingNode(AtomicReferenceArray<Node<K, V>> nextTable) {
+      super(MOVED, null, null, null);
+      this.nextTable = nextTable;
+    }
+  }
+
+  // computeIfAbsent 在空 bin 上计算 value 时先占住这个 bin, 其它写者会在它的锁上等待
+  private static final class ReservationNode<K, V> extends Node<K, V> {
+    ReservationNode() {
+      super(RESERVED, null, null, null);
+    }
+  }
+
+  // 一次扩容的状态, 所有参与搬迁的线程共享
+  private static final class Resize<K, V> {
+    final AtomicReferenceArray<Node<K, V>> source;
+    final AtomicReferenceArray<Node<K, V>> target;
+    final ForwardingNode<K, V> forwarding;
+    // 下一个待认领区间的上界, 从 source.length() 往 0 递减
+    final AtomicInteger transferIndex;
+    // 还没搬完的 bin 数, 减到 0 的线程负责切换 table
+    final AtomicInteger remaining;
+
+    Resize(AtomicReferenceArray<Node<K, V>> source) {
+      this.source = source;
+      this.target = new AtomicReferenceArray<>(source.length() * 2);
+      this.forwarding = new ForwardingNode<>(target);
+      this.transferIndex = new AtomicInteger(source.length());
+      this.remaining = new AtomicInteger(source.length());
+    }
+  }
+
+  private volatile AtomicReferenceArray<Node<K, V>> table;
+  private final AtomicReference<Resize<K, V>> resizing = new AtomicReference<>();
+  private final LongAdder count = new LongAdder();
+
+  public ConcurrentHashTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ConcurrentHashTable(int capacity) {
+    if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
+    int n = 2;
+    while (n < capacity && n < MAXIMUM_CAPACITY) n <<= 1;
+    table = new AtomicReferenceArray<>(n);
+  }
+
+  // 和 HashTableSeparateChaining 一样用 fmix32 打散, 再去掉符号位, 负数留给特殊节点
+  static int spread(int h) {
+    return HashTableSeparateChaining.spread(h) & 0x7FFFFFFF;
+  }
+
+  public int size() {
+    long n = count.sum();
+    return n < 0 ? 0 : n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+  }
+
+  public boolean isEmpty() {
+    return count.sum() <= 0;
+  }
+
+  public boolean containsKey(K key) {
+    return get(key) != null;
+  }
+
+  public V get(K key) {
+    if (key == null) return null;
+    int h = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    while (true) {
+      Node<K, V> e = tab.get(h & (tab.length() - 1));
+      if (e == null || e.hash == RESERVED) return null;
+      if (e.hash == MOVED) {
+        tab = ((ForwardingNode<K, V>) e).nextTable;
+        continue;
+      }
+      for (; e != null; e = e.next) {
+        if (e.hash == h && key.equals(e.key)) return e.value;
+      }
+      return null;
+    }
+  }
+
+  public V put(K key, V value) {
+    return putVal(key, value, false);
+  }
+
+  // 返回已有的值, 不存在时插入并返回 null
+  public V putIfAbsent(K key, V value) {
+    return putVal(key, value, true);
+  }
+
+  private V putVal(K key, V value, boolean onlyIfAbsent) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    if (value == null) throw new IllegalArgumentException("Null value");
+    int h = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    while (true) {
+      int i = h & (tab.length() - 1);
+      Node<K, V> f = tab.get(i);
+      if (f == null) {
+        if (tab.compareAndSet(i, null, new Node<>(h, key, value, null))) break;
+        continue;
+      }
+      if (f.hash == MOVED) {
+        tab = helpTransfer((ForwardingNode<K, V>) f);
+        continue;
+      }
+      synchronized (f) {
+        // 加锁之前这个 bin 被别的线程改过 (头节点被删除, 或者已经被搬走), 重新来
+        if (tab.get(i) != f) continue;
+        Node<K, V> e = f;
+        while (true) {
+          if (e.hash == h && key.equals(e.key)) {
+            V oldValue = e.value;
+            if (!onlyIfAbsent) e.value = value;
+            return oldValue;
+          }
+          if (e.next == null) {
+            e.next = new Node<>(h, key, value, null);
+            break;
+          }
+          e = e.next;
+        }
+      }
+      break;
+    }
+    addCount(1, tab);
+    return null;
+  }
+
+  //  key 不存在时用 mappingFunction 计算 value 并插入, 整个过程是原子的, 同一个 key 只会计算一次.
+  //  计算时持有 bin 的锁, 所以 mappingFunction 应该很快, 而且不能修改这个 table.
+  //  mappingFunction 返回 null 时不插入, 返回 null.
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    if (mappingFunction == null) throw new IllegalArgumentException("Null function");
+    int h = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    V value = null;
+    while (true) {
+      int i = h & (tab.length() - 1);
+      Node<K, V> f = tab.get(i);
+      if (f == null) {
+        ReservationNode<K, V> r = new ReservationNode<>();
+        synchronized (r) {
+          if (tab.compareAndSet(i, null, r)) {
+            Node<K, V> node = null;
+            try {
+              value = mappingFunction.apply(key);
+              if (value != null) node = new Node<>(h, key, value, null);
+            } finally {
+              tab.set(i, node);
+            }
+            if (value == null) return null;
+            break;
+          }
+        }
+        continue;
+      }
+      if (f.hash == MOVED) {
+        tab = helpTransfer((ForwardingNode<K, V>) f);
+        continue;
+      }
+      // 先不加锁看一下, key 已经存在时不需要锁
+      for (Node<K, V> e = f; e != null; e = e.next) {
+        if (e.hash == h && key.equals(e.key)) return e.value;
+      }
+      synchronized (f) {
+        if (tab.get(i) != f) continue;
+        Node<K, V> e = f;
+        while (true) {
+          if (e.hash == h && key.equals(e.key)) return e.value;
+          if (e.next == null) break;
+          e = e.next;
+        }
+        value = mappingFunction.apply(key);
+        if (value == null) return null;
+        e.next = new Node<>(h, key, value, null);
+      }
+      break;
+    }
+    addCount(1, tab);
+    return value;
+  }
+
+  //  key 不存在时插入 value; 存在时把 value 换成 remappingFunction(旧值, value),
+  //  结果为 null 时删除这个 key. 返回新的值 (删除时返回 null).
+  public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    if (value == null) throw new IllegalArgumentException("Null value");
+    if (remappingFunction == null) throw new IllegalArgumentException("Null function");
+    int h = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    int delta;
+    V result;
+    while (true) {
+      int i = h & (tab.length() - 1);
+      Node<K, V> f = tab.get(i);
+      if (f == null) {
+        if (tab.compareAndSet(i, null, new Node<>(h, key, value, null))) {
+          delta = 1;
+          result = value;
+          break;
+        }
+        continue;
+      }
+      if (f.hash == MOVED) {
+        tab = helpTransfer((ForwardingNode<K, V>) f);
+        continue;
+      }
+      synchronized (f) {
+        if (tab.get(i) != f) continue;
+        Node<K, V> pred = null;
+        Node<K, V> e = f;
+        while (true) {
+          if (e.hash == h && key.equals(e.key)) {
+            result = remappingFunction.apply(e.value, value);
+            if (result != null) {
+              e.value = result;
+              delta = 0;
+            } else {
+              unlink(tab, i, pred, e);
+              delta = -1;
+            }
+            break;
+          }
+          pred = e;
+          if ((e = e.next) == null) {
+            pred.next = new Node<>(h, key, value, null);
+            result = value;
+            delta = 1;
+            break;
+          }
+        }
+      }
+      break;
+    }
+    if (delta != 0) addCount(delta, tab);
+    return result;
+  }
+
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    int h = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    while (true) {
+      int i = h & (tab.length() - 1);
+      Node<K, V> f = tab.get(i);
+      if (f == null) return null;
+      if (f.hash == MOVED) {
+        tab = helpTransfer((ForwardingNode<K, V>) f);
+        continue;
+      }
+      synchronized (f) {
+        if (tab.get(i) != f) continue;
+        Node<K, V> pred = null;
+        for (Node<K, V> e = f; e != null; pred = e, e = e.next) {
+          if (e.hash == h && key.equals(e.key)) {
+            unlink(tab, i, pred, e);
+            count.add(-1);
+            return e.value;
+          }
+        }
+        return null;
+      }
+    }
+  }
+
+  // 只有 key 当前对应的值 equals value 时才删除, 返回是否删除了
+  public boolean remove(K key, V value) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    if (value == null) return false;
+    int h = spread(key.hashCode());
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    while (true) {
+      int i = h & (tab.length() - 1);
+      Node<K, V> f = tab.get(i);
+      if (f == null) return false;
+      if (f.hash == MOVED) {
+        tab = helpTransfer((ForwardingNode<K, V>) f);
+        continue;
+      }
+      synchronized (f) {
+        if (tab.get(i) != f) continue;
+        Node<K, V> pred = null;
+        for (Node<K, V> e = f; e != null; pred = e, e = e.next) {
+          if (e.hash == h && key.equals(e.key)) {
+            if (!value.equals(e.value)) return false;
+            unlink(tab, i, pred, e);
+            count.add(-1);
+            return true;
+          }
+        }
+        return false;
+      }
+    }
+  }
+
+  // 持有 bin 的锁时调用. 被删除节点的 next 保持不变, 正在经过它的读者可以继续往后走
+  private static <K, V> void unlink(
+      AtomicReferenceArray<Node<K, V>> tab, int i, Node<K, V> pred, Node<K, V> e) {
+    if (pred == null) tab.set(i, e.next);
+    else pred.next = e.next;
+  }
+
+  // 弱一致: 逐个删除当时能看到的 key, 和 clear 同时进行的插入可能会保留下来
+  public void clear() {
+    for (K key : keys()) remove(key);
+  }
+
+  // ---------------------------------------------------------------------------------------------
+  // 扩容
+  // ---------------------------------------------------------------------------------------------
+
+  private void addCount(long delta, AtomicReferenceArray<Node<K, V>> tab) {
+    count.add(delta);
+    if (delta <= 0) return;
+    int n = tab.length();
+    if (n < MAXIMUM_CAPACITY && count.sum() >= n - (n >>> 2)) startResize(tab);
+  }
+
+  // tab 需要扩容: 没有正在进行的扩容就发起一次, 否则帮忙搬迁
+  private void startResize(AtomicReferenceArray<Node<K, V>> tab) {
+    Resize<K, V> r = resizing.get();
+    if (r == null) {
+      if (table != tab) return;
+      r = new Resize<>(tab);
+      if (!resizing.compareAndSet(null, r)) {
+        r = resizing.get();
+      } else if (table != tab) {
+        // 检查和 CAS 之间另一个线程完成了整个扩容, r 是基于旧表的, 撤销它
+        resizing.compareAndSet(r, null);
+        return;
+      }
+    }
+    // 只帮忙搬迁当前 table 的扩容. 上面撤销之前, 其它线程可能读到过期的 Resize,
+    // 它的 source 已经全是 forwarding 节点, 搬过去会把整个表换成空的新表
+    if (r != null && r.source == table) transfer(r);
+  }
+
+  // 遇到 forwarding 节点的写者先帮忙搬迁, 然后到新表里继续
+  private AtomicReferenceArray<Node<K, V>> helpTransfer(ForwardingNode<K, V> f) {
+    Resize<K, V> r = resizing.get();
+    if (r != null && r.target == f.nextTable) transfer(r);
+    return f.nextTable;
+  }
+
+  private void transfer(Resize<K, V> r) {
+    int n = r.source.length();
+    int stride = Math.max((n >>> 3) / NCPU, MIN_TRANSFER_STRIDE);
+    while (true) {
+      int hi = r.transferIndex.get();
+      if (hi <= 0 || r.source != table) return;
+      int lo = Math.max(0, hi - stride);
+      if (!r.transferIndex.compareAndSet(hi, lo)) continue;
+      for (int i = lo; i < hi; i++) transferBin(r, i);
+      if (r.remaining.addAndGet(lo - hi) == 0) {
+        table = r.target;
+        resizing.set(null);
+        // 扩容期间插入的元素可能已经让新表也超过了阈值
+        int m = r.target.length();
+        if (m < MAXIMUM_CAPACITY && count.sum() >= m - (m >>> 2)) startResize(r.target);
+        return;
+      }
+    }
+  }
+
+  //  把 source 的第 i 个 bin 拆成 lo/hi 两半, 分别放到 target 的 i 和 i + n, 然后换成 forwarding 节点.
+  //  节点是复制过去的, 旧链表保持不变, 还在旧表上的读者不受影响.
+  private void transferBin(Resize<K, V> r, int i) {
+    AtomicReferenceArray<Node<K, V>> source = r.source;
+    int n = source.length();
+    while (true) {
+      Node<K, V> f = source.get(i);
+      if (f == null) {
+        if (source.compareAndSet(i, null, r.forwarding)) return;
+        continue;
+      }
+      // 已经搬走了. 正常情况下每个 bin 只被认领一次, 这里只是防止把 forwarding 节点当成数据复制
+      if (f.hash == MOVED) return;
+      synchronized (f) {
+        if (source.get(i) != f) continue;
+        Node<K, V> lo = null, hi = null;
+        for (Node<K, V> e = f; e != null; e = e.next) {
+          if ((e.hash & n) == 0) lo = new Node<>(e.hash, e.key, e.value, lo);
+          else hi = new Node<>(e.hash, e.key, e.value, hi);
+        }
+        r.target.set(i, lo);
+        r.target.set(i + n, hi);
+        source.set(i, r.forwarding);
+        return;
+      }
+    }
+  }
+
+  // ---------------------------------------------------------------------------------------------
+  // 遍历 (弱一致)
+  // ---------------------------------------------------------------------------------------------
+
+  public List<K> keys() {
+    List<K> keys = new ArrayList<>();
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    for (int i = 0; i < tab.length(); i++) collect(tab, i, keys, true);
+    return keys;
+  }
+
+  public List<V> values() {
+    List<V> values = new ArrayList<>();
+    AtomicReferenceArray<Node<K, V>> tab = table;
+    for (int i = 0; i < tab.length(); i++) collect(tab, i, values, false);
+    return values;
+  }
+
+  // 已经搬走的 bin 到新表里对应的两个 bin 去找
+  @SuppressWarnings("unchecked")
+  private static <K, V> void collect(
+      AtomicReferenceArray<Node<K, V>> tab, int i, List<?> out, boolean keys) {
+    Node<K, V> f = tab.get(i);
+    if (f == null || f.hash == RESERVED) return;
+    if (f.hash == MOVED) {
+      AtomicReferenceArray<Node<K, V>> next = ((ForwardingNode<K, V>) f).nextTable;
+      collect(next, i, out, keys);
+      collect(next, i + tab.length(), out, keys);
+      return;
+    }
+    for (Node<K, V> e = f; e != null; e = e.next) {
+      ((List<Object>) out).add(keys ? e.key : e.value);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{");
+    for (K key : keys()) {
+      V value = get(key);
+      if (value != null) builder.append(" " + key + " => " + value);
+    }
+    builder.append(" }");
+    return builder.toString();
+  }
+
+  // 遍历调用时的 key 快照, 不会抛出 ConcurrentModificationException
+  @Override
+  public Iterator<K> iterator() {
+    return Collections.unmodifiableList(keys()).iterator();
+  }
+}
@@ -0,0 +1,194 @@
+package com.datastructure;
+
+import java.util.Arrays;
+
+/**
+ * A d-ary min-heap with the same API as {@link BinaryHeap}. Every node has {@code arity} children
+ * stored next to each other, so the tree is log(d) times shallower: {@code sink} looks at more
+ * children per level but touches far fewer levels, and the children of a node usually share a
+ * cache line. {@code add} and {@code swim} get cheaper as well. Arity 4 or 8 is a good default for
+ * large push/poll-heavy queues.
+ *
+ * <p>With the aligned layout the root is stored at index {@code arity - 1}, which makes every group
+ * of siblings start at a multiple of {@code arity} in the array, so a group never straddles two
+ * blocks of {@code arity} slots. The JVM does not let us align the array itself, so this is
+ * alignment relative to the first element; it costs {@code arity - 1} unused slots.
+ */
+public class DaryHeap<T extends Comparable<T>> {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private final int arity;
+  // arity 是 2 的幂, 乘除都用移位
+  private final int shift;
+  // 根节点的位置, 对齐时为 arity - 1, 否则为 0
+  private final int root;
+
+  private int heapSize = 0;
+  private Object[] heap;
+
+  public DaryHeap(int arity, int capacity, boolean aligned) {
+    if (arity < 2 || arity > 16 || Integer.bitCount(arity) != 1) {
+      throw new IllegalArgumentException("Arity must be 2, 4, 8 or 16");
+    }
+    if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
+    this.arity = arity;
+    this.shift = Integer.numberOfTrailingZeros(arity);
+    this.root = aligned ? arity - 1 : 0;
+    heap = new Object[root + Math.max(capacity, 1)];
+  }
+
+  public DaryHeap(int arity, int capacity) {
+    this(arity, capacity, false);
+  }
+
+  public DaryHeap(int arity) {
+    this(arity, DEFAULT_CAPACITY);
+  }
+
+  public DaryHeap() {
+    this(4);
+  }
+
+  // 复制 elems 之后从最后一个内部节点开始往前下沉, O(n)
+  public DaryHeap(int arity, T[] elems) {
+    this(arity, elems.length);
+    for (T elem : elems) {
+      if (elem == null) throw new IllegalArgumentException();
+    }
+    System.arraycopy(elems, 0, heap, root, elems.length);
+    heapSize = elems.length;
+    if (heapSize > 1) {
+      for (int p = parent(root + heapSize - 1); p >= root; p--) sink(p, heap[p]);
+    }
+  }
+
+  public int arity() {
+    return arity;
+  }
+
+  public int size() {
+    return heapSize;
+  }
+
+  public boolean isEmpty() {
+    return heapSize == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(heap, root, root + heapSize, null);
+    heapSize = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T peek() {
+    if (isEmpty()) return null;
+    return (T) heap[root];
+  }
+
+  public T poll() {
+    return removeAt(root);
+  }
+
+  public boolean contains(T elem) {
+    return indexOf(elem) >= 0;
+  }
+
+  private int indexOf(T elem) {
+    for (int i = root; i < root + heapSize; i++) {
+      if (heap[i].equals(elem)) return i;
+    }
+    return -1;
+  }
+
+  public void add(T elem) {
+    if (elem == null) throw new IllegalArgumentException();
+    int end = root + heapSize;
+    if (end == heap.length) heap = Arrays.copyOf(heap, root + heapSize * 2);
+    heapSize += 1;
+    swim(end, elem);
+  }
+
+  public boolean remove(T elem) {
+    int i = indexOf(elem);
+    if (i < 0) return false;
+    removeAt(i);
+    return true;
+  }
+
+  // 物理位置 p 的第一个子节点和 c 的父节点
+  private int firstChild(int p) {
+    return ((p - root) << shift) + 1 + root;
+  }
+
+  private int parent(int c) {
+    return ((c - root - 1) >>> shift) + root;
+  }
+
+  // 从 k 往下找 elem 的位置, 每层在 arity 个子节点里找最小的上移
+  @SuppressWarnings("unchecked")
+  private void sink(int k, Object elem) {
+    Object[] heap = this.heap;
+    int end = root + heapSize;
+    // 只在内部节点上计算子节点位置, 叶子的 firstChild 在很大的堆里可能溢出
+    int lastParent = end > root + 1 ? parent(end - 1) : root - 1;
+    while (k <= lastParent) {
+      int child = firstChild(k);
+      Object c = heap[child];
+      int last = Math.min(child + arity, end);
+      for (int i = child + 1; i < last; i++) {
+        if (((T) heap[i]).compareTo((T) c) < 0) c = heap[child = i];
+      }
+      if (((T) elem).compareTo((T) c) <= 0) break;
+      heap[k] = c;
+      k = child;
+    }
+    heap[k] = elem;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void swim(int k, Object elem) {
+    Object[] heap = this.heap;
+    while (k > root) {
+      int parent = parent(k);
+      Object p = heap[parent];
+      if (((T) p).compareTo((T) elem) <= 0) break;
+      heap[k] = p;
+      k = parent;
+    }
+    heap[k] = elem;
+  }
+
+  //  用最后一个元素填补 k 的空位: 先往下沉, 没有移动的话再往上浮
+  @SuppressWarnings("unchecked")
+  private T removeAt(int k) {
+    if (isEmpty()) return null;
+
+    T removed = (T) heap[k];
+    int last = root + --heapSize;
+    Object tail = heap[last];
+    heap[last] = null;
+    if (k != last) {
+      sink(k, tail);
+      if (heap[k] == tail) swim(k, tail);
+    }
+    return removed;
+  }
+
+  // k 是逻辑位置, 根为 0, 与 BinaryHeap 一致
+  @SuppressWarnings("unchecked")
+  public boolean isMinHeap(int k) {
+    if (k >= heapSize) return true;
+    int p = root + k;
+    int child = firstChild(p);
+    for (int c = child; c < child + arity && c < root + heapSize; c++) {
+      if (((T) heap[c]).compareTo((T) heap[p]) < 0) return false;
+      if (!isMinHeap(c - root)) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(Arrays.copyOfRange(heap, root, root + heapSize));
+  }
+}
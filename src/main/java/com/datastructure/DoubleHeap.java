@@ -0,0 +1,115 @@
+package com.datastructure;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of {@code double} values kept in a plain {@code double[]}, so adding and
+ * polling never box. Sifting moves a hole like {@link BinaryHeap}. Duplicates are allowed.
+ * NaN cannot be ordered and is rejected.
+ */
+public class DoubleHeap {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private int size;
+  private double[] heap;
+
+  public DoubleHeap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public DoubleHeap(int capacity) {
+    if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
+    heap = new double[Math.max(capacity, 1)];
+  }
+
+  // 复制 values 之后自底向上建堆, O(n)
+  public DoubleHeap(double[] values) {
+    size = values.length;
+    heap = Arrays.copyOf(values, Math.max(size, 1));
+    for (int i = 0; i < size; i++) {
+      if (Double.isNaN(heap[i])) throw new IllegalArgumentException("NaN");
+    }
+    for (int i = (size >>> 1) - 1; i >= 0; i--) sink(i, heap[i]);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public void add(double value) {
+    if (Double.isNaN(value)) throw new IllegalArgumentException("NaN");
+    if (size == heap.length) heap = Arrays.copyOf(heap, heap.length * 2);
+    swim(size++, value);
+  }
+
+  // 堆为空时抛出 NoSuchElementException
+  public double peek() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    return heap[0];
+  }
+
+  public double poll() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    double top = heap[0];
+    double tail = heap[--size];
+    if (size > 0) sink(0, tail);
+    return top;
+  }
+
+  // 从 k 往下找 value 的位置, 较小的子节点依次上移填补空位
+  private void sink(int k, double value) {
+    double[] heap = this.heap;
+    int half = size >>> 1;
+    while (k < half) {
+      int child = 2 * k + 1;
+      double c = heap[child];
+      int right = child + 1;
+      if (right < size && heap[right] < c) c = heap[child = right];
+      if (value <= c) break;
+      heap[k] = c;
+      k = child;
+    }
+    heap[k] = value;
+  }
+
+  // 从 k 往上找 value 的位置, 较大的父节点依次下移
+  private void swim(int k, double value) {
+    double[] heap = this.heap;
+    while (k > 0) {
+      int parent = (k - 1) >>> 1;
+      double p = heap[parent];
+      if (p <= value) break;
+      heap[k] = p;
+      k = parent;
+    }
+    heap[k] = value;
+  }
+
+  // 按堆里的顺序 (不是排好序的) 返回所有元素
+  public double[] toArray() {
+    return Arrays.copyOf(heap, size);
+  }
+
+  public boolean isMinHeap(int k) {
+    if (k >= size) return true;
+    int left = 2 * k + 1;
+    int right = 2 * k + 2;
+    if (left < size && heap[left] < heap[k]) return false;
+    if (right < size && heap[right] < heap[k]) return false;
+    return isMinHeap(left) && isMinHeap(right);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+}
@@ -0,0 +1,121 @@
+package com.datastructure;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of (double key, int payload) pairs, for example tentative distances and
+ * vertices in Dijkstra's algorithm, ordered by key. Keys and payloads are kept in two parallel
+ * arrays and moved together when sifting, so there is no entry object per element and the keys are
+ * never boxed. NaN keys cannot be ordered and are rejected.
+ */
+public class DoubleIntHeap {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private int size;
+  private double[] keys;
+  private int[] values;
+
+  public DoubleIntHeap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public DoubleIntHeap(int capacity) {
+    if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
+    keys = new double[Math.max(capacity, 1)];
+    values = new int[keys.length];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public void add(double key, int value) {
+    if (Double.isNaN(key)) throw new IllegalArgumentException("NaN");
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    swim(size++, key, value);
+  }
+
+  // 堆为空时抛出 NoSuchElementException
+  public double peekKey() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    return keys[0];
+  }
+
+  public int peekValue() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    return values[0];
+  }
+
+  // 删除 key 最小的元素, 返回它的 payload
+  public int poll() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    int top = values[0];
+    int last = --size;
+    if (last > 0) sink(0, keys[last], values[last]);
+    return top;
+  }
+
+  // 从 k 往下找 (key, value) 的位置, key 较小的子节点依次上移填补空位
+  private void sink(int k, double key, int value) {
+    double[] keys = this.keys;
+    int half = size >>> 1;
+    while (k < half) {
+      int child = 2 * k + 1;
+      int right = child + 1;
+      if (right < size && keys[right] < keys[child]) child = right;
+      if (key <= keys[child]) break;
+      keys[k] = keys[child];
+      values[k] = values[child];
+      k = child;
+    }
+    keys[k] = key;
+    values[k] = value;
+  }
+
+  // 从 k 往上找 (key, value) 的位置, key 较大的父节点依次下移
+  private void swim(int k, double key, int value) {
+    double[] keys = this.keys;
+    while (k > 0) {
+      int parent = (k - 1) >>> 1;
+      if (keys[parent] <= key) break;
+      keys[k] = keys[parent];
+      values[k] = values[parent];
+      k = parent;
+    }
+    keys[k] = key;
+    values[k] = value;
+  }
+
+  public boolean isMinHeap(int k) {
+    if (k >= size) return true;
+    int left = 2 * k + 1;
+    int right = 2 * k + 2;
+    if (left < size && keys[left] < keys[k]) return false;
+    if (right < size && keys[right] < keys[k]) return false;
+    return isMinHeap(left) && isMinHeap(right);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) builder.append(", ");
+      builder.append(keys[i] + " => " + values[i]);
+    }
+    builder.append("]");
+    return builder.toString();
+  }
+}
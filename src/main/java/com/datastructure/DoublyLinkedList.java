@@ -21,7 +21,9 @@ public class DoublyLinkedList<T> implements Iterable<T> {
     this.tail = null;
   }
 
-  private static class Node<T> {
+  //  节点本身可以当作句柄在包内使用: 拿着 addLastNode 返回的节点, 就可以 O(1) 地删除或者移动它,
+  //  不用像 remove(Object) 那样从头找. 节点从链表上摘下来之后 prev/next 都是 null.
+  static final class Node<T> {
     private Node<T> prev;
     private Node<T> next;
     private T data;
@@ -32,6 +34,10 @@ public class DoublyLinkedList<T> implements Iterable<T> {
       this.data = data;
     }
 
+    T data() {
+      return data;
+    }
+
     @Override
     public String toString() {
       if (data == null) {
@@ -161,16 +167,60 @@ public class DoublyLinkedList<T> implements Iterable<T> {
     return data;
   }
 
+  // Add an element to the tail of the linked list and return its node, O(1)
+  Node<T> addLastNode(T elem) {
+    Node<T> node = new Node<T>(null, null, elem);
+    linkLast(node);
+    return node;
+  }
+
+  // Return the node at the head of the linked list, or null if it is empty, O(1)
+  Node<T> firstNode() {
+    return isEmpty() ? null : head;
+  }
+
+  // Return the node at the tail of the linked list, or null if it is empty, O(1)
+  Node<T> lastNode() {
+    return isEmpty() ? null : tail;
+  }
+
   // Remove an arbitrary node from the linked list, O(1)
-  private T remove(Node<T> node) {
+  T remove(Node<T> node) {
     T data = node.data;
+    unlink(node);
     node.data = null;
-    if (head != tail) {
-      node.prev.next = node.next;
-      node.next.prev = node.prev;
+    return data;
+  }
+
+  // Move a node of this linked list to its tail, O(1)
+  void moveToLast(Node<T> node) {
+    if (node == tail) return;
+    unlink(node);
+    linkLast(node);
+  }
+
+  // 把一个不在任何链表上的节点接到末尾
+  void linkLast(Node<T> node) {
+    if (isEmpty()) {
+      head = node;
+    } else {
+      tail.next = node;
+      node.prev = tail;
     }
+    tail = node;
+    size += 1;
+  }
+
+  //  把节点从链表上摘下来, 保留 data, 可以再 linkLast 到这个或者另一个链表上.
+  //  节点是 head 或 tail 时没有 prev 或 next, 要分别处理.
+  void unlink(Node<T> node) {
+    if (node.prev == null) head = node.next;
+    else node.prev.next = node.next;
+    if (node.next == null) tail = node.prev;
+    else node.next.prev = node.prev;
+    node.prev = null;
+    node.next = null;
     size -= 1;
-    return data;
   }
 
   // Remove a node at a particular index, O(n)
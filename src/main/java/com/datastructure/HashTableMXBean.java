@@ -0,0 +1,32 @@
+package com.datastructure;
+
+/**
+ * The JMX view of a hash table's {@link HashTableStats}, registered by {@link HashTableMonitor}.
+ * Every attribute is scalar except the histogram, so monitoring systems can alert on them
+ * directly, for example on MaxProbeLength or MeanProbeLength drifting up.
+ */
+public interface HashTableMXBean {
+  int getSize();
+
+  int getCapacity();
+
+  double getLoadFactor();
+
+  int getMaxProbeLength();
+
+  double getMeanProbeLength();
+
+  /**
+   * Slot i counts the buckets with i entries (separate chaining, slot 0 is the empty buckets) or
+   * the entries i slots from home (open addressing); see {@link HashTableStats}.
+   */
+  long[] getProbeLengthHistogram();
+
+  int getEmptyBuckets();
+
+  int getTreeifiedBuckets();
+
+  long getResizeCount();
+
+  long getTotalResizeTimeMillis();
+}
@@ -0,0 +1,122 @@
+package com.datastructure;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the stats of a hash table as a {@link HashTableMXBean} on the platform MBean server:
+ *
+ * <pre>{@code
+ * HashTableMonitor monitor = new HashTableMonitor(table::stats);
+ * monitor.register("sessions"); // com.datastructure:type=HashTable,name=sessions
+ * }</pre>
+ *
+ * <p>The supplier is called from JMX threads. The hash tables are not thread-safe, so if the table
+ * is modified concurrently the supplier has to take whatever lock guards it. A snapshot scans the
+ * whole table, so one is reused for a short while (one second by default) rather than taken again
+ * for every attribute a client reads.
+ */
+public class HashTableMonitor implements HashTableMXBean {
+  private static final long DEFAULT_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Supplier<HashTableStats> stats;
+  private final long maxAgeNanos;
+  private volatile HashTableStats snapshot;
+  private volatile long snapshotTime;
+  private ObjectName name;
+
+  public HashTableMonitor(Supplier<HashTableStats> stats) {
+    this(stats, DEFAULT_MAX_AGE_NANOS, TimeUnit.NANOSECONDS);
+  }
+
+  // maxAge 为 0 时每次读取都重新统计
+  public HashTableMonitor(Supplier<HashTableStats> stats, long maxAge, TimeUnit unit) {
+    if (stats == null) throw new IllegalArgumentException("Null stats supplier");
+    if (maxAge < 0) throw new IllegalArgumentException("Illegal maxAge");
+    this.stats = stats;
+    this.maxAgeNanos = unit.toNanos(maxAge);
+  }
+
+  /** Registers this monitor as com.datastructure:type=HashTable,name=name. */
+  public synchronized ObjectName register(String tableName) throws JMException {
+    if (name != null) throw new IllegalStateException("Already registered as " + name);
+    ObjectName objectName =
+        new ObjectName("com.datastructure:type=HashTable,name=" + ObjectName.quote(tableName));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    name = objectName;
+    return objectName;
+  }
+
+  public synchronized void unregister() throws JMException {
+    if (name == null) return;
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    if (server.isRegistered(name)) server.unregisterMBean(name);
+    name = null;
+  }
+
+  /** Returns the latest snapshot, taking a new one if it is older than the maximum age. */
+  public HashTableStats snapshot() {
+    HashTableStats current = snapshot;
+    long now = System.nanoTime();
+    if (current == null || now - snapshotTime >= maxAgeNanos) {
+      current = stats.get();
+      snapshot = current;
+      snapshotTime = now;
+    }
+    return current;
+  }
+
+  @Override
+  public int getSize() {
+    return snapshot().getSize();
+  }
+
+  @Override
+  public int getCapacity() {
+    return snapshot().getCapacity();
+  }
+
+  @Override
+  public double getLoadFactor() {
+    return snapshot().getLoadFactor();
+  }
+
+  @Override
+  public int getMaxProbeLength() {
+    return snapshot().getMaxProbeLength();
+  }
+
+  @Override
+  public double getMeanProbeLength() {
+    return snapshot().getMeanProbeLength();
+  }
+
+  @Override
+  public long[] getProbeLengthHistogram() {
+    return snapshot().getProbeLengthHistogram();
+  }
+
+  @Override
+  public int getEmptyBuckets() {
+    return snapshot().getEmptyBuckets();
+  }
+
+  @Override
+  public int getTreeifiedBuckets() {
+    return snapshot().getTreeifiedBuckets();
+  }
+
+  @Override
+  public long getResizeCount() {
+    return snapshot().getResizeCount();
+  }
+
+  @Override
+  public long getTotalResizeTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(snapshot().getTotalResizeNanos());
+  }
+}
@@ -0,0 +1,302 @@
+/**
+ * A hash-table using open addressing with linear probing and Robin Hood insertion.
+ *
+ * <p>Keys, values and the spread hash of each key live in three parallel arrays, so there is no
+ * per-entry allocation and a lookup only reads the hash array until the stored hash matches. On
+ * insertion an entry that is further from its home slot than the one occupying a slot takes that
+ * slot over and the displaced entry continues probing, which keeps probe lengths short and even.
+ * A lookup can stop as soon as it reaches an entry closer to home than the probe so far. Removal
+ * shifts the following entries of the cluster back by one instead of leaving tombstones.
+ */
+package com.datastructure;
+
+import java.util.*;
+
+class HashTableOpenAddressing<K, V> implements Iterable<K> {
+  private static final double DEFAULT_LOAD_FACTOR = 0.75;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private int size, threshold, modCount;
+  private final double maxLoadFactor;
+  // 扩容的次数和累计耗时, 见 stats()
+  private long resizeCount, resizeNanos;
+
+  // hashes[i] == 0 表示空槽, 有元素的槽里保存的是 spread 之后的非零 hash
+  private int[] hashes;
+  private Object[] keys;
+  private Object[] values;
+
+  public HashTableOpenAddressing() {
+    this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+  }
+
+  public HashTableOpenAddressing(int capacity) {
+    this(capacity, DEFAULT_LOAD_FACTOR);
+  }
+
+  // 探测序列里至少要留一个空槽, 所以 load factor 必须小于 1
+  public HashTableOpenAddressing(int capacity, double maxLoadFactor) {
+    if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
+    if (!(maxLoadFactor > 0 && maxLoadFactor < 1))
+      throw new IllegalArgumentException("Illegal maxLoadFactor");
+    this.maxLoadFactor = maxLoadFactor;
+    allocate(tableSizeFor(capacity));
+  }
+
+  private static int tableSizeFor(int capacity) {
+    if (capacity >= MAXIMUM_CAPACITY) return MAXIMUM_CAPACITY;
+    int n = 2;
+    while (n < capacity) n <<= 1;
+    return n;
+  }
+
+  private void allocate(int capacity) {
+    hashes = new int[capacity];
+    keys = new Object[capacity];
+    values = new Object[capacity];
+    threshold = Math.min((int) (capacity * maxLoadFactor), capacity - 1);
+  }
+
+  //  乘法把低位的差异扩散到高位, 再把高位异或回低位, 下标只取低位 (hash & mask).
+  //  0 留给空槽.
+  private static int hash(Object key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    h ^= h >>> 16;
+    return h == 0 ? 1 : h;
+  }
+
+  // 槽 index 上 hash 为 h 的元素离它的初始位置有多远
+  private static int probeDistance(int h, int index, int mask) {
+    return (index - (h & mask)) & mask;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(hashes, 0);
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    size = 0;
+    modCount++;
+  }
+
+  public boolean hasKey(K key) {
+    if (key == null) return false;
+    return indexOf(key) >= 0;
+  }
+
+  public boolean containsKey(K key) {
+    return hasKey(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(K key) {
+    if (key == null) return null;
+    int index = indexOf(key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  public V add(K key, V val) {
+    return insert(key, val);
+  }
+
+  public V put(K key, V val) {
+    return insert(key, val);
+  }
+
+  //  沿着探测序列找, 遇到空槽, 或者遇到一个离初始位置比我们已经走过的距离还近的元素时就可以停下:
+  //  如果 key 存在, 插入时它一定会把这个元素挤走.
+  private int indexOf(Object key) {
+    int h = hash(key);
+    int mask = hashes.length - 1;
+    for (int index = h & mask, dist = 0; ; index = (index + 1) & mask, dist++) {
+      int existing = hashes[index];
+      if (existing == 0 || probeDistance(existing, index, mask) < dist) return -1;
+      if (existing == h && key.equals(keys[index])) return index;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private V insert(K key, V val) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    int h = hash(key);
+    int mask = hashes.length - 1;
+    for (int index = h & mask, dist = 0; ; index = (index + 1) & mask, dist++) {
+      int existing = hashes[index];
+      if (existing == 0) {
+        hashes[index] = h;
+        keys[index] = key;
+        values[index] = val;
+        break;
+      }
+      if (existing == h && key.equals(keys[index])) {
+        V oldValue = (V) values[index];
+        values[index] = val;
+        return oldValue;
+      }
+      if (probeDistance(existing, index, mask) < dist) {
+        // key 不存在, 占用这个槽, 被挤出来的元素继续往后找位置
+        displace(index, h, key, val);
+        break;
+      }
+    }
+    size += 1;
+    modCount++;
+    if (size > threshold) resize();
+    return null;
+  }
+
+  // 把 (h, key, val) 放进 index, 被挤出来的元素按 Robin Hood 规则继续往后放, 直到遇到空槽
+  private void displace(int index, int h, Object key, Object val) {
+    int mask = hashes.length - 1;
+    int dist = probeDistance(h, index, mask);
+    while (true) {
+      int existing = hashes[index];
+      if (existing == 0) {
+        hashes[index] = h;
+        keys[index] = key;
+        values[index] = val;
+        return;
+      }
+      int existingDist = probeDistance(existing, index, mask);
+      if (existingDist < dist) {
+        Object existingKey = keys[index];
+        Object existingValue = values[index];
+        hashes[index] = h;
+        keys[index] = key;
+        values[index] = val;
+        h = existing;
+        key = existingKey;
+        val = existingValue;
+        dist = existingDist;
+      }
+      index = (index + 1) & mask;
+      dist++;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(K key) {
+    if (key == null) throw new IllegalArgumentException("Null key");
+    int index = indexOf(key);
+    if (index < 0) return null;
+    V oldValue = (V) values[index];
+    // backward shift: 后面不在初始位置上的元素依次往前挪一格, 直到空槽或者已经在初始位置的元素
+    int mask = hashes.length - 1;
+    int next = (index + 1) & mask;
+    while (hashes[next] != 0 && probeDistance(hashes[next], next, mask) > 0) {
+      hashes[index] = hashes[next];
+      keys[index] = keys[next];
+      values[index] = values[next];
+      index = next;
+      next = (next + 1) & mask;
+    }
+    hashes[index] = 0;
+    keys[index] = null;
+    values[index] = null;
+    size -= 1;
+    modCount++;
+    return oldValue;
+  }
+
+  private void resize() {
+    if (hashes.length == MAXIMUM_CAPACITY) throw new IllegalStateException("Table is full");
+    long start = System.nanoTime();
+    int[] oldHashes = hashes;
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(oldHashes.length * 2);
+    // 旧表里的 key 互不相同, 不用再比较 equals
+    for (int i = 0; i < oldHashes.length; i++) {
+      if (oldHashes[i] != 0) {
+        displace(oldHashes[i] & (hashes.length - 1), oldHashes[i], oldKeys[i], oldValues[i]);
+      }
+    }
+    resizeCount++;
+    resizeNanos += System.nanoTime() - start;
+  }
+
+  //  扫描整个表, 统计每个元素的探测长度 (离初始位置的距离加一).
+  //  直方图按距离记, 第 0 格是就在初始位置上的元素.
+  public HashTableStats stats() {
+    long[] histogram = new long[HashTableStats.HISTOGRAM_SIZE];
+    int mask = hashes.length - 1;
+    int max = 0;
+    long total = 0;
+    for (int i = 0; i < hashes.length; i++) {
+      if (hashes[i] == 0) continue;
+      int distance = probeDistance(hashes[i], i, mask);
+      HashTableStats.record(histogram, distance);
+      int length = distance + 1;
+      max = Math.max(max, length);
+      total += length;
+    }
+    double mean = size == 0 ? 0 : (double) total / size;
+    return new HashTableStats(
+        hashes.length, size, histogram, max, mean, 0, 0, resizeCount, resizeNanos);
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<K> keys() {
+    List<K> result = new ArrayList<>(size);
+    for (int i = 0; i < hashes.length; i++) {
+      if (hashes[i] != 0) result.add((K) keys[i]);
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<V> values() {
+    List<V> result = new ArrayList<>(size);
+    for (int i = 0; i < hashes.length; i++) {
+      if (hashes[i] != 0) result.add((V) values[i]);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{");
+    for (int i = 0; i < hashes.length; i++) {
+      if (hashes[i] != 0) builder.append(" " + keys[i] + " => " + values[i]);
+    }
+    builder.append(" }");
+    return builder.toString();
+  }
+
+  // Return an iterator to iterate over all the keys in this map
+  @Override
+  public java.util.Iterator<K> iterator() {
+    final int expectedModCount = modCount;
+    return new java.util.Iterator<K>() {
+      int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        if (expectedModCount != modCount) throw new java.util.ConcurrentModificationException();
+        while (index < hashes.length && hashes[index] == 0) index++;
+        return index < hashes.length;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public K next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return (K) keys[index++];
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
@@ -1,25 +1,37 @@
 /**
  * An implementation of a hash-table using separate chaining with a linked list.
  *
+ * <p>Buckets are intrusive chains of {@link Entry} nodes. A bucket that collects more than
+ * TREEIFY_THRESHOLD entries (a poor hashCode, or keys chosen to collide) is turned into a
+ * red-black tree ordered by hash, then by compareTo when the keys are mutually Comparable, so
+ * lookups in it stay O(log n). The tree turns back into a chain once it has shrunk.
+ *
  * @author William Fiset, william.alexandre.fiset@gmail.com
  */
 package com.datastructure;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 class Entry<K, V> {
   int hash;
   K key;
   V value;
+  Entry<K, V> next;
 
-  public Entry(K key, V value) {
+  public Entry(K key, V value, int hash) {
     this.key = key;
     this.value = value;
-    this.hash = key.hashCode();
+    this.hash = hash;
   }
 
   public boolean equals(Entry<K, V> other) {
-    if (this.hash != other.hashCode()) return false;
+    if (this.hash != other.hash) return false;
     return key.equals(other.key);
   }
 
@@ -30,10 +42,24 @@ class Entry<K, V> {
 
 class HashTableSeparateChaining<K, V> implements Iterable<K> {
   private int size, threshold, capacity;
+  // 结构性修改 (插入新 key, 删除, 清空) 的次数, 遍历时用来检测并发修改
+  private int modCount;
   private double maxLoadFactor;
-  private LinkedList<Entry<K, V>>[] table;
+  private Entry<K, V>[] table;
+  // 扩容的次数和累计耗时, 见 stats()
+  private long resizeCount, resizeNanos;
   private static final double DEFAULT_LOAD_FACTOR = 0.75;
-  private static final int DEFAULT_CAPACITY = 3;
+  private static final int DEFAULT_CAPACITY = 4;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  // 链表长度超过这个值时转成红黑树
+  static final int TREEIFY_THRESHOLD = 8;
+
+  // 表比这个小的时候, 长链表多半是因为表太小, 先扩容而不是转成树
+  static final int MIN_TREEIFY_CAPACITY = 64;
+
+  // 树被拆开或删除到只剩这么多个元素以内时换回链表
+  static final int UNTREEIFY_THRESHOLD = 6;
 
   public HashTableSeparateChaining() {
     this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
@@ -47,14 +73,39 @@ class HashTableSeparateChaining<K, V> implements Iterable<K> {
     if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
     if (maxLoadFactor <= 0 || Double.isNaN(maxLoadFactor) || Double.isInfinite(maxLoadFactor))
       throw new IllegalArgumentException("Illegal maxLoadFactor");
-    this.capacity = capacity;
+    this.capacity = tableSizeFor(capacity);
     this.maxLoadFactor = maxLoadFactor;
-    this.table = new LinkedList[capacity];
+    this.table = newTable(this.capacity);
     this.threshold = (int) (this.capacity * this.maxLoadFactor);
   }
 
+  // 不能直接创建泛型数组
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <K, V> Entry<K, V>[] newTable(int capacity) {
+    return new Entry[capacity];
+  }
+
+  // 表的大小总是 2 的幂, 下标直接取 hash 的低位, 不用做除法
+  private static int tableSizeFor(int capacity) {
+    if (capacity >= MAXIMUM_CAPACITY) return MAXIMUM_CAPACITY;
+    int n = 1;
+    while (n < capacity) n <<= 1;
+    return n;
+  }
+
+  //  murmur3 的 fmix32: 每一位输入都会影响到低位, 低位熵很少的 hashCode (比如连续的整数乘上
+  //  2 的幂) 取掩码之后也不会挤在少数几个 bucket 里.
+  static int spread(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
   private int normalizeIndex(int hash) {
-    return (hash & 0x7FFFFFFF) % capacity;
+    return hash & (capacity - 1);
   }
 
   public int size() {
@@ -68,14 +119,13 @@ class HashTableSeparateChaining<K, V> implements Iterable<K> {
   public void clear() {
     Arrays.fill(table, null);
     size = 0;
+    modCount++;
   }
 
   public boolean hasKey(K key) {
     if (key == null) return false;
-    int bucketIndex = normalizeIndex(key.hashCode());
-    LinkedList<Entry<K, V>> bucket = table[bucketIndex];
-    if (bucket == null) return false;
-    return bucketSeek(key, bucket) != null;
+    int hash = spread(key.hashCode());
+    return bucketSeek(key, hash, table[normalizeIndex(hash)]) != null;
   }
 
   public boolean containsKey(K key) {
@@ -84,9 +134,8 @@ class HashTableSeparateChaining<K, V> implements Iterable<K> {
 
   public V get(K key) {
     if (key == null) return null;
-    int bucketIndex = normalizeIndex(key.hashCode());
-    if (table[bucketIndex] == null) return null;
-    Entry<K, V> item = bucketSeek(key, table[bucketIndex]);
+    int hash = spread(key.hashCode());
+    Entry<K, V> item = bucketSeek(key, hash, table[normalizeIndex(hash)]);
     if (item == null) return null;
     return item.value;
   }
@@ -101,88 +150,201 @@ class HashTableSeparateChaining<K, V> implements Iterable<K> {
 
   private V insert(K key, V val) {
     if (key == null) throw new IllegalArgumentException("Null key");
-    Entry<K, V> entry = new Entry<>(key, val);
-    int bucketIndex = normalizeIndex(entry.hash);
-
-    return bucketInsert(bucketIndex, entry);
+    int hash = spread(key.hashCode());
+    return bucketInsert(normalizeIndex(hash), key, val, hash);
   }
 
   public V remove(K key) {
     if (key == null) throw new IllegalArgumentException("Null key");
-    int bucketIndex = normalizeIndex(key.hashCode());
-    LinkedList<Entry<K, V>> bucket = table[bucketIndex];
-    if (bucket == null) return null;
-    return bucketRemove(key, bucket);
+    int hash = spread(key.hashCode());
+    return bucketRemove(key, hash, normalizeIndex(hash));
   }
 
 //  1. 插入新的item, 应该返回老的item的value值.
 //  2. 如果key已经存在, 则应该更新 value,返回老的值.
 //  3. 如果key 不存在, 插入,并且返回 null 标志没有前值.
-  private V bucketInsert(int bucketIndex, Entry<K, V> entry) {
-    LinkedList<Entry<K, V>> bucket = table[bucketIndex];
-    if (bucket == null) table[bucketIndex] = bucket = new LinkedList<>();
+  private V bucketInsert(int bucketIndex, K key, V val, int hash) {
+    Entry<K, V> head = table[bucketIndex];
+    Entry<K, V> exist;
+    if (head instanceof TreeNode) {
+      TreeNode<K, V> root = (TreeNode<K, V>) head;
+      exist = root.find(hash, key, null);
+      if (exist == null) table[bucketIndex] = TreeNode.insert(root, new TreeNode<>(key, val, hash));
+    } else {
+      int binCount = 0;
+      Entry<K, V> last = null;
+      for (exist = head; exist != null; exist = exist.next) {
+        if (exist.hash == hash && key.equals(exist.key)) break;
+        last = exist;
+        binCount += 1;
+      }
+      if (exist == null) {
+        Entry<K, V> entry = new Entry<>(key, val, hash);
+        if (last == null) table[bucketIndex] = entry;
+        else last.next = entry;
+        if (binCount >= TREEIFY_THRESHOLD) treeifyBucket(bucketIndex);
+      }
+    }
 
-    Entry<K, V> exist = bucketSeek(entry.key, bucket);
     if (exist == null) {
-      bucket.add(entry);
       size += 1;
+      modCount++;
       if (size > threshold) resize();
       return null;
     } else {
       V oldValue = exist.value;
-      exist.value = entry.value;
+      exist.value = val;
       return oldValue;
     }
   }
 
-  private Entry<K, V> bucketSeek(K key, LinkedList<Entry<K, V>> bucket) {
-    for (Entry<K, V> item : bucket) {
-      if (key.equals(item.key)) {
+  // 先比较保存的 hash, 只有 hash 相同时才调用 equals
+  private Entry<K, V> bucketSeek(K key, int hash, Entry<K, V> head) {
+    if (head instanceof TreeNode) return ((TreeNode<K, V>) head).find(hash, key, null);
+    for (Entry<K, V> item = head; item != null; item = item.next) {
+      if (item.hash == hash && key.equals(item.key)) {
         return item;
       }
     }
     return null;
   }
 
-  private V bucketRemove(K key, LinkedList<Entry<K, V>> bucket) {
-    Entry<K, V> item = bucketSeek(key, bucket);
-    if (item == null) return null;
-    bucket.remove(item);
-    size -= 1;
-    return item.value;
+  private V bucketRemove(K key, int hash, int bucketIndex) {
+    Entry<K, V> head = table[bucketIndex];
+    if (head instanceof TreeNode) {
+      TreeNode<K, V> root = (TreeNode<K, V>) head;
+      TreeNode<K, V> item = root.find(hash, key, null);
+      if (item == null) return null;
+      V oldValue = item.value;
+      root = TreeNode.delete(root, item);
+      table[bucketIndex] = root != null && root.tooSmall() ? untreeify(root) : root;
+      size -= 1;
+      modCount++;
+      return oldValue;
+    }
+    Entry<K, V> prev = null;
+    for (Entry<K, V> item = head; item != null; prev = item, item = item.next) {
+      if (item.hash == hash && key.equals(item.key)) {
+        if (prev == null) table[bucketIndex] = item.next;
+        else prev.next = item.next;
+        size -= 1;
+        modCount++;
+        return item.value;
+      }
+    }
+    return null;
+  }
+
+  private void treeifyBucket(int bucketIndex) {
+    if (capacity < MIN_TREEIFY_CAPACITY) {
+      resize();
+      return;
+    }
+    TreeNode<K, V> root = null;
+    for (Entry<K, V> e = table[bucketIndex]; e != null; e = e.next) {
+      root = TreeNode.insert(root, new TreeNode<>(e.key, e.value, e.hash));
+    }
+    table[bucketIndex] = root;
+  }
+
+  // 按树的中序把节点换回链表节点
+  private static <K, V> Entry<K, V> untreeify(TreeNode<K, V> root) {
+    Entry<K, V> head = null, tail = null;
+    for (TreeNode<K, V> p = TreeNode.first(root); p != null; p = TreeNode.successor(p)) {
+      Entry<K, V> e = new Entry<>(p.key, p.value, p.hash);
+      if (tail == null) head = e;
+      else tail.next = e;
+      tail = e;
+    }
+    return head;
   }
 
   //  1. 新建一个table, capacity 为原的两倍.
-  //  2. 轮询老table的每个bucket，再轮询每个bucket里面的每个元素, 插入到新的表中(重normalizeIndex)
-  //  3. 删除原表及其元素
+  //  2. 容量是 2 的幂, 老 bucket i 里的元素在新表里只可能落在 i 或者 i + oldCapacity,
+  //     由 hash 里 oldCapacity 那一位决定. 所以每个 bucket 只需要拆成 lo/hi 两半:
+  //     链表节点按原来的顺序直接挂到两条新链表上, 不用对每个元素重新算下标.
+  //     树拆开之后哪一半还够长就重新建树, 否则换回链表.
   private void resize() {
+    if (capacity == MAXIMUM_CAPACITY) {
+      threshold = Integer.MAX_VALUE;
+      return;
+    }
+    long start = System.nanoTime();
+    int oldCapacity = capacity;
     capacity *= 2;
     threshold = (int) (maxLoadFactor * capacity);
-    LinkedList<Entry<K, V>>[] larger = new LinkedList[capacity];
-    for (int i = 0; i < table.length; i++) {
-      LinkedList<Entry<K, V>> bucket = table[i];
-      if (bucket != null) {
-        for (Entry<K, V> item : bucket) {
-          int bucketIndex = normalizeIndex(item.hash);
-          LinkedList<Entry<K, V>> largerBucket = larger[bucketIndex];
-          if (largerBucket == null) larger[bucketIndex] = largerBucket = new LinkedList<>();
-          largerBucket.add(item);
+    Entry<K, V>[] larger = newTable(capacity);
+    for (int i = 0; i < oldCapacity; i++) {
+      Entry<K, V> head = table[i];
+      if (head instanceof TreeNode) {
+        splitTree((TreeNode<K, V>) head, larger, i, oldCapacity);
+        continue;
+      }
+      Entry<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+      for (Entry<K, V> item = head, next; item != null; item = next) {
+        next = item.next;
+        item.next = null;
+        if ((item.hash & oldCapacity) == 0) {
+          if (loTail == null) loHead = item;
+          else loTail.next = item;
+          loTail = item;
+        } else {
+          if (hiTail == null) hiHead = item;
+          else hiTail.next = item;
+          hiTail = item;
         }
-        bucket.clear();
-        bucket = null;
       }
+      larger[i] = loHead;
+      larger[i + oldCapacity] = hiHead;
     }
     table = larger;
+    resizeCount++;
+    resizeNanos += System.nanoTime() - start;
+  }
+
+  private static <K, V> void splitTree(
+      TreeNode<K, V> root, Entry<K, V>[] larger, int index, int oldCapacity) {
+    List<TreeNode<K, V>> lo = new ArrayList<>(), hi = new ArrayList<>();
+    for (TreeNode<K, V> p = TreeNode.first(root); p != null; p = TreeNode.successor(p)) {
+      if ((p.hash & oldCapacity) == 0) lo.add(p);
+      else hi.add(p);
+    }
+    larger[index] = rebuildBucket(lo);
+    larger[index + oldCapacity] = rebuildBucket(hi);
+  }
+
+  private static <K, V> Entry<K, V> rebuildBucket(List<TreeNode<K, V>> nodes) {
+    if (nodes.size() > UNTREEIFY_THRESHOLD) {
+      TreeNode<K, V> root = null;
+      for (TreeNode<K, V> p : nodes) {
+        root = TreeNode.insert(root, new TreeNode<>(p.key, p.value, p.hash));
+      }
+      return root;
+    }
+    Entry<K, V> head = null;
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      TreeNode<K, V> p = nodes.get(i);
+      Entry<K, V> e = new Entry<>(p.key, p.value, p.hash);
+      e.next = head;
+      head = e;
+    }
+    return head;
+  }
+
+  // bucket 里的第一个元素: 链表的头, 或者树的最小节点
+  private static <K, V> Entry<K, V> bucketFirst(Entry<K, V> head) {
+    return head instanceof TreeNode ? TreeNode.first((TreeNode<K, V>) head) : head;
+  }
+
+  private static <K, V> Entry<K, V> bucketNext(Entry<K, V> item) {
+    return item instanceof TreeNode ? TreeNode.successor((TreeNode<K, V>) item) : item.next;
   }
 
   public List<K> keys() {
     List<K> keys = new ArrayList<>(size);
     for (int i = 0; i < table.length; i++) {
-      LinkedList<Entry<K, V>> bucket = table[i];
-      if (bucket != null) {
-        for (Entry<K, V> item : bucket) {
-          keys.add(item.key);
-        }
+      for (Entry<K, V> item = bucketFirst(table[i]); item != null; item = bucketNext(item)) {
+        keys.add(item.key);
       }
     }
     return keys;
@@ -191,11 +353,8 @@ class HashTableSeparateChaining<K, V> implements Iterable<K> {
   public List<V> values() {
     List<V> values = new ArrayList<>(size);
     for (int i = 0; i < table.length; i++) {
-      LinkedList<Entry<K, V>> bucket = table[i];
-      if (bucket != null) {
-        for (Entry<K, V> item : bucket) {
-          values.add(item.value);
-        }
+      for (Entry<K, V> item = bucketFirst(table[i]); item != null; item = bucketNext(item)) {
+        values.add(item.value);
       }
     }
     return values;
@@ -206,50 +365,63 @@ class HashTableSeparateChaining<K, V> implements Iterable<K> {
     StringBuilder builder = new StringBuilder();
     builder.append("{");
     for (int i = 0; i < table.length; i++) {
-      if (table[i] == null) continue;
-      for (Entry<K, V> item : table[i]) builder.append(" " + item.toString());
+      for (Entry<K, V> item = bucketFirst(table[i]); item != null; item = bucketNext(item)) {
+        builder.append(" " + item.toString());
+      }
     }
     builder.append(" }");
     return builder.toString();
   }
 
+  //  扫描整个表, 统计每个 bucket 的长度, 空 bucket 记在直方图的第 0 格. 这个表不是线程安全的, 在别的线程 (比如 JMX) 里
+  //  调用时, 调用方要自己保证这期间没有修改.
+  public HashTableStats stats() {
+    long[] histogram = new long[HashTableStats.HISTOGRAM_SIZE];
+    int max = 0, empty = 0, treeified = 0, nonEmpty = 0;
+    for (Entry<K, V> head : table) {
+      if (head == null) {
+        HashTableStats.record(histogram, 0);
+        empty++;
+        continue;
+      }
+      if (head instanceof TreeNode) treeified++;
+      int length = 0;
+      for (Entry<K, V> item = bucketFirst(head); item != null; item = bucketNext(item)) length++;
+      HashTableStats.record(histogram, length);
+      max = Math.max(max, length);
+      nonEmpty++;
+    }
+    double mean = nonEmpty == 0 ? 0 : (double) size / nonEmpty;
+    return new HashTableStats(
+        capacity, size, histogram, max, mean, empty, treeified, resizeCount, resizeNanos);
+  }
+
   // Return an iterator to iterate over all the keys in this map
   @Override
   public java.util.Iterator<K> iterator() {
-    final int elementCount = size();
+    final int expectedModCount = modCount;
     return new java.util.Iterator<K>() {
 
-      int bucketIndex = 0;
-      java.util.Iterator<Entry<K, V>> bucketIter = (table[0] == null) ? null : table[0].iterator();
+      int bucketIndex = -1;
+      Entry<K, V> item = null;
 
       @Override
       public boolean hasNext() {
 
         // An item was added or removed while iterating
-        if (elementCount != size) throw new java.util.ConcurrentModificationException();
+        if (expectedModCount != modCount) throw new java.util.ConcurrentModificationException();
 
-        // No iterator or the current iterator is empty
-        if (bucketIter == null || !bucketIter.hasNext()) {
-
-          // Search next buckets until a valid iterator is found
-          while (++bucketIndex < capacity) {
-            if (table[bucketIndex] != null) {
-
-              // Make sure this iterator actually has elements -_-
-              java.util.Iterator<Entry<K, V>> nextIter = table[bucketIndex].iterator();
-              if (nextIter.hasNext()) {
-                bucketIter = nextIter;
-                break;
-              }
-            }
-          }
-        }
-        return bucketIndex < capacity;
+        // Search next buckets until a non-empty one is found
+        while (item == null && ++bucketIndex < capacity) item = bucketFirst(table[bucketIndex]);
+        return item != null;
       }
 
       @Override
       public K next() {
-        return bucketIter.next().key;
+        if (!hasNext()) throw new NoSuchElementException();
+        K key = item.key;
+        item = bucketNext(item);
+        return key;
       }
 
       @Override
@@ -258,4 +430,488 @@ class HashTableSeparateChaining<K, V> implements Iterable<K> {
       }
     };
   }
+
+  // 按顺序对每个 entry 调用 action, 不复制 key/value, 也不分配迭代器
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    if (action == null) throw new IllegalArgumentException("Null action");
+    int expectedModCount = modCount;
+    for (int i = 0; i < table.length; i++) {
+      for (Entry<K, V> item = bucketFirst(table[i]); item != null; item = bucketNext(item)) {
+        action.accept(item.key, item.value);
+      }
+      if (expectedModCount != modCount) throw new ConcurrentModificationException();
+    }
+  }
+
+  //  一趟删除所有满足 filter 的 entry, 返回是否删除了元素. 链表就地摘除,
+  //  树 bucket 有元素被删除时用剩下的元素重建 (元素不多时换回链表).
+  public boolean removeIf(BiPredicate<? super K, ? super V> filter) {
+    if (filter == null) throw new IllegalArgumentException("Null filter");
+    // size 和 modCount 在每次摘除时就更新, filter 中途抛出异常时表的状态仍然一致
+    boolean removed = false;
+    for (int i = 0; i < table.length; i++) {
+      Entry<K, V> head = table[i];
+      if (head instanceof TreeNode) {
+        // 树先整棵扫描完再重建, 扫描中抛出异常时这个 bucket 还没有被改动
+        List<TreeNode<K, V>> kept = new ArrayList<>();
+        int count = 0;
+        for (TreeNode<K, V> p = TreeNode.first((TreeNode<K, V>) head); p != null; ) {
+          if (filter.test(p.key, p.value)) count++;
+          else kept.add(p);
+          p = TreeNode.successor(p);
+        }
+        if (count > 0) {
+          table[i] = rebuildBucket(kept);
+          size -= count;
+          modCount++;
+          removed = true;
+        }
+        continue;
+      }
+      Entry<K, V> prev = null;
+      for (Entry<K, V> item = head; item != null; item = item.next) {
+        if (filter.test(item.key, item.value)) {
+          if (prev == null) table[i] = item.next;
+          else prev.next = item.next;
+          size--;
+          modCount++;
+          removed = true;
+        } else {
+          prev = item;
+        }
+      }
+    }
+    return removed;
+  }
+
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  //  遍历所有 entry, 不为每个元素分配对象:
+  //    for (HashTableSeparateChaining<K, V>.Cursor c = map.cursor(); c.advance(); ) ...
+  //  遍历过程中插入新 key 或删除会抛出 ConcurrentModificationException, setValue 是允许的.
+  public final class Cursor {
+    private int bucketIndex = -1;
+    private Entry<K, V> item;
+    private int expectedModCount = modCount;
+
+    private Cursor() {}
+
+    public boolean advance() {
+      if (expectedModCount != modCount) throw new ConcurrentModificationException();
+      if (item != null) item = bucketNext(item);
+      while (item == null && ++bucketIndex < table.length) item = bucketFirst(table[bucketIndex]);
+      return item != null;
+    }
+
+    public K key() {
+      return current().key;
+    }
+
+    public V value() {
+      return current().value;
+    }
+
+    public V setValue(V value) {
+      Entry<K, V> entry = current();
+      V oldValue = entry.value;
+      entry.value = value;
+      return oldValue;
+    }
+
+    public void reset() {
+      bucketIndex = -1;
+      item = null;
+      expectedModCount = modCount;
+    }
+
+    private Entry<K, V> current() {
+      if (item == null) throw new NoSuchElementException();
+      return item;
+    }
+  }
+
+  // 可以按 bucket 区间拆分的 key 遍历, 用于并行 stream
+  @Override
+  public Spliterator<K> spliterator() {
+    return new TableSpliterator<>(0, -1, 0, item -> item.key);
+  }
+
+  // 同上, 遍历 (key, value). 每个元素会分配一个 Map.Entry
+  public Spliterator<Map.Entry<K, V>> entrySpliterator() {
+    return new TableSpliterator<>(
+        0, -1, 0, item -> new AbstractMap.SimpleImmutableEntry<>(item.key, item.value));
+  }
+
+  //  遍历 table[index, fence) 里的元素. fence < 0 表示还没开始, 第一次用到时才读取 table 的大小,
+  //  这时剩下的元素个数就是 size, 报告 SIZED; 拆分之后只能估计一半, 不再报告 SIZED.
+  private final class TableSpliterator<T> implements Spliterator<T> {
+    private final Function<Entry<K, V>, T> extractor;
+    private int index, fence, est, expectedModCount;
+    private Entry<K, V> item;
+
+    TableSpliterator(int origin, int fence, int est, Function<Entry<K, V>, T> extractor) {
+      this.index = origin;
+      this.fence = fence;
+      this.est = est;
+      this.extractor = extractor;
+      this.expectedModCount = modCount;
+    }
+
+    private int getFence() {
+      if (fence < 0) {
+        est = size;
+        expectedModCount = modCount;
+        fence = table.length;
+      }
+      return fence;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      int hi = getFence();
+      int lo = index;
+      int mid = (lo + hi) >>> 1;
+      if (lo >= mid || item != null) return null;
+      index = mid;
+      est >>>= 1;
+      TableSpliterator<T> prefix = new TableSpliterator<>(lo, mid, est, extractor);
+      prefix.expectedModCount = expectedModCount;
+      return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (action == null) throw new NullPointerException();
+      int hi = getFence();
+      while (item != null || index < hi) {
+        if (item == null) {
+          item = bucketFirst(table[index++]);
+          continue;
+        }
+        T value = extractor.apply(item);
+        item = bucketNext(item);
+        action.accept(value);
+        if (expectedModCount != modCount) throw new ConcurrentModificationException();
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      if (action == null) throw new NullPointerException();
+      int hi = getFence();
+      Entry<K, V>[] tab = table;
+      while (item != null || index < hi) {
+        if (item == null) item = bucketFirst(tab[index++]);
+        for (; item != null; item = bucketNext(item)) action.accept(extractor.apply(item));
+      }
+      if (expectedModCount != modCount) throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public long estimateSize() {
+      getFence();
+      return est;
+    }
+
+    @Override
+    public int characteristics() {
+      int sized = fence < 0 || est == size ? Spliterator.SIZED : 0;
+      return sized | Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
+  }
+
+  /**
+   * A node of a treeified bucket; the bucket slot holds the root. The tree is a red-black tree
+   * (the insertion and deletion fix-ups follow CLR as in java.util.TreeMap) ordered by hash, then
+   * by compareTo when both keys are of the same Comparable class, then by class name and identity
+   * hash code. The last two only give inserts a place to go: a lookup that cannot decide between
+   * the two subtrees on hash and compareTo searches both.
+   */
+  static final class TreeNode<K, V> extends Entry<K, V> {
+    TreeNode<K, V> parent, left, right;
+    boolean red;
+
+    TreeNode(K key, V value, int hash) {
+      super(key, value, hash);
+    }
+
+    // 从这个节点开始找 (hash, key). keyClass 是 key 可以互相比较的类, 第一次需要时才计算
+    TreeNode<K, V> find(int hash, Object key, Class<?> keyClass) {
+      TreeNode<K, V> p = this;
+      while (p != null) {
+        int dir;
+        if (hash < p.hash) p = p.left;
+        else if (hash > p.hash) p = p.right;
+        else if (key == p.key || key.equals(p.key)) return p;
+        else if (p.left == null) p = p.right;
+        else if (p.right == null) p = p.left;
+        else if ((keyClass != null || (keyClass = comparableClassFor(key)) != null)
+            && (dir = compareComparables(keyClass, key, p.key)) != 0) {
+          p = dir < 0 ? p.left : p.right;
+        } else {
+          // 这一层分不出方向, 两边都要找
+          TreeNode<K, V> q = p.right.find(hash, key, keyClass);
+          if (q != null) return q;
+          p = p.left;
+        }
+      }
+      return null;
+    }
+
+    // 把一个不在树里的 key 插进去, 返回新的根
+    static <K, V> TreeNode<K, V> insert(TreeNode<K, V> root, TreeNode<K, V> x) {
+      if (root == null) {
+        x.red = false;
+        return x;
+      }
+      Class<?> keyClass = null;
+      TreeNode<K, V> p = root;
+      while (true) {
+        int dir;
+        if (x.hash < p.hash) dir = -1;
+        else if (x.hash > p.hash) dir = 1;
+        else if ((keyClass == null && (keyClass = comparableClassFor(x.key)) == null)
+            || (dir = compareComparables(keyClass, x.key, p.key)) == 0) {
+          dir = tieBreakOrder(x.key, p.key);
+        }
+        TreeNode<K, V> next = dir <= 0 ? p.left : p.right;
+        if (next == null) {
+          x.parent = p;
+          if (dir <= 0) p.left = x;
+          else p.right = x;
+          return balanceInsertion(root, x);
+        }
+        p = next;
+      }
+    }
+
+    // 删除节点 p, 返回新的根 (可能为 null). 有两个孩子时把后继的内容搬到 p 上, 删除后继
+    static <K, V> TreeNode<K, V> delete(TreeNode<K, V> root, TreeNode<K, V> p) {
+      if (p.left != null && p.right != null) {
+        TreeNode<K, V> s = successor(p);
+        p.hash = s.hash;
+        p.key = s.key;
+        p.value = s.value;
+        p = s;
+      }
+      TreeNode<K, V> replacement = p.left != null ? p.left : p.right;
+      if (replacement != null) {
+        replacement.parent = p.parent;
+        if (p.parent == null) root = replacement;
+        else if (p == p.parent.left) p.parent.left = replacement;
+        else p.parent.right = replacement;
+        p.left = p.right = p.parent = null;
+        if (!p.red) root = balanceDeletion(root, replacement);
+      } else if (p.parent == null) {
+        return null;
+      } else {
+        // 没有孩子: 先把 p 当作占位的叶子修复, 再摘掉
+        if (!p.red) root = balanceDeletion(root, p);
+        if (p.parent != null) {
+          if (p == p.parent.left) p.parent.left = null;
+          else if (p == p.parent.right) p.parent.right = null;
+          p.parent = null;
+        }
+      }
+      return root;
+    }
+
+    // 树已经很小 (最多几个节点) 时换回链表更划算
+    boolean tooSmall() {
+      return left == null || right == null || left.left == null;
+    }
+
+    static <K, V> TreeNode<K, V> first(TreeNode<K, V> root) {
+      TreeNode<K, V> p = root;
+      if (p != null) while (p.left != null) p = p.left;
+      return p;
+    }
+
+    static <K, V> TreeNode<K, V> successor(TreeNode<K, V> t) {
+      if (t.right != null) return first(t.right);
+      TreeNode<K, V> p = t.parent;
+      while (p != null && t == p.right) {
+        t = p;
+        p = p.parent;
+      }
+      return p;
+    }
+
+    private static <K, V> boolean isRed(TreeNode<K, V> p) {
+      return p != null && p.red;
+    }
+
+    private static <K, V> TreeNode<K, V> parentOf(TreeNode<K, V> p) {
+      return p == null ? null : p.parent;
+    }
+
+    private static <K, V> TreeNode<K, V> leftOf(TreeNode<K, V> p) {
+      return p == null ? null : p.left;
+    }
+
+    private static <K, V> TreeNode<K, V> rightOf(TreeNode<K, V> p) {
+      return p == null ? null : p.right;
+    }
+
+    private static <K, V> void setRed(TreeNode<K, V> p, boolean red) {
+      if (p != null) p.red = red;
+    }
+
+    private static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> p) {
+      if (p == null) return root;
+      TreeNode<K, V> r = p.right;
+      p.right = r.left;
+      if (r.left != null) r.left.parent = p;
+      r.parent = p.parent;
+      if (p.parent == null) root = r;
+      else if (p.parent.left == p) p.parent.left = r;
+      else p.parent.right = r;
+      r.left = p;
+      p.parent = r;
+      return root;
+    }
+
+    private static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> p) {
+      if (p == null) return root;
+      TreeNode<K, V> l = p.left;
+      p.left = l.right;
+      if (l.right != null) l.right.parent = p;
+      l.parent = p.parent;
+      if (p.parent == null) root = l;
+      else if (p.parent.right == p) p.parent.right = l;
+      else p.parent.left = l;
+      l.right = p;
+      p.parent = l;
+      return root;
+    }
+
+    private static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> x) {
+      x.red = true;
+      while (x != null && x != root && x.parent.red) {
+        if (parentOf(x) == leftOf(parentOf(parentOf(x)))) {
+          TreeNode<K, V> y = rightOf(parentOf(parentOf(x)));
+          if (isRed(y)) {
+            setRed(parentOf(x), false);
+            setRed(y, false);
+            setRed(parentOf(parentOf(x)), true);
+            x = parentOf(parentOf(x));
+          } else {
+            if (x == rightOf(parentOf(x))) {
+              x = parentOf(x);
+              root = rotateLeft(root, x);
+            }
+            setRed(parentOf(x), false);
+            setRed(parentOf(parentOf(x)), true);
+            root = rotateRight(root, parentOf(parentOf(x)));
+          }
+        } else {
+          TreeNode<K, V> y = leftOf(parentOf(parentOf(x)));
+          if (isRed(y)) {
+            setRed(parentOf(x), false);
+            setRed(y, false);
+            setRed(parentOf(parentOf(x)), true);
+            x = parentOf(parentOf(x));
+          } else {
+            if (x == leftOf(parentOf(x))) {
+              x = parentOf(x);
+              root = rotateRight(root, x);
+            }
+            setRed(parentOf(x), false);
+            setRed(parentOf(parentOf(x)), true);
+            root = rotateLeft(root, parentOf(parentOf(x)));
+          }
+        }
+      }
+      root.red = false;
+      return root;
+    }
+
+    private static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> x) {
+      while (x != root && !isRed(x)) {
+        if (x == leftOf(parentOf(x))) {
+          TreeNode<K, V> sib = rightOf(parentOf(x));
+          if (isRed(sib)) {
+            setRed(sib, false);
+            setRed(parentOf(x), true);
+            root = rotateLeft(root, parentOf(x));
+            sib = rightOf(parentOf(x));
+          }
+          if (!isRed(leftOf(sib)) && !isRed(rightOf(sib))) {
+            setRed(sib, true);
+            x = parentOf(x);
+          } else {
+            if (!isRed(rightOf(sib))) {
+              setRed(leftOf(sib), false);
+              setRed(sib, true);
+              root = rotateRight(root, sib);
+              sib = rightOf(parentOf(x));
+            }
+            setRed(sib, isRed(parentOf(x)));
+            setRed(parentOf(x), false);
+            setRed(rightOf(sib), false);
+            root = rotateLeft(root, parentOf(x));
+            x = root;
+          }
+        } else {
+          TreeNode<K, V> sib = leftOf(parentOf(x));
+          if (isRed(sib)) {
+            setRed(sib, false);
+            setRed(parentOf(x), true);
+            root = rotateRight(root, parentOf(x));
+            sib = leftOf(parentOf(x));
+          }
+          if (!isRed(rightOf(sib)) && !isRed(leftOf(sib))) {
+            setRed(sib, true);
+            x = parentOf(x);
+          } else {
+            if (!isRed(leftOf(sib))) {
+              setRed(rightOf(sib), false);
+              setRed(sib, true);
+              root = rotateLeft(root, sib);
+              sib = leftOf(parentOf(x));
+            }
+            setRed(sib, isRed(parentOf(x)));
+            setRed(parentOf(x), false);
+            setRed(leftOf(sib), false);
+            root = rotateRight(root, parentOf(x));
+            x = root;
+          }
+        }
+      }
+      setRed(x, false);
+      return root;
+    }
+  }
+
+  // x 的类 C 实现了 Comparable<C> 时返回 C, 否则返回 null
+  static Class<?> comparableClassFor(Object x) {
+    if (!(x instanceof Comparable)) return null;
+    Class<?> c = x.getClass();
+    if (c == String.class || c == Integer.class || c == Long.class) return c;
+    for (Type t : c.getGenericInterfaces()) {
+      if (t instanceof ParameterizedType) {
+        ParameterizedType p = (ParameterizedType) t;
+        Type[] args = p.getActualTypeArguments();
+        if (p.getRawType() == Comparable.class && args.length == 1 && args[0] == c) return c;
+      }
+    }
+    return null;
+  }
+
+  // y 和 x 同属 keyClass 时返回 x.compareTo(y), 否则返回 0
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  static int compareComparables(Class<?> keyClass, Object x, Object y) {
+    return y == null || y.getClass() != keyClass ? 0 : ((Comparable) x).compareTo(y);
+  }
+
+  // hash 相同又无法比较的 key 只能人为规定一个顺序, 插入时用
+  static int tieBreakOrder(Object a, Object b) {
+    int d = a.getClass().getName().compareTo(b.getClass().getName());
+    if (d != 0) return d;
+    return System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1;
+  }
 }
@@ -0,0 +1,127 @@
+package com.datastructure;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of how well the keys of a hash table are distributed, taken by {@code stats()}.
+ *
+ * <p>The probe length is the number of entries a lookup has to look at. For separate chaining it
+ * is counted per non-empty bucket, as the number of entries in that bucket (what a miss into it
+ * costs); a treeified bucket still counts all its entries. For open addressing it is counted per
+ * entry, as its distance from its home slot plus one. With a good hash function the mean stays
+ * close to 1 and the histogram falls off quickly; a long tail or a large maximum means many keys
+ * share a few hash values.
+ *
+ * <p>The histogram is indexed so that slot 0 is meaningful for both layouts. For separate chaining
+ * slot i counts the buckets holding i entries, slot 0 being the empty buckets, so the slots add up
+ * to the capacity. For open addressing slot i counts the entries i slots away from their home slot
+ * (probe length i + 1), slot 0 being the entries found on the first probe, so the slots add up to
+ * the size.
+ *
+ * <p>Taking a snapshot scans the whole table. The resize counters cover the lifetime of the table.
+ */
+public final class HashTableStats {
+  /** Bucket lengths or probe distances of this many or more share the last histogram slot. */
+  public static final int HISTOGRAM_SIZE = 16;
+
+  private final int capacity, size, maxProbeLength, emptyBuckets, treeifiedBuckets;
+  private final double meanProbeLength;
+  private final long[] histogram;
+  private final long resizeCount, resizeNanos;
+
+  HashTableStats(
+      int capacity,
+      int size,
+      long[] histogram,
+      int maxProbeLength,
+      double meanProbeLength,
+      int emptyBuckets,
+      int treeifiedBuckets,
+      long resizeCount,
+      long resizeNanos) {
+    this.capacity = capacity;
+    this.size = size;
+    this.histogram = histogram;
+    this.maxProbeLength = maxProbeLength;
+    this.meanProbeLength = meanProbeLength;
+    this.emptyBuckets = emptyBuckets;
+    this.treeifiedBuckets = treeifiedBuckets;
+    this.resizeCount = resizeCount;
+    this.resizeNanos = resizeNanos;
+  }
+
+  // 计入直方图的第 slot 格, 超出范围的算在最后一格
+  static void record(long[] histogram, int slot) {
+    histogram[Math.min(slot, HISTOGRAM_SIZE - 1)]++;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public double getLoadFactor() {
+    return capacity == 0 ? 0 : (double) size / capacity;
+  }
+
+  public int getMaxProbeLength() {
+    return maxProbeLength;
+  }
+
+  public double getMeanProbeLength() {
+    return meanProbeLength;
+  }
+
+  /**
+   * Element i counts the buckets with i entries (separate chaining) or the entries i slots from
+   * home (open addressing); the last element also counts everything above it.
+   */
+  public long[] getProbeLengthHistogram() {
+    return histogram.clone();
+  }
+
+  // 只对 separate chaining 有意义, open addressing 总是 0
+  public int getEmptyBuckets() {
+    return emptyBuckets;
+  }
+
+  public int getTreeifiedBuckets() {
+    return treeifiedBuckets;
+  }
+
+  public long getResizeCount() {
+    return resizeCount;
+  }
+
+  public long getTotalResizeNanos() {
+    return resizeNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "HashTableStats{size="
+        + size
+        + ", capacity="
+        + capacity
+        + ", loadFactor="
+        + String.format("%.3f", getLoadFactor())
+        + ", maxProbeLength="
+        + maxProbeLength
+        + ", meanProbeLength="
+        + String.format("%.3f", meanProbeLength)
+        + ", histogram="
+        + Arrays.toString(histogram)
+        + ", emptyBuckets="
+        + emptyBuckets
+        + ", treeifiedBuckets="
+        + treeifiedBuckets
+        + ", resizes="
+        + resizeCount
+        + ", resizeNanos="
+        + resizeNanos
+        + "}";
+  }
+}
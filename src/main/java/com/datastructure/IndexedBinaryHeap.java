@@ -0,0 +1,195 @@
+package com.datastructure;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap whose entries are named by a key index in {@code [0, maxSize)}, such as a
+ * vertex number or a connection slot. A position map from key index to heap slot, and its inverse,
+ * make {@code contains} O(1) and {@code delete}, {@code update}, {@code decreaseKey} and {@code
+ * increaseKey} O(log n), where {@link BinaryHeap#remove} has to scan the heap first.
+ *
+ * <p>The heap itself only holds key indices; values are stored by key index and never move.
+ */
+public class IndexedBinaryHeap<T extends Comparable<T>> {
+  private final int maxSize;
+  private int size;
+
+  // pm[ki] 是 ki 在堆中的位置, 不在堆中时为 -1; im 是它的逆, im[pm[ki]] == ki
+  private final int[] pm;
+  private final int[] im;
+  private final Object[] values;
+
+  public IndexedBinaryHeap(int maxSize) {
+    if (maxSize <= 0) throw new IllegalArgumentException("Size <= 0 is not allowed");
+    this.maxSize = maxSize;
+    pm = new int[maxSize];
+    im = new int[maxSize];
+    values = new Object[maxSize];
+    Arrays.fill(pm, -1);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int ki) {
+    checkIndex(ki);
+    return pm[ki] != -1;
+  }
+
+  public void insert(int ki, T value) {
+    if (contains(ki)) throw new IllegalArgumentException("Key index already exists: " + ki);
+    checkValue(value);
+    values[ki] = value;
+    swim(size++, ki);
+  }
+
+  @SuppressWarnings("unchecked")
+  public T valueOf(int ki) {
+    checkExists(ki);
+    return (T) values[ki];
+  }
+
+  public int peekMinKeyIndex() {
+    checkNotEmpty();
+    return im[0];
+  }
+
+  public int pollMinKeyIndex() {
+    int ki = peekMinKeyIndex();
+    delete(ki);
+    return ki;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T peekMinValue() {
+    checkNotEmpty();
+    return (T) values[im[0]];
+  }
+
+  public T pollMinValue() {
+    return delete(peekMinKeyIndex());
+  }
+
+  // 用最后一个 key index 填补空位, 先下沉, 没有移动的话再上浮
+  public T delete(int ki) {
+    T value = valueOf(ki);
+    int k = pm[ki];
+    int last = --size;
+    int tail = im[last];
+    pm[ki] = -1;
+    values[ki] = null;
+    if (k != last) {
+      sink(k, tail);
+      if (im[k] == tail) swim(k, tail);
+    }
+    return value;
+  }
+
+  // 替换 ki 的值, 返回旧的值
+  public T update(int ki, T value) {
+    T old = valueOf(ki);
+    checkValue(value);
+    values[ki] = value;
+    int k = pm[ki];
+    sink(k, ki);
+    if (im[k] == ki) swim(k, ki);
+    return old;
+  }
+
+  // 新的值不能比当前的大, 相等时什么也不做
+  public void decreaseKey(int ki, T value) {
+    checkValue(value);
+    int cmp = value.compareTo(valueOf(ki));
+    if (cmp > 0) throw new IllegalArgumentException("Value is greater than the current value");
+    if (cmp == 0) return;
+    values[ki] = value;
+    swim(pm[ki], ki);
+  }
+
+  // 新的值不能比当前的小, 相等时什么也不做
+  public void increaseKey(int ki, T value) {
+    checkValue(value);
+    int cmp = value.compareTo(valueOf(ki));
+    if (cmp < 0) throw new IllegalArgumentException("Value is less than the current value");
+    if (cmp == 0) return;
+    values[ki] = value;
+    sink(pm[ki], ki);
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean less(int ki, int kj) {
+    return ((T) values[ki]).compareTo((T) values[kj]) < 0;
+  }
+
+  // 从堆位置 k 往下找 ki 的位置, 较小的子节点依次上移, 同时更新它们的 pm
+  private void sink(int k, int ki) {
+    int half = size >>> 1;
+    while (k < half) {
+      int child = 2 * k + 1;
+      int right = child + 1;
+      if (right < size && less(im[right], im[child])) child = right;
+      if (!less(im[child], ki)) break;
+      move(im[child], k);
+      k = child;
+    }
+    move(ki, k);
+  }
+
+  private void swim(int k, int ki) {
+    while (k > 0) {
+      int parent = (k - 1) >>> 1;
+      if (!less(ki, im[parent])) break;
+      move(im[parent], k);
+      k = parent;
+    }
+    move(ki, k);
+  }
+
+  private void move(int ki, int k) {
+    im[k] = ki;
+    pm[ki] = k;
+  }
+
+  private void checkIndex(int ki) {
+    if (ki < 0 || ki >= maxSize) throw new IllegalArgumentException("Illegal key index: " + ki);
+  }
+
+  private void checkExists(int ki) {
+    if (!contains(ki)) throw new NoSuchElementException("Key index does not exist: " + ki);
+  }
+
+  private void checkNotEmpty() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+  }
+
+  private void checkValue(T value) {
+    if (value == null) throw new IllegalArgumentException("Null value");
+  }
+
+  public boolean isMinHeap(int k) {
+    if (k >= size) return true;
+    int left = 2 * k + 1;
+    int right = 2 * k + 2;
+    if (left < size && less(im[left], im[k])) return false;
+    if (right < size && less(im[right], im[k])) return false;
+    return isMinHeap(left) && isMinHeap(right);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) builder.append(", ");
+      builder.append(im[i] + " => " + values[im[i]]);
+    }
+    builder.append("]");
+    return builder.toString();
+  }
+}
@@ -1,25 +1,131 @@
 package com.datastructure;
 
-public class InsertionSort {
-
-  public void sort(int[] ary) {
-    int n = ary.length;
-    for (int i = 1; i < n; i++) {
-      int rightPosition = i;
-      for (int j = i - 1; j >= 0; j--) {
-        if (ary[i] < ary[j]) {
-          rightPosition = j;
-        }
+import java.util.Comparator;
+
+/**
+ * Insertion sort, also used by the other sorters in this package to finish off short ranges.
+ *
+ * <p>The linear version shifts larger elements right while scanning back from i and stops at the
+ * first element that is not larger, so sorted input costs n - 1 comparisons. The binary version
+ * finds the insertion point with a binary search and moves the block in one System.arraycopy,
+ * which needs fewer comparisons when elements land far from where they started.
+ */
+public class InsertionSort implements Sorter {
+
+  // 排序 ary[from, to)
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    insertionSort(ary, from, to);
+  }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    insertionSort(ary, from, to);
+  }
+
+  // 稳定: 只越过严格更大的元素
+  @Override
+  public <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    Sorter.checkRange(ary.length, from, to);
+    insertionSort(ary, from, to, comparator);
+  }
+
+  public void binarySort(int[] ary) {
+    binaryInsertionSort(ary, 0, ary.length, 0);
+  }
+
+  public void binarySort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    binaryInsertionSort(ary, from, to, from);
+  }
+
+  static void insertionSort(int[] ary, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      int tmp = ary[i];
+      int j = i - 1;
+      // 遇到第一个不比 tmp 大的元素就停下, 前面的部分已经有序
+      while (j >= from && ary[j] > tmp) {
+        ary[j + 1] = ary[j];
+        j -= 1;
+      }
+      ary[j + 1] = tmp;
+    }
+  }
+
+  static void insertionSort(long[] ary, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      long tmp = ary[i];
+      int j = i - 1;
+      while (j >= from && ary[j] > tmp) {
+        ary[j + 1] = ary[j];
+        j -= 1;
       }
-      if (rightPosition != i) {
-        int tmp = ary[i];
-        int j = i;
-        while (j > rightPosition) {
-          ary[j] = ary[j - 1];
-          j -= 1;
-        }
-        ary[rightPosition] = tmp;
+      ary[j + 1] = tmp;
+    }
+  }
+
+  static <T> void insertionSort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    for (int i = from + 1; i < to; i++) {
+      T tmp = ary[i];
+      int j = i - 1;
+      while (j >= from && comparator.compare(ary[j], tmp) > 0) {
+        ary[j + 1] = ary[j];
+        j -= 1;
+      }
+      ary[j + 1] = tmp;
+    }
+  }
+
+  //  [from, start) 已经有序, 把 [start, to) 逐个插入. 二分查找插入位置时相等的元素插在最右边,
+  //  所以排序是稳定的.
+  static void binaryInsertionSort(int[] ary, int from, int to, int start) {
+    if (start == from) start++;
+    for (; start < to; start++) {
+      int pivot = ary[start];
+      int left = from;
+      int right = start;
+      while (left < right) {
+        int mid = (left + right) >>> 1;
+        if (pivot < ary[mid]) right = mid;
+        else left = mid + 1;
+      }
+      System.arraycopy(ary, left, ary, left + 1, start - left);
+      ary[left] = pivot;
+    }
+  }
+
+  static void binaryInsertionSort(long[] ary, int from, int to, int start) {
+    if (start == from) start++;
+    for (; start < to; start++) {
+      long pivot = ary[start];
+      int left = from;
+      int right = start;
+      while (left < right) {
+        int mid = (left + right) >>> 1;
+        if (pivot < ary[mid]) right = mid;
+        else left = mid + 1;
+      }
+      System.arraycopy(ary, left, ary, left + 1, start - left);
+      ary[left] = pivot;
+    }
+  }
+
+  static <T> void binaryInsertionSort(
+      T[] ary, int from, int to, int start, Comparator<? super T> comparator) {
+    if (start == from) start++;
+    for (; start < to; start++) {
+      T pivot = ary[start];
+      int left = from;
+      int right = start;
+      while (left < right) {
+        int mid = (left + right) >>> 1;
+        if (comparator.compare(pivot, ary[mid]) < 0) right = mid;
+        else left = mid + 1;
       }
+      System.arraycopy(ary, left, ary, left + 1, start - left);
+      ary[left] = pivot;
     }
   }
 }
@@ -0,0 +1,279 @@
+package com.datastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map from int keys to object values that never boxes the key, meant for lookups keyed
+ * on numeric IDs. Entries are stored in two parallel arrays with linear probing; removal shifts
+ * later entries of the cluster back into the hole, so there are no tombstones and no Entry objects.
+ *
+ * <p>A key of 0 marks an empty slot in the key array, so the entry for key 0 itself is kept in
+ * separate fields instead of reserving any key value. Iteration goes through a {@link Cursor},
+ * which walks the arrays in place and does not allocate per entry.
+ */
+public class IntObjectMap<V> {
+  private static final double DEFAULT_LOAD_FACTOR = 0.75;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private final double maxLoadFactor;
+  private int size, threshold, modCount;
+
+  // keys[i] == 0 表示空槽
+  private int[] keys;
+  private Object[] values;
+
+  // key 0 不能放进数组, 单独存放
+  private boolean hasZeroKey;
+  private V zeroValue;
+
+  public IntObjectMap() {
+    this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+  }
+
+  public IntObjectMap(int capacity) {
+    this(capacity, DEFAULT_LOAD_FACTOR);
+  }
+
+  public IntObjectMap(int capacity, double maxLoadFactor) {
+    if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
+    if (!(maxLoadFactor > 0 && maxLoadFactor < 1))
+      throw new IllegalArgumentException("Illegal maxLoadFactor");
+    this.maxLoadFactor = maxLoadFactor;
+    int n = 2;
+    while (n < capacity && n < MAXIMUM_CAPACITY) n <<= 1;
+    allocate(n);
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new Object[capacity];
+    threshold = Math.min((int) (capacity * maxLoadFactor), capacity - 1);
+  }
+
+  // 乘以黄金分割常数把低位的差异扩散到高位, 再把高位异或回低位
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0);
+    Arrays.fill(values, null);
+    hasZeroKey = false;
+    zeroValue = null;
+    size = 0;
+    modCount++;
+  }
+
+  public boolean containsKey(int key) {
+    if (key == 0) return hasZeroKey;
+    return indexOf(key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    if (key == 0) return zeroValue;
+    int index = indexOf(key);
+    return index < 0 ? null : (V) values[index];
+  }
+
+  private int indexOf(int key) {
+    int mask = keys.length - 1;
+    for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+      if (keys[index] == key) return index;
+      if (keys[index] == 0) return -1;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    if (key == 0) {
+      V oldValue = zeroValue;
+      zeroValue = value;
+      if (!hasZeroKey) {
+        hasZeroKey = true;
+        size += 1;
+        modCount++;
+      }
+      return oldValue;
+    }
+    int mask = keys.length - 1;
+    int index = hash(key) & mask;
+    while (keys[index] != 0) {
+      if (keys[index] == key) {
+        V oldValue = (V) values[index];
+        values[index] = value;
+        return oldValue;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    size += 1;
+    modCount++;
+    if (size > threshold) resize();
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    if (key == 0) {
+      if (!hasZeroKey) return null;
+      V oldValue = zeroValue;
+      hasZeroKey = false;
+      zeroValue = null;
+      size -= 1;
+      modCount++;
+      return oldValue;
+    }
+    int index = indexOf(key);
+    if (index < 0) return null;
+    V oldValue = (V) values[index];
+    shiftKeys(index);
+    size -= 1;
+    modCount++;
+    return oldValue;
+  }
+
+  //  删除 gap 上的元素后, 把簇里后面的元素往前挪 (Knuth 6.4 Algorithm R).
+  //  index 上的元素初始位置为 home, 只有 home 不在循环区间 (gap, index] 里时才能挪到 gap,
+  //  否则挪过去之后从 home 开始就找不到它了.
+  private void shiftKeys(int gap) {
+    int mask = keys.length - 1;
+    for (int index = (gap + 1) & mask; keys[index] != 0; index = (index + 1) & mask) {
+      int home = hash(keys[index]) & mask;
+      if (((index - home) & mask) >= ((index - gap) & mask)) {
+        keys[gap] = keys[index];
+        values[gap] = values[index];
+        gap = index;
+      }
+    }
+    keys[gap] = 0;
+    values[gap] = null;
+  }
+
+  private void resize() {
+    if (keys.length == MAXIMUM_CAPACITY) throw new IllegalStateException("Table is full");
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(oldKeys.length * 2);
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      int key = oldKeys[i];
+      if (key == 0) continue;
+      int index = hash(key) & mask;
+      while (keys[index] != 0) index = (index + 1) & mask;
+      keys[index] = key;
+      values[index] = oldValues[i];
+    }
+  }
+
+  public int[] keys() {
+    int[] result = new int[size];
+    int n = 0;
+    if (hasZeroKey) result[n++] = 0;
+    for (int key : keys) {
+      if (key != 0) result[n++] = key;
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<V> values() {
+    List<V> result = new ArrayList<>(size);
+    if (hasZeroKey) result.add(zeroValue);
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) result.add((V) values[i]);
+    }
+    return result;
+  }
+
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{");
+    for (Cursor cursor = cursor(); cursor.advance(); ) {
+      builder.append(" " + cursor.key() + " => " + cursor.value());
+    }
+    builder.append(" }");
+    return builder.toString();
+  }
+
+  //  遍历所有 entry, 不为每个元素分配对象:
+  //    for (IntObjectMap<V>.Cursor c = map.cursor(); c.advance(); ) use(c.key(), c.value());
+  //  遍历过程中修改 map 的结构 (插入新 key 或删除) 会抛出 ConcurrentModificationException,
+  //  更新已有 key 的 value 是允许的. reset() 之后可以重新遍历, 同一个 Cursor 可以反复使用.
+  public final class Cursor {
+    // -1 表示还没有访问 key 0
+    private int index = -1;
+    private int expectedModCount = modCount;
+    private int key;
+    private V value;
+    // advance 返回 true 之后才有当前 entry
+    private boolean positioned;
+
+    private Cursor() {}
+
+    @SuppressWarnings("unchecked")
+    public boolean advance() {
+      if (expectedModCount != modCount) throw new ConcurrentModificationException();
+      if (index < 0) {
+        index = 0;
+        if (hasZeroKey) {
+          key = 0;
+          value = zeroValue;
+          positioned = true;
+          return true;
+        }
+      }
+      while (index < keys.length) {
+        int i = index++;
+        if (keys[i] != 0) {
+          key = keys[i];
+          value = (V) values[i];
+          positioned = true;
+          return true;
+        }
+      }
+      positioned = false;
+      return false;
+    }
+
+    public int key() {
+      checkPositioned();
+      return key;
+    }
+
+    public V value() {
+      checkPositioned();
+      return value;
+    }
+
+    public void reset() {
+      index = -1;
+      positioned = false;
+      expectedModCount = modCount;
+    }
+
+    private void checkPositioned() {
+      if (!positioned) throw new NoSuchElementException();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.datastructure;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of (long key, V payload) pairs, for example deadlines and the tasks due at
+ * them, ordered by key. Keys and payloads are kept in two parallel arrays and moved together when
+ * sifting, so there is no entry object per element and the keys are never boxed. Payloads may be
+ * null.
+ */
+public class LongObjectHeap<V> {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private int size;
+  private long[] keys;
+  private Object[] values;
+
+  public LongObjectHeap() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongObjectHeap(int capacity) {
+    if (capacity < 0) throw new IllegalArgumentException("Illegal Capacity");
+    keys = new long[Math.max(capacity, 1)];
+    values = new Object[keys.length];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+  }
+
+  public void add(long key, V value) {
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    swim(size++, key, value);
+  }
+
+  // 堆为空时抛出 NoSuchElementException
+  public long peekKey() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    return keys[0];
+  }
+
+  @SuppressWarnings("unchecked")
+  public V peekValue() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    return (V) values[0];
+  }
+
+  // 删除 key 最小的元素, 返回它的 payload
+  @SuppressWarnings("unchecked")
+  public V poll() {
+    if (size == 0) throw new NoSuchElementException("Empty heap");
+    V top = (V) values[0];
+    int last = --size;
+    long key = keys[last];
+    Object value = values[last];
+    values[last] = null;
+    if (last > 0) sink(0, key, value);
+    return top;
+  }
+
+  // 从 k 往下找 (key, value) 的位置, key 较小的子节点依次上移填补空位
+  private void sink(int k, long key, Object value) {
+    long[] keys = this.keys;
+    int half = size >>> 1;
+    while (k < half) {
+      int child = 2 * k + 1;
+      int right = child + 1;
+      if (right < size && keys[right] < keys[child]) child = right;
+      if (key <= keys[child]) break;
+      keys[k] = keys[child];
+      values[k] = values[child];
+      k = child;
+    }
+    keys[k] = key;
+    values[k] = value;
+  }
+
+  // 从 k 往上找 (key, value) 的位置, key 较大的父节点依次下移
+  private void swim(int k, long key, Object value) {
+    long[] keys = this.keys;
+    while (k > 0) {
+      int parent = (k - 1) >>> 1;
+      if (keys[parent] <= key) break;
+      keys[k] = keys[parent];
+      values[k] = values[parent];
+      k = parent;
+    }
+    keys[k] = key;
+    values[k] = value;
+  }
+
+  public boolean isMinHeap(int k) {
+    if (k >= size) return true;
+    int left = 2 * k + 1;
+    int right = 2 * k + 2;
+    if (left < size && keys[left] < keys[k]) return false;
+    if (right < size && keys[right] < keys[k]) return false;
+    return isMinHeap(left) && isMinHeap(right);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) builder.append(", ");
+      builder.append(keys[i] + " => " + values[i]);
+    }
+    builder.append("]");
+    return builder.toString();
+  }
+}
@@ -1,23 +1,167 @@
 package com.datastructure;
 
-public class MergeSort {
+import java.util.Arrays;
+import java.util.Comparator;
 
-  public void sort(int[] ary) {
-    // 总共有 n-1个pass
-    int[] sorted = _sort(ary, 0, ary.length);
-    for (int i = 0; i < ary.length; i++) {
-      ary[i] = sorted[i];
+public class MergeSort implements Sorter {
+
+  // 子数组长度小于等于这个值时直接用插入排序, 递归到底层的开销比比较本身还大
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new int[to - from]);
+  }
+
+  // 使用调用方提供的 scratch buffer (长度至少为 ary.length), 多次排序之间可以复用同一个 buffer,
+  // 整个排序过程中不会再分配任何内存.
+  public void sort(int[] ary, int[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  // 排序 ary[from, to), aux 的长度至少为 to - from
+  public void sort(int[] ary, int from, int to, int[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+    System.arraycopy(ary, from, aux, 0, n);
+    _sort(aux, 0, ary, from, 0, n);
+  }
+
+  //  把 src[begin, end) 排好序写入 dst[begin, end). 进入时两个数组在这个区间的内容相同.
+  //  每层递归 src 和 dst 互换角色 (ping-pong), 子区间排好序的结果已经在 src 里, merge 时直接写回 dst,
+  //  不需要每层都先拷贝一次.
+  //  begin 和 end 是相对下标, 第 i 个元素在 src 里是 src[srcOff + i], 在 dst 里是 dst[dstOff + i].
+  private void _sort(int[] src, int srcOff, int[] dst, int dstOff, int begin, int end) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(dst, dstOff + begin, dstOff + end);
+      return;
     }
+
+    int mid = begin + ((end - begin) / 2);
+    _sort(dst, dstOff, src, srcOff, begin, mid);
+    _sort(dst, dstOff, src, srcOff, mid, end);
+
+    // 两半已经首尾有序, 不用比较直接拷贝
+    if (src[srcOff + mid - 1] <= src[srcOff + mid]) {
+      System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+      return;
+    }
+    merge(src, srcOff + begin, srcOff + mid, srcOff + end, dst, dstOff + begin);
   }
 
-  private int[] _sort(int[] ary, int begin, int end) {
+  // 合并 src[begin, mid) 和 src[mid, end), 从 dst[position] 开始写
+  private void merge(int[] src, int begin, int mid, int end, int[] dst, int position) {
+    int i = begin;
+    int j = mid;
+    while (i < mid || j < end) {
+      if (i < mid && (j >= end || src[i] <= src[j])) {
+        dst[position] = src[i];
+        i += 1;
+      } else {
+        dst[position] = src[j];
+        j += 1;
+      }
+      position += 1;
+    }
+  }
 
-    if (begin == end - 1) return new int[] {ary[begin]};
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new long[to - from]);
+  }
+
+  public void sort(long[] ary, long[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  public void sort(long[] ary, int from, int to, long[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+    System.arraycopy(ary, from, aux, 0, n);
+    _sort(aux, 0, ary, from, 0, n);
+  }
+
+  // merge 时相等的元素先取左边的, 所以是稳定的
+  @Override
+  public <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    Sorter.checkRange(ary.length, from, to);
+    if (to - from < 2) return;
+    T[] aux = Arrays.copyOfRange(ary, from, to);
+    _sort(aux, 0, ary, from, 0, to - from, comparator);
+  }
+
+  private void _sort(long[] src, int srcOff, long[] dst, int dstOff, int begin, int end) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(dst, dstOff + begin, dstOff + end);
+      return;
+    }
 
     int mid = begin + ((end - begin) / 2);
-    int[] a = _sort(ary, begin, mid);
-    int[] b = _sort(ary, mid, end);
-    return merge(a, b);
+    _sort(dst, dstOff, src, srcOff, begin, mid);
+    _sort(dst, dstOff, src, srcOff, mid, end);
+
+    if (src[srcOff + mid - 1] <= src[srcOff + mid]) {
+      System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+      return;
+    }
+    merge(src, srcOff + begin, srcOff + mid, srcOff + end, dst, dstOff + begin);
+  }
+
+  private <T> void _sort(
+      T[] src, int srcOff, T[] dst, int dstOff, int begin, int end,
+      Comparator<? super T> comparator) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(dst, dstOff + begin, dstOff + end, comparator);
+      return;
+    }
+
+    int mid = begin + ((end - begin) / 2);
+    _sort(dst, dstOff, src, srcOff, begin, mid, comparator);
+    _sort(dst, dstOff, src, srcOff, mid, end, comparator);
+
+    if (comparator.compare(src[srcOff + mid - 1], src[srcOff + mid]) <= 0) {
+      System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+      return;
+    }
+    merge(src, srcOff + begin, srcOff + mid, srcOff + end, dst, dstOff + begin, comparator);
+  }
+
+  private void merge(long[] src, int begin, int mid, int end, long[] dst, int position) {
+    int i = begin;
+    int j = mid;
+    while (i < mid || j < end) {
+      if (i < mid && (j >= end || src[i] <= src[j])) {
+        dst[position] = src[i];
+        i += 1;
+      } else {
+        dst[position] = src[j];
+        j += 1;
+      }
+      position += 1;
+    }
+  }
+
+  private <T> void merge(
+      T[] src, int begin, int mid, int end, T[] dst, int position,
+      Comparator<? super T> comparator) {
+    int i = begin;
+    int j = mid;
+    while (i < mid || j < end) {
+      if (i < mid && (j >= end || comparator.compare(src[i], src[j]) <= 0)) {
+        dst[position] = src[i];
+        i += 1;
+      } else {
+        dst[position] = src[j];
+        j += 1;
+      }
+      position += 1;
+    }
   }
 
   public int[] merge(int[] lary, int[] rary) {
@@ -0,0 +1,431 @@
+package com.datastructure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+
+/**
+ * A hash map from long keys to long values whose entries live outside the Java heap, either in
+ * direct ByteBuffers or in a memory-mapped file. The garbage collector never scans or copies the
+ * table, so it can hold hundreds of millions of entries without affecting pause times, and a mapped
+ * table is still there when the file is opened again after a restart.
+ *
+ * <p>The table is open addressing with linear probing over 16-byte slots (key, value), like
+ * {@link LongLongMap}, and removal shifts later entries back instead of leaving tombstones. Its
+ * capacity is fixed when it is created: the slot count is chosen so that the table never goes
+ * above a 3/4 load factor, and {@link #put} throws once the capacity is reached. A table can be
+ * larger than 2GB, the slots are spread over several buffers of at most 1GB each.
+ *
+ * <p>A file starts with a 64-byte header holding the capacity, the size and the entry for key 0 (0
+ * marks an empty slot). Writes go straight to the mapping; {@link #force} flushes them to the
+ * device. A process that dies in the middle of an update can leave the file inconsistent, there is
+ * no journal. This class is not thread-safe.
+ */
+public class OffHeapHashTable implements Closeable {
+  private static final int MAGIC = 0x4F484854; // "OHHT"
+  private static final int VERSION = 1;
+
+  // header 的布局
+  private static final int HEADER_SIZE = 64;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int SLOTS_OFFSET = 8;
+  private static final int CAPACITY_OFFSET = 16;
+  private static final int SIZE_OFFSET = 24;
+  private static final int HAS_ZERO_KEY_OFFSET = 32;
+  private static final int ZERO_VALUE_OFFSET = 40;
+
+  // 每个槽 16 字节: key 在前, value 在后
+  private static final int SLOT_SHIFT = 4;
+  private static final int SLOT_SIZE = 1 << SLOT_SHIFT;
+
+  // 每个 buffer 最多 2^26 个槽 (1GB), ByteBuffer 的下标是 int
+  private static final int SEGMENT_SHIFT = 26;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+  public static final long MAXIMUM_CAPACITY = 3L << 40;
+
+  private final long capacity, mask;
+  private final FileChannel channel;
+  private ByteBuffer header;
+  private ByteBuffer[] segments;
+  private long size;
+  private int modCount;
+
+  private OffHeapHashTable(
+      long capacity, long slots, FileChannel channel, ByteBuffer header, ByteBuffer[] segments) {
+    this.capacity = capacity;
+    this.mask = slots - 1;
+    this.channel = channel;
+    this.header = header.order(ByteOrder.LITTLE_ENDIAN);
+    this.segments = segments;
+    for (ByteBuffer segment : segments) segment.order(ByteOrder.LITTLE_ENDIAN);
+    this.size = this.header.getLong(SIZE_OFFSET);
+  }
+
+  /** Creates an empty table in direct buffers, which is gone once the table is unreachable. */
+  public static OffHeapHashTable allocateDirect(long capacity) {
+    long slots = slotsFor(capacity);
+    ByteBuffer header = ByteBuffer.allocateDirect(HEADER_SIZE);
+    ByteBuffer[] segments = new ByteBuffer[segmentCount(slots)];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = ByteBuffer.allocateDirect(segmentBytes(slots, i));
+    }
+    OffHeapHashTable table = new OffHeapHashTable(capacity, slots, null, header, segments);
+    table.writeHeader(slots);
+    return table;
+  }
+
+  /**
+   * Maps the table stored in file, creating the file with room for capacity entries when it does
+   * not exist or is empty. An existing file keeps the capacity it was created with.
+   *
+   * @throws IOException if the file cannot be mapped or does not hold a table
+   */
+  public static OffHeapHashTable map(Path file, long capacity) throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      boolean created = channel.size() == 0;
+      long slots;
+      if (created) {
+        slots = slotsFor(capacity);
+      } else {
+        if (channel.size() < HEADER_SIZE) throw new IOException("Not a hash table file: " + file);
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+          throw new IOException("Not a hash table file: " + file);
+        }
+        if (header.getInt(VERSION_OFFSET) != VERSION) {
+          throw new IOException("Unsupported version " + header.getInt(VERSION_OFFSET));
+        }
+        slots = header.getLong(SLOTS_OFFSET);
+        capacity = header.getLong(CAPACITY_OFFSET);
+        if (Long.bitCount(slots) != 1 || channel.size() < HEADER_SIZE + slots * SLOT_SIZE) {
+          throw new IOException("Truncated hash table file: " + file);
+        }
+      }
+      // 新文件 map 超出文件长度的部分时会把文件扩展到这个长度, 内容是 0, 也就是空槽
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      ByteBuffer[] segments = new ByteBuffer[segmentCount(slots)];
+      for (int i = 0; i < segments.length; i++) {
+        long position = HEADER_SIZE + ((long) i << (SEGMENT_SHIFT + SLOT_SHIFT));
+        segments[i] =
+            channel.map(FileChannel.MapMode.READ_WRITE, position, segmentBytes(slots, i));
+      }
+      OffHeapHashTable table = new OffHeapHashTable(capacity, slots, channel, header, segments);
+      if (created) table.writeHeader(slots);
+      return table;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  // 槽的个数是 2 的幂, 装满 capacity 个元素时负载不超过 3/4
+  private static long slotsFor(long capacity) {
+    if (capacity < 0 || capacity > MAXIMUM_CAPACITY) {
+      throw new IllegalArgumentException("Illegal Capacity");
+    }
+    long slots = 2;
+    while (slots - (slots >>> 2) < capacity) slots <<= 1;
+    return slots;
+  }
+
+  private static int segmentCount(long slots) {
+    return (int) ((slots + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+  }
+
+  private static int segmentBytes(long slots, int segment) {
+    long remaining = slots - ((long) segment << SEGMENT_SHIFT);
+    return (int) (Math.min(remaining, 1L << SEGMENT_SHIFT) << SLOT_SHIFT);
+  }
+
+  private void writeHeader(long slots) {
+    header.putInt(MAGIC_OFFSET, MAGIC);
+    header.putInt(VERSION_OFFSET, VERSION);
+    header.putLong(SLOTS_OFFSET, slots);
+    header.putLong(CAPACITY_OFFSET, capacity);
+    header.putLong(SIZE_OFFSET, 0);
+    header.putInt(HAS_ZERO_KEY_OFFSET, 0);
+    header.putLong(ZERO_VALUE_OFFSET, 0);
+  }
+
+  // 乘以黄金分割常数把低位的差异扩散到高位, 再把高 32 位异或回低位
+  private static long hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 32);
+  }
+
+  private ByteBuffer segment(long slot) {
+    return segments[(int) (slot >>> SEGMENT_SHIFT)];
+  }
+
+  private static int offset(long slot) {
+    return (int) (slot & SEGMENT_MASK) << SLOT_SHIFT;
+  }
+
+  private long keyAt(long slot) {
+    return segment(slot).getLong(offset(slot));
+  }
+
+  private long valueAt(long slot) {
+    return segment(slot).getLong(offset(slot) + 8);
+  }
+
+  private void setValue(long slot, long value) {
+    segment(slot).putLong(offset(slot) + 8, value);
+  }
+
+  private void setSlot(long slot, long key, long value) {
+    ByteBuffer segment = segment(slot);
+    int offset = offset(slot);
+    segment.putLong(offset, key);
+    segment.putLong(offset + 8, value);
+  }
+
+  private void ensureOpen() {
+    if (segments == null) throw new IllegalStateException("Table is closed");
+  }
+
+  private void setSize(long size) {
+    this.size = size;
+    header.putLong(SIZE_OFFSET, size);
+    modCount++;
+  }
+
+  private boolean hasZeroKey() {
+    return header.getInt(HAS_ZERO_KEY_OFFSET) != 0;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // 最多能放多少个元素, 创建之后不会再变
+  public long capacity() {
+    return capacity;
+  }
+
+  public void clear() {
+    ensureOpen();
+    for (ByteBuffer segment : segments) {
+      for (int i = 0; i < segment.capacity(); i += 8) segment.putLong(i, 0);
+    }
+    header.putInt(HAS_ZERO_KEY_OFFSET, 0);
+    header.putLong(ZERO_VALUE_OFFSET, 0);
+    setSize(0);
+  }
+
+  public boolean containsKey(long key) {
+    ensureOpen();
+    if (key == 0) return hasZeroKey();
+    return indexOf(key) >= 0;
+  }
+
+  // key 不存在时返回 0
+  public long get(long key) {
+    return getOrDefault(key, 0);
+  }
+
+  public long getOrDefault(long key, long defaultValue) {
+    ensureOpen();
+    if (key == 0) return hasZeroKey() ? header.getLong(ZERO_VALUE_OFFSET) : defaultValue;
+    long index = indexOf(key);
+    return index < 0 ? defaultValue : valueAt(index);
+  }
+
+  private long indexOf(long key) {
+    for (long index = hash(key) & mask; ; index = (index + 1) & mask) {
+      long existing = keyAt(index);
+      if (existing == key) return index;
+      if (existing == 0) return -1;
+    }
+  }
+
+  // 返回原来的值, key 不存在时返回 0. 已经放满 capacity 个元素时插入新 key 会抛出 IllegalStateException
+  public long put(long key, long value) {
+    ensureOpen();
+    if (key == 0) {
+      long oldValue = header.getLong(ZERO_VALUE_OFFSET);
+      header.putLong(ZERO_VALUE_OFFSET, value);
+      if (!hasZeroKey()) addZeroKey();
+      return oldValue;
+    }
+    long index = hash(key) & mask;
+    for (long existing; (existing = keyAt(index)) != 0; index = (index + 1) & mask) {
+      if (existing == key) {
+        long oldValue = valueAt(index);
+        setValue(index, value);
+        return oldValue;
+      }
+    }
+    ensureRoom();
+    setSlot(index, key, value);
+    setSize(size + 1);
+    return 0;
+  }
+
+  // 把 key 对应的值加上 delta (key 不存在时当作 0), 返回新的值
+  public long addTo(long key, long delta) {
+    ensureOpen();
+    if (key == 0) {
+      if (!hasZeroKey()) addZeroKey();
+      long value = header.getLong(ZERO_VALUE_OFFSET) + delta;
+      header.putLong(ZERO_VALUE_OFFSET, value);
+      return value;
+    }
+    long index = hash(key) & mask;
+    for (long existing; (existing = keyAt(index)) != 0; index = (index + 1) & mask) {
+      if (existing == key) {
+        long value = valueAt(index) + delta;
+        setValue(index, value);
+        return value;
+      }
+    }
+    ensureRoom();
+    setSlot(index, key, delta);
+    setSize(size + 1);
+    return delta;
+  }
+
+  private void addZeroKey() {
+    ensureRoom();
+    header.putInt(HAS_ZERO_KEY_OFFSET, 1);
+    setSize(size + 1);
+  }
+
+  private void ensureRoom() {
+    if (size >= capacity) throw new IllegalStateException("Table is full");
+  }
+
+  // 返回被删除的值, key 不存在时返回 0
+  public long remove(long key) {
+    ensureOpen();
+    if (key == 0) {
+      if (!hasZeroKey()) return 0;
+      long oldValue = header.getLong(ZERO_VALUE_OFFSET);
+      header.putInt(HAS_ZERO_KEY_OFFSET, 0);
+      header.putLong(ZERO_VALUE_OFFSET, 0);
+      setSize(size - 1);
+      return oldValue;
+    }
+    long index = indexOf(key);
+    if (index < 0) return 0;
+    long oldValue = valueAt(index);
+    shiftKeys(index);
+    setSize(size - 1);
+    return oldValue;
+  }
+
+  // 和 LongLongMap.shiftKeys 一样 (Knuth 6.4 Algorithm R)
+  private void shiftKeys(long gap) {
+    for (long index = (gap + 1) & mask; keyAt(index) != 0; index = (index + 1) & mask) {
+      long key = keyAt(index);
+      long home = hash(key) & mask;
+      if (((index - home) & mask) >= ((index - gap) & mask)) {
+        setSlot(gap, key, valueAt(index));
+        gap = index;
+      }
+    }
+    setSlot(gap, 0, 0);
+  }
+
+  /** Writes changes of a mapped table to the storage device; does nothing for a direct table. */
+  public void force() {
+    ensureOpen();
+    if (channel == null) return;
+    ((MappedByteBuffer) header).force();
+    for (ByteBuffer segment : segments) ((MappedByteBuffer) segment).force();
+  }
+
+  /**
+   * Flushes a mapped table and closes its file. The memory itself is released when the buffers are
+   * garbage collected; the table cannot be used afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    if (segments == null) return;
+    force();
+    segments = null;
+    header = null;
+    if (channel != null) channel.close();
+  }
+
+  public Cursor cursor() {
+    ensureOpen();
+    return new Cursor();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{");
+    for (Cursor cursor = cursor(); cursor.advance(); ) {
+      builder.append(" " + cursor.key() + " => " + cursor.value());
+    }
+    builder.append(" }");
+    return builder.toString();
+  }
+
+  //  遍历所有 entry, 不为每个元素分配对象:
+  //    for (OffHeapHashTable.Cursor c = table.cursor(); c.advance(); ) use(c.key(), c.value());
+  //  遍历过程中插入新 key 或删除会抛出 ConcurrentModificationException.
+  public final class Cursor {
+    // -1 表示还没有访问 key 0
+    private long index = -1;
+    private int expectedModCount = modCount;
+    private long key;
+    private long value;
+
+    private Cursor() {}
+
+    public boolean advance() {
+      ensureOpen();
+      if (expectedModCount != modCount) throw new ConcurrentModificationException();
+      if (index < 0) {
+        index = 0;
+        if (hasZeroKey()) {
+          key = 0;
+          value = header.getLong(ZERO_VALUE_OFFSET);
+          return true;
+        }
+      }
+      while (index <= mask) {
+        long i = index++;
+        long k = keyAt(i);
+        if (k != 0) {
+          key = k;
+          value = valueAt(i);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    public long key() {
+      return key;
+    }
+
+    public long value() {
+      return value;
+    }
+
+    public void reset() {
+      index = -1;
+      expectedModCount = modCount;
+    }
+  }
+}
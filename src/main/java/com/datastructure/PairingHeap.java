@@ -0,0 +1,213 @@
+package com.datastructure;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A mergeable min-heap. {@link #meld} moves every entry of another heap into this one in O(1), so
+ * merging per-shard queues costs nothing per element. {@code add} and {@code decreaseKey} are O(1)
+ * as well; {@code poll} and {@code remove} are amortized O(log n).
+ *
+ * <p>{@link #add} returns a {@link Node} handle that stays valid until the entry is polled or
+ * removed, including after its heap was melded into another one. The handle is what {@code
+ * decreaseKey} and {@code remove} take.
+ *
+ * <p>The tree is stored in left-child/right-sibling form: every node points to its first child,
+ * its next sibling and back to its previous sibling (or to its parent if it is the first child).
+ * {@code poll} pairs up the root's children left to right and then folds the pairs from right to
+ * left, the standard two-pass variant.
+ */
+public class PairingHeap<T extends Comparable<T>> {
+
+  public static final class Node<T> {
+    private T value;
+    private Node<T> child, next;
+    // 前一个兄弟节点; 对第一个子节点来说是父节点. 从堆中删除之后为 null
+    private Node<T> prev;
+    // 删除之后置为 null, 用来发现失效的 handle
+    private Owner owner;
+
+    private Node(T value, Owner owner) {
+      this.value = value;
+      this.owner = owner;
+    }
+
+    public T value() {
+      return value;
+    }
+  }
+
+  // handle 不直接指向堆, 而是指向堆当前的 Owner. meld 时被合并的堆的 Owner 把 forward 指向
+  // 新的堆的 Owner, 被合并的堆换一个新的 Owner, 之后还可以继续使用
+  private static final class Owner {
+    private Owner forward;
+  }
+
+  private Node<T> root;
+  private int size;
+  private Owner owner = new Owner();
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // 已有的 handle 随之失效
+  public void clear() {
+    root = null;
+    size = 0;
+    owner = new Owner();
+  }
+
+  public Node<T> add(T value) {
+    if (value == null) throw new IllegalArgumentException("Null value");
+    Node<T> node = new Node<>(value, owner);
+    root = root == null ? node : link(root, node);
+    size++;
+    return node;
+  }
+
+  public T peek() {
+    if (root == null) throw new NoSuchElementException("Empty heap");
+    return root.value;
+  }
+
+  public T poll() {
+    if (root == null) throw new NoSuchElementException("Empty heap");
+    Node<T> top = root;
+    root = combine(top.child);
+    if (root != null) root.prev = null;
+    size--;
+    detach(top);
+    return top.value;
+  }
+
+  /**
+   * Moves all entries of {@code other} into this heap in O(1) and leaves {@code other} empty.
+   * Handles returned by {@code other.add} keep working against this heap.
+   */
+  public void meld(PairingHeap<T> other) {
+    if (other == null) throw new IllegalArgumentException("Null heap");
+    if (other == this) return;
+    if (other.root != null) {
+      root = root == null ? other.root : link(root, other.root);
+      size += other.size;
+    }
+    other.owner.forward = owner;
+    other.clear();
+  }
+
+  // 新的值不能比当前的大. 把 node 所在的子树剪下来再和根合并
+  public void decreaseKey(Node<T> node, T value) {
+    if (value == null) throw new IllegalArgumentException("Null value");
+    checkOwner(node);
+    if (value.compareTo(node.value) > 0) {
+      throw new IllegalArgumentException("Value is greater than the current value");
+    }
+    node.value = value;
+    if (node != root) {
+      cut(node);
+      root = link(root, node);
+    }
+  }
+
+  public void remove(Node<T> node) {
+    checkOwner(node);
+    if (node == root) {
+      poll();
+      return;
+    }
+    cut(node);
+    Node<T> subtree = combine(node.child);
+    if (subtree != null) root = link(root, subtree);
+    size--;
+    detach(node);
+  }
+
+  public boolean contains(Node<T> node) {
+    return node != null && node.owner != null && find(node) == owner;
+  }
+
+  // 沿着 meld 留下的 forward 找到 handle 现在所在的堆, 顺便更新 handle
+  private static Owner find(Node<?> node) {
+    Owner owner = node.owner;
+    while (owner.forward != null) owner = owner.forward;
+    node.owner = owner;
+    return owner;
+  }
+
+  private void checkOwner(Node<T> node) {
+    if (node == null || node.owner == null || find(node) != owner) {
+      throw new IllegalArgumentException("Node is not in this heap");
+    }
+  }
+
+  // 把 node 和它的子树从兄弟链表中摘下来
+  private void cut(Node<T> node) {
+    Node<T> prev = node.prev;
+    if (prev.child == node) prev.child = node.next;
+    else prev.next = node.next;
+    if (node.next != null) node.next.prev = prev;
+    node.prev = null;
+    node.next = null;
+  }
+
+  private void detach(Node<T> node) {
+    node.child = null;
+    node.next = null;
+    node.prev = null;
+    node.owner = null;
+  }
+
+  // 两棵没有兄弟的树合并, 较大的根成为较小的根的第一个子节点
+  private Node<T> link(Node<T> a, Node<T> b) {
+    if (b.value.compareTo(a.value) < 0) {
+      Node<T> t = a;
+      a = b;
+      b = t;
+    }
+    b.next = a.child;
+    if (a.child != null) a.child.prev = b;
+    b.prev = a;
+    a.child = b;
+    a.next = null;
+    a.prev = null;
+    return a;
+  }
+
+  // 两趟合并: 从左到右两两合并, 再从右到左依次合并到一起.
+  // 用 prev 把已经配好的对串成一个栈, 不需要额外的空间
+  private Node<T> combine(Node<T> first) {
+    if (first == null) return null;
+    Node<T> pairs = null;
+    Node<T> a = first;
+    while (a != null) {
+      Node<T> b = a.next;
+      if (b == null) {
+        a.next = null;
+        a.prev = pairs;
+        pairs = a;
+        break;
+      }
+      Node<T> rest = b.next;
+      a.next = null;
+      b.next = null;
+      Node<T> pair = link(a, b);
+      pair.prev = pairs;
+      pairs = pair;
+      a = rest;
+    }
+    Node<T> result = pairs;
+    pairs = pairs.prev;
+    result.prev = null;
+    while (pairs != null) {
+      Node<T> prev = pairs.prev;
+      pairs.prev = null;
+      result = link(pairs, result);
+      pairs = prev;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,477 @@
+package com.datastructure;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork/join merge sort for int[], long[] and arrays of objects with a Comparator. Like {@link
+ * MergeSort} it ping-pongs between the input and a single scratch buffer, but both the recursive
+ * halves and the merges run as independent tasks: a merge is split by taking the middle of the
+ * longer run and binary searching its position in the other run, so the two halves of the output
+ * can be produced in parallel.
+ */
+public class ParallelMergeSort implements Sorter {
+
+  // 子任务小于这个长度就不再拆分, 在当前线程里顺序完成
+  public static final int DEFAULT_THRESHOLD = 1 << 13;
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  public ParallelMergeSort() {
+    this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+  }
+
+  public ParallelMergeSort(ForkJoinPool pool) {
+    this(pool, DEFAULT_THRESHOLD);
+  }
+
+  public ParallelMergeSort(ForkJoinPool pool, int threshold) {
+    if (pool == null) throw new IllegalArgumentException("Null pool");
+    if (threshold < 2) throw new IllegalArgumentException("Illegal threshold");
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new int[to - from]);
+  }
+
+  public void sort(int[] ary, int[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  // 排序 ary[from, to), aux 的长度至少为 to - from
+  public void sort(int[] ary, int from, int to, int[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+    System.arraycopy(ary, from, aux, 0, n);
+    pool.invoke(new IntSortTask(aux, 0, ary, from, 0, n, threshold));
+  }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new long[to - from]);
+  }
+
+  public void sort(long[] ary, long[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  public void sort(long[] ary, int from, int to, long[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+    System.arraycopy(ary, from, aux, 0, n);
+    pool.invoke(new LongSortTask(aux, 0, ary, from, 0, n, threshold));
+  }
+
+  // 和 MergeSort 一样是稳定的: merge 和切分点的二分查找都让左边的相等元素排在前面
+  @Override
+  public <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (n < 2) return;
+    T[] aux = Arrays.copyOfRange(ary, from, to);
+    pool.invoke(new ObjectSortTask<>(aux, 0, ary, from, 0, n, threshold, comparator));
+  }
+
+  //  把 src[begin, end) 排好序写入 dst[begin, end), 进入时两个数组在这个区间内容相同.
+  //  begin 和 end 是相对下标, 在 src 和 dst 里分别要加上 srcOff 和 dstOff.
+  private static final class IntSortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] src, dst;
+    private final int srcOff, dstOff, begin, end, threshold;
+
+    IntSortTask(int[] src, int srcOff, int[] dst, int dstOff, int begin, int end, int threshold) {
+      this.src = src;
+      this.srcOff = srcOff;
+      this.dst = dst;
+      this.dstOff = dstOff;
+      this.begin = begin;
+      this.end = end;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - begin <= threshold) {
+        sequentialSort(src, srcOff, dst, dstOff, begin, end);
+        return;
+      }
+      int mid = begin + ((end - begin) / 2);
+      invokeAll(
+          new IntSortTask(dst, dstOff, src, srcOff, begin, mid, threshold),
+          new IntSortTask(dst, dstOff, src, srcOff, mid, end, threshold));
+      if (src[srcOff + mid - 1] <= src[srcOff + mid]) {
+        System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+        return;
+      }
+      new IntMergeTask(
+              src, dst, srcOff + begin, srcOff + mid, srcOff + mid, srcOff + end,
+              dstOff + begin, threshold)
+          .compute();
+    }
+  }
+
+  private static final class IntMergeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] src, dst;
+    private final int lo1, hi1, lo2, hi2, out, threshold;
+
+    IntMergeTask(int[] src, int[] dst, int lo1, int hi1, int lo2, int hi2, int out, int threshold) {
+      this.src = src;
+      this.dst = dst;
+      this.lo1 = lo1;
+      this.hi1 = hi1;
+      this.lo2 = lo2;
+      this.hi2 = hi2;
+      this.out = out;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      int n1 = hi1 - lo1;
+      int n2 = hi2 - lo2;
+      if (n1 + n2 <= threshold) {
+        merge(src, dst, lo1, hi1, lo2, hi2, out);
+        return;
+      }
+      // 从较长的区间中间切开, 在另一个区间里二分找到对应的切分点
+      int split1, split2;
+      if (n1 >= n2) {
+        split1 = lo1 + n1 / 2;
+        split2 = lowerBound(src, lo2, hi2, src[split1]);
+      } else {
+        split2 = lo2 + n2 / 2;
+        split1 = upperBound(src, lo1, hi1, src[split2]);
+      }
+      int out2 = out + (split1 - lo1) + (split2 - lo2);
+      invokeAll(
+          new IntMergeTask(src, dst, lo1, split1, lo2, split2, out, threshold),
+          new IntMergeTask(src, dst, split1, hi1, split2, hi2, out2, threshold));
+    }
+  }
+
+  private static final class LongSortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] src, dst;
+    private final int srcOff, dstOff, begin, end, threshold;
+
+    LongSortTask(
+        long[] src, int srcOff, long[] dst, int dstOff, int begin, int end, int threshold) {
+      this.src = src;
+      this.srcOff = srcOff;
+      this.dst = dst;
+      this.dstOff = dstOff;
+      this.begin = begin;
+      this.end = end;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - begin <= threshold) {
+        sequentialSort(src, srcOff, dst, dstOff, begin, end);
+        return;
+      }
+      int mid = begin + ((end - begin) / 2);
+      invokeAll(
+          new LongSortTask(dst, dstOff, src, srcOff, begin, mid, threshold),
+          new LongSortTask(dst, dstOff, src, srcOff, mid, end, threshold));
+      if (src[srcOff + mid - 1] <= src[srcOff + mid]) {
+        System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+        return;
+      }
+      new LongMergeTask(
+              src, dst, srcOff + begin, srcOff + mid, srcOff + mid, srcOff + end,
+              dstOff + begin, threshold)
+          .compute();
+    }
+  }
+
+  private static final class LongMergeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] src, dst;
+    private final int lo1, hi1, lo2, hi2, out, threshold;
+
+    LongMergeTask(
+        long[] src, long[] dst, int lo1, int hi1, int lo2, int hi2, int out, int threshold) {
+      this.src = src;
+      this.dst = dst;
+      this.lo1 = lo1;
+      this.hi1 = hi1;
+      this.lo2 = lo2;
+      this.hi2 = hi2;
+      this.out = out;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      int n1 = hi1 - lo1;
+      int n2 = hi2 - lo2;
+      if (n1 + n2 <= threshold) {
+        merge(src, dst, lo1, hi1, lo2, hi2, out);
+        return;
+      }
+      int split1, split2;
+      if (n1 >= n2) {
+        split1 = lo1 + n1 / 2;
+        split2 = lowerBound(src, lo2, hi2, src[split1]);
+      } else {
+        split2 = lo2 + n2 / 2;
+        split1 = upperBound(src, lo1, hi1, src[split2]);
+      }
+      int out2 = out + (split1 - lo1) + (split2 - lo2);
+      invokeAll(
+          new LongMergeTask(src, dst, lo1, split1, lo2, split2, out, threshold),
+          new LongMergeTask(src, dst, split1, hi1, split2, hi2, out2, threshold));
+    }
+  }
+
+  private static final class ObjectSortTask<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final T[] src, dst;
+    private final int srcOff, dstOff, begin, end, threshold;
+    private final Comparator<? super T> comparator;
+
+    ObjectSortTask(
+        T[] src, int srcOff, T[] dst, int dstOff, int begin, int end, int threshold,
+        Comparator<? super T> comparator) {
+      this.src = src;
+      this.srcOff = srcOff;
+      this.dst = dst;
+      this.dstOff = dstOff;
+      this.begin = begin;
+      this.end = end;
+      this.threshold = threshold;
+      this.comparator = comparator;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - begin <= threshold) {
+        sequentialSort(src, srcOff, dst, dstOff, begin, end, comparator);
+        return;
+      }
+      int mid = begin + ((end - begin) / 2);
+      invokeAll(
+          new ObjectSortTask<>(dst, dstOff, src, srcOff, begin, mid, threshold, comparator),
+          new ObjectSortTask<>(dst, dstOff, src, srcOff, mid, end, threshold, comparator));
+      if (comparator.compare(src[srcOff + mid - 1], src[srcOff + mid]) <= 0) {
+        System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+        return;
+      }
+      new ObjectMergeTask<>(
+              src, dst, srcOff + begin, srcOff + mid, srcOff + mid, srcOff + end,
+              dstOff + begin, threshold, comparator)
+          .compute();
+    }
+  }
+
+  private static final class ObjectMergeTask<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final T[] src, dst;
+    private final int lo1, hi1, lo2, hi2, out, threshold;
+    private final Comparator<? super T> comparator;
+
+    ObjectMergeTask(
+        T[] src, T[] dst, int lo1, int hi1, int lo2, int hi2, int out, int threshold,
+        Comparator<? super T> comparator) {
+      this.src = src;
+      this.dst = dst;
+      this.lo1 = lo1;
+      this.hi1 = hi1;
+      this.lo2 = lo2;
+      this.hi2 = hi2;
+      this.out = out;
+      this.threshold = threshold;
+      this.comparator = comparator;
+    }
+
+    @Override
+    protected void compute() {
+      int n1 = hi1 - lo1;
+      int n2 = hi2 - lo2;
+      if (n1 + n2 <= threshold) {
+        merge(src, dst, lo1, hi1, lo2, hi2, out, comparator);
+        return;
+      }
+      int split1, split2;
+      if (n1 >= n2) {
+        split1 = lo1 + n1 / 2;
+        split2 = lowerBound(src, lo2, hi2, src[split1], comparator);
+      } else {
+        split2 = lo2 + n2 / 2;
+        split1 = upperBound(src, lo1, hi1, src[split2], comparator);
+      }
+      int out2 = out + (split1 - lo1) + (split2 - lo2);
+      invokeAll(
+          new ObjectMergeTask<>(src, dst, lo1, split1, lo2, split2, out, threshold, comparator),
+          new ObjectMergeTask<>(src, dst, split1, hi1, split2, hi2, out2, threshold, comparator));
+    }
+  }
+
+  // 顺序版本和 MergeSort 相同: src/dst 每层互换, 小区间用插入排序
+  private static void sequentialSort(
+      int[] src, int srcOff, int[] dst, int dstOff, int begin, int end) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(dst, dstOff + begin, dstOff + end);
+      return;
+    }
+    int mid = begin + ((end - begin) / 2);
+    sequentialSort(dst, dstOff, src, srcOff, begin, mid);
+    sequentialSort(dst, dstOff, src, srcOff, mid, end);
+    if (src[srcOff + mid - 1] <= src[srcOff + mid]) {
+      System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+      return;
+    }
+    merge(src, dst, srcOff + begin, srcOff + mid, srcOff + mid, srcOff + end, dstOff + begin);
+  }
+
+  private static void sequentialSort(
+      long[] src, int srcOff, long[] dst, int dstOff, int begin, int end) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(dst, dstOff + begin, dstOff + end);
+      return;
+    }
+    int mid = begin + ((end - begin) / 2);
+    sequentialSort(dst, dstOff, src, srcOff, begin, mid);
+    sequentialSort(dst, dstOff, src, srcOff, mid, end);
+    if (src[srcOff + mid - 1] <= src[srcOff + mid]) {
+      System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+      return;
+    }
+    merge(src, dst, srcOff + begin, srcOff + mid, srcOff + mid, srcOff + end, dstOff + begin);
+  }
+
+  private static <T> void sequentialSort(
+      T[] src, int srcOff, T[] dst, int dstOff, int begin, int end,
+      Comparator<? super T> comparator) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(dst, dstOff + begin, dstOff + end, comparator);
+      return;
+    }
+    int mid = begin + ((end - begin) / 2);
+    sequentialSort(dst, dstOff, src, srcOff, begin, mid, comparator);
+    sequentialSort(dst, dstOff, src, srcOff, mid, end, comparator);
+    if (comparator.compare(src[srcOff + mid - 1], src[srcOff + mid]) <= 0) {
+      System.arraycopy(src, srcOff + begin, dst, dstOff + begin, end - begin);
+      return;
+    }
+    merge(
+        src, dst, srcOff + begin, srcOff + mid, srcOff + mid, srcOff + end, dstOff + begin,
+        comparator);
+  }
+
+  private static void merge(int[] src, int[] dst, int lo1, int hi1, int lo2, int hi2, int out) {
+    int i = lo1;
+    int j = lo2;
+    while (i < hi1 && j < hi2) {
+      if (src[i] <= src[j]) dst[out++] = src[i++];
+      else dst[out++] = src[j++];
+    }
+    System.arraycopy(src, i, dst, out, hi1 - i);
+    System.arraycopy(src, j, dst, out + (hi1 - i), hi2 - j);
+  }
+
+  private static void merge(long[] src, long[] dst, int lo1, int hi1, int lo2, int hi2, int out) {
+    int i = lo1;
+    int j = lo2;
+    while (i < hi1 && j < hi2) {
+      if (src[i] <= src[j]) dst[out++] = src[i++];
+      else dst[out++] = src[j++];
+    }
+    System.arraycopy(src, i, dst, out, hi1 - i);
+    System.arraycopy(src, j, dst, out + (hi1 - i), hi2 - j);
+  }
+
+  private static <T> void merge(
+      T[] src, T[] dst, int lo1, int hi1, int lo2, int hi2, int out,
+      Comparator<? super T> comparator) {
+    int i = lo1;
+    int j = lo2;
+    while (i < hi1 && j < hi2) {
+      if (comparator.compare(src[i], src[j]) <= 0) dst[out++] = src[i++];
+      else dst[out++] = src[j++];
+    }
+    System.arraycopy(src, i, dst, out, hi1 - i);
+    System.arraycopy(src, j, dst, out + (hi1 - i), hi2 - j);
+  }
+
+  // 第一个 >= key 的位置
+  private static int lowerBound(int[] ary, int lo, int hi, int key) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ary[mid] < key) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  // 第一个 > key 的位置
+  private static int upperBound(int[] ary, int lo, int hi, int key) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ary[mid] <= key) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  private static int lowerBound(long[] ary, int lo, int hi, long key) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ary[mid] < key) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  private static int upperBound(long[] ary, int lo, int hi, long key) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ary[mid] <= key) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  private static <T> int lowerBound(
+      T[] ary, int lo, int hi, T key, Comparator<? super T> comparator) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (comparator.compare(ary[mid], key) < 0) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  private static <T> int upperBound(
+      T[] ary, int lo, int hi, T key, Comparator<? super T> comparator) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (comparator.compare(ary[mid], key) <= 0) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+}
@@ -0,0 +1,522 @@
+package com.datastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * In-place MSD radix sort (American flag sort) on bytes for int[] and long[], run on a fork/join
+ * pool. Unlike {@link RadixSort} it needs no scratch array the size of the input, only a few
+ * 256-entry histograms per task, so it can sort arrays that fill most of the heap.
+ *
+ * <p>Large ranges are partitioned in parallel, following PARADIS (Cho et al., VLDB 2015): every
+ * thread builds a histogram of its own chunk, then each bucket's destination region is cut into one
+ * stripe per thread and every thread permutes elements into its own stripes only. Elements whose
+ * stripe filled up are left behind, a repair step moves them to the back of their region and the
+ * next round works on what is left. The resulting 256 buckets are sorted on the next byte as
+ * independent tasks; small buckets are sorted sequentially and tiny ones with insertion sort.
+ *
+ * <p>A radix sort needs the bits of the key, so there is no Comparator path and {@code sort(T[],
+ * Comparator)} throws {@link UnsupportedOperationException}. Objects with an int key can be sorted
+ * with {@link Sorter#sortByKey}.
+ */
+public class ParallelRadixSort implements Sorter {
+
+  // 区间小于这个长度就不再 fork 新任务, 在当前任务里顺序递归
+  public static final int DEFAULT_THRESHOLD = 1 << 14;
+
+  // 区间至少这么长才值得并行地统计和分桶
+  private static final int PARALLEL_PARTITION_THRESHOLD = 1 << 18;
+
+  // 并行分桶时每个线程至少要分到这么多个待放置的元素, 否则剩下的部分直接顺序完成
+  private static final int MIN_STRIPE_SIZE = 1 << 12;
+
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  private static final int RADIX = 256;
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  public ParallelRadixSort() {
+    this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+  }
+
+  public ParallelRadixSort(ForkJoinPool pool) {
+    this(pool, DEFAULT_THRESHOLD);
+  }
+
+  public ParallelRadixSort(ForkJoinPool pool, int threshold) {
+    if (pool == null) throw new IllegalArgumentException("Null pool");
+    if (threshold < 2) throw new IllegalArgumentException("Illegal threshold");
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    if (to - from < 2) return;
+    pool.invoke(new IntSortTask(ary, from, to, 24));
+  }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    if (to - from < 2) return;
+    pool.invoke(new LongSortTask(ary, from, to, 56));
+  }
+
+  // ---------------------------------------------------------------------------------------------
+  // int[]
+  // ---------------------------------------------------------------------------------------------
+
+  private static int digit(int value, int shift) {
+    return ((value ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+  }
+
+  // 对 ary[begin, end) 按 shift 所在的字节及其后的字节排序
+  private final class IntSortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] ary;
+    private final int begin, end, shift;
+
+    IntSortTask(int[] ary, int begin, int end, int shift) {
+      this.ary = ary;
+      this.begin = begin;
+      this.end = end;
+      this.shift = shift;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - begin < threshold) {
+        sequentialSort(
+            ary, begin, end, shift, new int[4][RADIX], new int[4][RADIX], new int[4][RADIX]);
+        return;
+      }
+
+      int[] bounds;
+      if (end - begin >= PARALLEL_PARTITION_THRESHOLD && pool.getParallelism() > 1) {
+        bounds = parallelPartition(ary, begin, end, shift, pool.getParallelism());
+      } else {
+        int[] counts = new int[RADIX];
+        int[] heads = new int[RADIX];
+        partition(ary, begin, end, shift, counts, heads, new int[RADIX]);
+        bounds = new int[RADIX + 1];
+        for (int b = 0; b < RADIX; b++) bounds[b] = heads[b] - counts[b];
+        bounds[RADIX] = end;
+      }
+      if (shift == 0) return;
+
+      List<IntSortTask> tasks = new ArrayList<>();
+      int[][] counts = null, heads = null, tails = null;
+      for (int b = 0; b < RADIX; b++) {
+        int lo = bounds[b];
+        int hi = bounds[b + 1];
+        if (hi - lo < 2) continue;
+        if (hi - lo >= threshold) {
+          tasks.add(new IntSortTask(ary, lo, hi, shift - 8));
+        } else {
+          if (counts == null) {
+            counts = new int[4][RADIX];
+            heads = new int[4][RADIX];
+            tails = new int[4][RADIX];
+          }
+          sequentialSort(ary, lo, hi, shift - 8, counts, heads, tails);
+        }
+      }
+      invokeAll(tasks);
+    }
+  }
+
+  //  counts, heads 和 tails 每个字节 (层) 各一行, 子区间的递归只会用到更低的层, 不会覆盖本层的数据.
+  private static void sequentialSort(
+      int[] ary,
+      int begin,
+      int end,
+      int shift,
+      int[][] counts,
+      int[][] heads,
+      int[][] tails) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(ary, begin, end);
+      return;
+    }
+    int level = shift >>> 3;
+    int[] count = counts[level];
+    int[] head = heads[level];
+    partition(ary, begin, end, shift, count, head, tails[level]);
+    if (shift == 0) return;
+    for (int b = 0; b < RADIX; b++) {
+      if (count[b] > 1) {
+        sequentialSort(ary, head[b] - count[b], head[b], shift - 8, counts, heads, tails);
+      }
+    }
+  }
+
+  //  American flag 分桶: 先数出每个桶的大小, 再沿着置换环把元素直接交换到所属的桶里.
+  //  结束后桶 b 占据 [heads[b] - counts[b], heads[b]).
+  private static void partition(
+      int[] ary, int begin, int end, int shift, int[] counts, int[] heads, int[] tails) {
+    java.util.Arrays.fill(counts, 0);
+    for (int i = begin; i < end; i++) counts[digit(ary[i], shift)] += 1;
+
+    // 所有元素都落在同一个桶里, 不需要移动
+    int first = digit(ary[begin], shift);
+    if (counts[first] == end - begin) {
+      java.util.Arrays.fill(heads, begin);
+      for (int b = first; b < RADIX; b++) heads[b] = end;
+      return;
+    }
+
+    for (int b = 0, sum = begin; b < RADIX; b++) {
+      heads[b] = sum;
+      sum += counts[b];
+      tails[b] = sum;
+    }
+    permute(ary, shift, heads, tails);
+  }
+
+  //  把 heads[b] ~ tails[b] 之间的元素放进各自的桶. 每找到一个放错的元素就沿着环把它交换到目标桶的下一个空位,
+  //  直到换回来的元素属于当前桶. 目标桶的空位已经用完时 (只在并行分桶时会发生) 就把手上的元素留在原地.
+  private static void permute(int[] ary, int shift, int[] heads, int[] tails) {
+    for (int b = 0; b < RADIX; b++) {
+      while (heads[b] < tails[b]) {
+        int v = ary[heads[b]];
+        int k = digit(v, shift);
+        while (k != b && heads[k] < tails[k]) {
+          int tmp = ary[heads[k]];
+          ary[heads[k]] = v;
+          heads[k] += 1;
+          v = tmp;
+          k = digit(v, shift);
+        }
+        ary[heads[b]] = v;
+        heads[b] += 1;
+      }
+    }
+  }
+
+  // 把 [begin, end) 中属于 bucket 的元素移到前面, 返回第一个不属于 bucket 的位置
+  private static int repair(int[] ary, int begin, int end, int shift, int bucket) {
+    int h = begin;
+    int t = end - 1;
+    while (h <= t) {
+      if (digit(ary[h], shift) == bucket) {
+        h += 1;
+      } else if (digit(ary[t], shift) != bucket) {
+        t -= 1;
+      } else {
+        int tmp = ary[h];
+        ary[h] = ary[t];
+        ary[t] = tmp;
+        h += 1;
+        t -= 1;
+      }
+    }
+    return h;
+  }
+
+  // 并行版本的分桶, 返回每个桶的起始位置 (长度 RADIX + 1, 最后一个是 end)
+  private static int[] parallelPartition(
+      int[] ary, int begin, int end, int shift, int parallelism) {
+    int n = end - begin;
+    int[][] chunkCounts = new int[parallelism][RADIX];
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(parallelism);
+    for (int t = 0; t < parallelism; t++) {
+      int[] count = chunkCounts[t];
+      int lo = begin + (int) ((long) n * t / parallelism);
+      int hi = begin + (int) ((long) n * (t + 1) / parallelism);
+      tasks.add(
+          ForkJoinTask.adapt(
+              () -> {
+                for (int i = lo; i < hi; i++) count[digit(ary[i], shift)] += 1;
+              }));
+    }
+    ForkJoinTask.invokeAll(tasks);
+
+    int[] bounds = new int[RADIX + 1];
+    int[] gh = new int[RADIX];
+    int[] gt = new int[RADIX];
+    for (int b = 0, sum = begin; b < RADIX; b++) {
+      bounds[b] = gh[b] = sum;
+      for (int t = 0; t < parallelism; t++) sum += chunkCounts[t][b];
+      gt[b] = sum;
+    }
+    bounds[RADIX] = end;
+
+    long remaining = n;
+    while (remaining > 0) {
+      int stripes = (int) Math.min(parallelism, remaining / MIN_STRIPE_SIZE);
+      if (stripes <= 1) {
+        permute(ary, shift, gh, gt);
+        break;
+      }
+
+      // 每个桶剩下的区域平均切成 stripes 份, 每个线程只往自己的那一份里放元素
+      int[][] ph = new int[stripes][RADIX];
+      int[][] pt = new int[stripes][RADIX];
+      for (int b = 0; b < RADIX; b++) {
+        long len = gt[b] - gh[b];
+        for (int t = 0; t < stripes; t++) {
+          ph[t][b] = gh[b] + (int) (len * t / stripes);
+          pt[t][b] = gh[b] + (int) (len * (t + 1) / stripes);
+        }
+      }
+      tasks.clear();
+      for (int t = 0; t < stripes; t++) {
+        int[] heads = ph[t];
+        int[] tails = pt[t];
+        tasks.add(ForkJoinTask.adapt(() -> permute(ary, shift, heads, tails)));
+      }
+      ForkJoinTask.invokeAll(tasks);
+
+      // 各桶互不重叠, 可以并行修复: 放对的元素移到前面, 剩下放错的留给下一轮
+      tasks.clear();
+      for (int t = 0; t < stripes; t++) {
+        int first = RADIX * t / stripes;
+        int last = RADIX * (t + 1) / stripes;
+        tasks.add(
+            ForkJoinTask.adapt(
+                () -> {
+                  for (int b = first; b < last; b++) gh[b] = repair(ary, gh[b], gt[b], shift, b);
+                }));
+      }
+      ForkJoinTask.invokeAll(tasks);
+
+      long left = 0;
+      for (int b = 0; b < RADIX; b++) left += gt[b] - gh[b];
+      // 这一轮没有任何进展, 剩下的顺序完成
+      if (left == remaining) {
+        permute(ary, shift, gh, gt);
+        break;
+      }
+      remaining = left;
+    }
+    return bounds;
+  }
+
+  // ---------------------------------------------------------------------------------------------
+  // long[]
+  // ---------------------------------------------------------------------------------------------
+
+  private static int digit(long value, int shift) {
+    return (int) ((value ^ Long.MIN_VALUE) >>> shift) & 0xFF;
+  }
+
+  private final class LongSortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] ary;
+    private final int begin, end, shift;
+
+    LongSortTask(long[] ary, int begin, int end, int shift) {
+      this.ary = ary;
+      this.begin = begin;
+      this.end = end;
+      this.shift = shift;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - begin < threshold) {
+        sequentialSort(
+            ary, begin, end, shift, new int[8][RADIX], new int[8][RADIX], new int[8][RADIX]);
+        return;
+      }
+
+      int[] bounds;
+      if (end - begin >= PARALLEL_PARTITION_THRESHOLD && pool.getParallelism() > 1) {
+        bounds = parallelPartition(ary, begin, end, shift, pool.getParallelism());
+      } else {
+        int[] counts = new int[RADIX];
+        int[] heads = new int[RADIX];
+        partition(ary, begin, end, shift, counts, heads, new int[RADIX]);
+        bounds = new int[RADIX + 1];
+        for (int b = 0; b < RADIX; b++) bounds[b] = heads[b] - counts[b];
+        bounds[RADIX] = end;
+      }
+      if (shift == 0) return;
+
+      List<LongSortTask> tasks = new ArrayList<>();
+      int[][] counts = null, heads = null, tails = null;
+      for (int b = 0; b < RADIX; b++) {
+        int lo = bounds[b];
+        int hi = bounds[b + 1];
+        if (hi - lo < 2) continue;
+        if (hi - lo >= threshold) {
+          tasks.add(new LongSortTask(ary, lo, hi, shift - 8));
+        } else {
+          if (counts == null) {
+            counts = new int[8][RADIX];
+            heads = new int[8][RADIX];
+            tails = new int[8][RADIX];
+          }
+          sequentialSort(ary, lo, hi, shift - 8, counts, heads, tails);
+        }
+      }
+      invokeAll(tasks);
+    }
+  }
+
+  private static void sequentialSort(
+      long[] ary,
+      int begin,
+      int end,
+      int shift,
+      int[][] counts,
+      int[][] heads,
+      int[][] tails) {
+    if (end - begin <= INSERTION_SORT_THRESHOLD) {
+      InsertionSort.insertionSort(ary, begin, end);
+      return;
+    }
+    int level = shift >>> 3;
+    int[] count = counts[level];
+    int[] head = heads[level];
+    partition(ary, begin, end, shift, count, head, tails[level]);
+    if (shift == 0) return;
+    for (int b = 0; b < RADIX; b++) {
+      if (count[b] > 1) {
+        sequentialSort(ary, head[b] - count[b], head[b], shift - 8, counts, heads, tails);
+      }
+    }
+  }
+
+  private static void partition(
+      long[] ary, int begin, int end, int shift, int[] counts, int[] heads, int[] tails) {
+    java.util.Arrays.fill(counts, 0);
+    for (int i = begin; i < end; i++) counts[digit(ary[i], shift)] += 1;
+
+    int first = digit(ary[begin], shift);
+    if (counts[first] == end - begin) {
+      java.util.Arrays.fill(heads, begin);
+      for (int b = first; b < RADIX; b++) heads[b] = end;
+      return;
+    }
+
+    for (int b = 0, sum = begin; b < RADIX; b++) {
+      heads[b] = sum;
+      sum += counts[b];
+      tails[b] = sum;
+    }
+    permute(ary, shift, heads, tails);
+  }
+
+  private static void permute(long[] ary, int shift, int[] heads, int[] tails) {
+    for (int b = 0; b < RADIX; b++) {
+      while (heads[b] < tails[b]) {
+        long v = ary[heads[b]];
+        int k = digit(v, shift);
+        while (k != b && heads[k] < tails[k]) {
+          long tmp = ary[heads[k]];
+          ary[heads[k]] = v;
+          heads[k] += 1;
+          v = tmp;
+          k = digit(v, shift);
+        }
+        ary[heads[b]] = v;
+        heads[b] += 1;
+      }
+    }
+  }
+
+  private static int repair(long[] ary, int begin, int end, int shift, int bucket) {
+    int h = begin;
+    int t = end - 1;
+    while (h <= t) {
+      if (digit(ary[h], shift) == bucket) {
+        h += 1;
+      } else if (digit(ary[t], shift) != bucket) {
+        t -= 1;
+      } else {
+        long tmp = ary[h];
+        ary[h] = ary[t];
+        ary[t] = tmp;
+        h += 1;
+        t -= 1;
+      }
+    }
+    return h;
+  }
+
+  private static int[] parallelPartition(
+      long[] ary, int begin, int end, int shift, int parallelism) {
+    int n = end - begin;
+    int[][] chunkCounts = new int[parallelism][RADIX];
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(parallelism);
+    for (int t = 0; t < parallelism; t++) {
+      int[] count = chunkCounts[t];
+      int lo = begin + (int) ((long) n * t / parallelism);
+      int hi = begin + (int) ((long) n * (t + 1) / parallelism);
+      tasks.add(
+          ForkJoinTask.adapt(
+              () -> {
+                for (int i = lo; i < hi; i++) count[digit(ary[i], shift)] += 1;
+              }));
+    }
+    ForkJoinTask.invokeAll(tasks);
+
+    int[] bounds = new int[RADIX + 1];
+    int[] gh = new int[RADIX];
+    int[] gt = new int[RADIX];
+    for (int b = 0, sum = begin; b < RADIX; b++) {
+      bounds[b] = gh[b] = sum;
+      for (int t = 0; t < parallelism; t++) sum += chunkCounts[t][b];
+      gt[b] = sum;
+    }
+    bounds[RADIX] = end;
+
+    long remaining = n;
+    while (remaining > 0) {
+      int stripes = (int) Math.min(parallelism, remaining / MIN_STRIPE_SIZE);
+      if (stripes <= 1) {
+        permute(ary, shift, gh, gt);
+        break;
+      }
+
+      int[][] ph = new int[stripes][RADIX];
+      int[][] pt = new int[stripes][RADIX];
+      for (int b = 0; b < RADIX; b++) {
+        long len = gt[b] - gh[b];
+        for (int t = 0; t < stripes; t++) {
+          ph[t][b] = gh[b] + (int) (len * t / stripes);
+          pt[t][b] = gh[b] + (int) (len * (t + 1) / stripes);
+        }
+      }
+      tasks.clear();
+      for (int t = 0; t < stripes; t++) {
+        int[] heads = ph[t];
+        int[] tails = pt[t];
+        tasks.add(ForkJoinTask.adapt(() -> permute(ary, shift, heads, tails)));
+      }
+      ForkJoinTask.invokeAll(tasks);
+
+      tasks.clear();
+      for (int t = 0; t < stripes; t++) {
+        int first = RADIX * t / stripes;
+        int last = RADIX * (t + 1) / stripes;
+        tasks.add(
+            ForkJoinTask.adapt(
+                () -> {
+                  for (int b = first; b < last; b++) gh[b] = repair(ary, gh[b], gt[b], shift, b);
+                }));
+      }
+      ForkJoinTask.invokeAll(tasks);
+
+      long left = 0;
+      for (int b = 0; b < RADIX; b++) left += gt[b] - gh[b];
+      if (left == remaining) {
+        permute(ary, shift, gh, gt);
+        break;
+      }
+      remaining = left;
+    }
+    return bounds;
+  }
+
+}
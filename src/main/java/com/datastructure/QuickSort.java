@@ -1,45 +1,690 @@
 package com.datastructure;
 
-public class QuickSort {
+import java.util.Comparator;
 
-  public void sort(int[] ary) {
-    // 总共有 n-1个pass
-    int n = ary.length;
-    _sort(ary, 0, n - 1);
+/**
+ * Introsort: quicksort falling back to heapsort once the recursion gets deeper than 2·log2(n) and
+ * to insertion sort for short ranges. Only the smaller side(s) of each partition are recursed into,
+ * the largest side is handled by the loop, so the stack depth stays O(log n) on any input.
+ *
+ * <p>The partitioning step is selectable:
+ *
+ * <ul>
+ *   <li>{@link Partition#THREE_WAY}: ninther / median-of-three pivot with a Dutch national flag
+ *       partition. Runs of equal keys are finished in one pass. This is the default.
+ *   <li>{@link Partition#DUAL_PIVOT}: Yaroslavskiy's dual-pivot partition into three ranges, with
+ *       the pivots taken from a sorted sample of five.
+ *   <li>{@link Partition#BLOCK}: BlockQuicksort (Edelkamp and Weiß). Comparisons are first
+ *       recorded as offsets into small buffers without branching on the result, then the
+ *       misplaced elements are swapped in a second loop. On random keys this avoids most of the
+ *       branch mispredictions a Hoare partition pays for.
+ * </ul>
+ *
+ * <p>long[] uses the same partitions as int[]. Arrays of objects sorted with a Comparator always
+ * use the three-way partition, which is not stable.
+ */
+public class QuickSort implements Sorter {
+
+  public enum Partition {
+    THREE_WAY,
+    DUAL_PIVOT,
+    BLOCK
+  }
+
+  // 区间长度小于等于这个值时改用插入排序
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  // 区间长度大于这个值时用 Tukey ninther (三个三数中值的中值) 选 pivot, 否则用三数取中
+  private static final int NINTHER_THRESHOLD = 128;
+
+  // BlockQuicksort 每次扫描的块大小, 两个 offset buffer 各占 BLOCK_SIZE 个 int
+  private static final int BLOCK_SIZE = 128;
+
+  private final Partition partition;
+
+  public QuickSort() {
+    this(Partition.THREE_WAY);
+  }
+
+  public QuickSort(Partition partition) {
+    if (partition == null) throw new IllegalArgumentException("Null partition");
+    this.partition = partition;
+  }
+
+  public Partition partition() {
+    return partition;
+  }
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (n < 2) return;
+    int depthLimit = 2 * log2(n);
+    switch (partition) {
+      case DUAL_PIVOT:
+        dualPivotSort(ary, from, to, depthLimit);
+        break;
+      case BLOCK:
+        blockSort(ary, from, to, depthLimit, new int[BLOCK_SIZE], new int[BLOCK_SIZE]);
+        break;
+      default:
+        threeWaySort(ary, from, to, depthLimit);
+    }
+  }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (n < 2) return;
+    int depthLimit = 2 * log2(n);
+    switch (partition) {
+      case DUAL_PIVOT:
+        dualPivotSort(ary, from, to, depthLimit);
+        break;
+      case BLOCK:
+        blockSort(ary, from, to, depthLimit, new int[BLOCK_SIZE], new int[BLOCK_SIZE]);
+        break;
+      default:
+        threeWaySort(ary, from, to, depthLimit);
+    }
+  }
+
+  //  对象只用三路分区: 比较要调 comparator, BLOCK 省掉的分支预测失败在这里不是瓶颈,
+  //  而重复 key 在对象排序中很常见. 分区会交换不相邻的元素, 所以不稳定.
+  @Override
+  public <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (n < 2) return;
+    threeWaySort(ary, from, to, 2 * log2(n), comparator);
+  }
+
+  // 排序 ary[begin, end)
+  private void threeWaySort(int[] ary, int begin, int end, int depthLimit) {
+    while (end - begin > INSERTION_SORT_THRESHOLD) {
+      // 递归过深说明 pivot 一直选得很差, 改用堆排序保证 O(n log n)
+      if (depthLimit == 0) {
+        heapSort(ary, begin, end);
+        return;
+      }
+      depthLimit -= 1;
+
+      int pivot = ary[choosePivot(ary, begin, end)];
+
+      // 分区之后: [begin, lt) < pivot, [lt, gt] == pivot, (gt, end) > pivot
+      int lt = begin;
+      int gt = end - 1;
+      int i = begin;
+      while (i <= gt) {
+        int v = ary[i];
+        if (v < pivot) {
+          swap(ary, lt, i);
+          lt += 1;
+          i += 1;
+        } else if (v > pivot) {
+          swap(ary, i, gt);
+          gt -= 1;
+        } else {
+          i += 1;
+        }
+      }
+
+      // 只递归较短的一边, 较长的一边留给循环处理 (尾递归消除)
+      if (lt - begin < end - gt - 1) {
+        threeWaySort(ary, begin, lt, depthLimit);
+        begin = gt + 1;
+      } else {
+        threeWaySort(ary, gt + 1, end, depthLimit);
+        end = lt;
+      }
+    }
+    InsertionSort.insertionSort(ary, begin, end);
+  }
+
+  private void dualPivotSort(int[] ary, int begin, int end, int depthLimit) {
+    while (end - begin > INSERTION_SORT_THRESHOLD) {
+      if (depthLimit == 0) {
+        heapSort(ary, begin, end);
+        return;
+      }
+      depthLimit -= 1;
+
+      // 取五个等距样本排序, 第二个和第四个作为两个 pivot, 分别放到区间两端
+      int seventh = (end - begin) / 7;
+      int e3 = begin + (end - begin) / 2;
+      int e2 = e3 - seventh;
+      int e1 = e2 - seventh;
+      int e4 = e3 + seventh;
+      int e5 = e4 + seventh;
+      sortFive(ary, e1, e2, e3, e4, e5);
+      swap(ary, e2, begin);
+      swap(ary, e4, end - 1);
+      int p1 = ary[begin];
+      int p2 = ary[end - 1];
+
+      // 分区之后: [begin + 1, less) < p1, [less, k) 在 [p1, p2] 之间, (great, end - 1) > p2
+      int less = begin + 1;
+      int great = end - 2;
+      for (int k = less; k <= great; k++) {
+        int v = ary[k];
+        if (v < p1) {
+          swap(ary, k, less);
+          less += 1;
+        } else if (v > p2) {
+          while (ary[great] > p2 && k < great) great -= 1;
+          swap(ary, k, great);
+          great -= 1;
+          if (ary[k] < p1) {
+            swap(ary, k, less);
+            less += 1;
+          }
+        }
+      }
+      less -= 1;
+      great += 1;
+      swap(ary, begin, less);
+      swap(ary, end - 1, great);
+
+      // 三段: [begin, less), (less, great) 和 (great, end). p1 == p2 时中间一段全部相等, 不用再排
+      int leftSize = less - begin;
+      int middleSize = p1 < p2 ? great - less - 1 : 0;
+      int rightSize = end - great - 1;
+
+      // 递归两段较短的, 最长的一段留给循环
+      if (rightSize >= leftSize && rightSize >= middleSize) {
+        dualPivotSort(ary, begin, less, depthLimit);
+        if (middleSize > 0) dualPivotSort(ary, less + 1, great, depthLimit);
+        begin = great + 1;
+      } else if (leftSize >= middleSize) {
+        if (middleSize > 0) dualPivotSort(ary, less + 1, great, depthLimit);
+        dualPivotSort(ary, great + 1, end, depthLimit);
+        end = less;
+      } else {
+        dualPivotSort(ary, begin, less, depthLimit);
+        dualPivotSort(ary, great + 1, end, depthLimit);
+        begin = less + 1;
+        end = great;
+      }
+    }
+    InsertionSort.insertionSort(ary, begin, end);
+  }
+
+  private void blockSort(
+      int[] ary, int begin, int end, int depthLimit, int[] offsetsL, int[] offsetsR) {
+    while (end - begin > INSERTION_SORT_THRESHOLD) {
+      if (depthLimit == 0) {
+        heapSort(ary, begin, end);
+        return;
+      }
+      depthLimit -= 1;
+
+      int mid = blockPartition(ary, begin, end, offsetsL, offsetsR);
+
+      if (mid - begin < end - mid - 1) {
+        blockSort(ary, begin, mid, depthLimit, offsetsL, offsetsR);
+        begin = mid + 1;
+      } else {
+        blockSort(ary, mid + 1, end, depthLimit, offsetsL, offsetsR);
+        end = mid;
+      }
+    }
+    InsertionSort.insertionSort(ary, begin, end);
+  }
+
+  //  分区 ary[begin, end), 返回 pivot 最终所在的下标 p, 之后 [begin, p) <= pivot, (p, end) >= pivot.
+  //  1. 左右各取一个块, 把比较结果写成 offset (只做加法, 不按比较结果分支), 记录放错边的元素.
+  //  2. 两边都有待交换的 offset 时成对交换, 哪边的 offset 用完了, 哪边的块就整体前进.
+  //  3. 剩下不足两个块的部分用普通的 Hoare 分区收尾.
+  private int blockPartition(int[] ary, int begin, int end, int[] offsetsL, int[] offsetsR) {
+    swap(ary, begin, choosePivot(ary, begin, end));
+    int pivot = ary[begin];
+
+    int l = begin + 1;
+    int r = end - 1;
+    int numL = 0, numR = 0, startL = 0, startR = 0;
+    while (r - l + 1 > 2 * BLOCK_SIZE) {
+      if (numL == 0) {
+        startL = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+          offsetsL[numL] = i;
+          numL += ary[l + i] >= pivot ? 1 : 0;
+        }
+      }
+      if (numR == 0) {
+        startR = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+          offsetsR[numR] = i;
+          numR += pivot >= ary[r - i] ? 1 : 0;
+        }
+      }
+      int num = Math.min(numL, numR);
+      for (int j = 0; j < num; j++) {
+        swap(ary, l + offsetsL[startL + j], r - offsetsR[startR + j]);
+      }
+      numL -= num;
+      numR -= num;
+      startL += num;
+      startR += num;
+      if (numL == 0) l += BLOCK_SIZE;
+      if (numR == 0) r -= BLOCK_SIZE;
+    }
+
+    // 此时 [begin + 1, l) <= pivot, (r, end) >= pivot, 未处理完的块都在 [l, r] 之内
+    int i = l;
+    int j = r;
+    while (true) {
+      while (i <= j && ary[i] < pivot) i += 1;
+      while (i <= j && ary[j] > pivot) j -= 1;
+      if (i >= j) break;
+      swap(ary, i, j);
+      i += 1;
+      j -= 1;
+    }
+    swap(ary, begin, i - 1);
+    return i - 1;
+  }
+
+  // 5 个元素的排序网络 (9 次比较交换)
+  private void sortFive(int[] ary, int e1, int e2, int e3, int e4, int e5) {
+    compareSwap(ary, e1, e2);
+    compareSwap(ary, e4, e5);
+    compareSwap(ary, e3, e5);
+    compareSwap(ary, e3, e4);
+    compareSwap(ary, e1, e4);
+    compareSwap(ary, e1, e3);
+    compareSwap(ary, e2, e5);
+    compareSwap(ary, e2, e4);
+    compareSwap(ary, e2, e3);
+  }
+
+  private static void compareSwap(int[] ary, int i, int j) {
+    if (ary[i] > ary[j]) swap(ary, i, j);
+  }
+
+  private int choosePivot(int[] ary, int begin, int end) {
+    int n = end - begin;
+    int mid = begin + n / 2;
+    if (n > NINTHER_THRESHOLD) {
+      int step = n / 8;
+      int a = medianOfThree(ary, begin, begin + step, begin + 2 * step);
+      int b = medianOfThree(ary, mid - step, mid, mid + step);
+      int c = medianOfThree(ary, end - 1 - 2 * step, end - 1 - step, end - 1);
+      return medianOfThree(ary, a, b, c);
+    }
+    return medianOfThree(ary, begin, mid, end - 1);
+  }
+
+  // 返回 ary[i], ary[j], ary[k] 中值所在的下标
+  private int medianOfThree(int[] ary, int i, int j, int k) {
+    if (ary[i] < ary[j]) {
+      if (ary[j] < ary[k]) return j;
+      return ary[i] < ary[k] ? k : i;
+    }
+    if (ary[k] < ary[j]) return j;
+    return ary[k] < ary[i] ? k : i;
+  }
+
+  private void heapSort(int[] ary, int begin, int end) {
+    int n = end - begin;
+    for (int i = n / 2 - 1; i >= 0; i--) sink(ary, begin, i, n);
+    for (int last = n - 1; last > 0; last--) {
+      swap(ary, begin, begin + last);
+      sink(ary, begin, 0, last);
+    }
+  }
+
+  // 大顶堆的 sink, 下标 k 和 n 都是相对 offset 的
+  private void sink(int[] ary, int offset, int k, int n) {
+    int v = ary[offset + k];
+    while (true) {
+      int child = 2 * k + 1;
+      if (child >= n) break;
+      if (child + 1 < n && ary[offset + child + 1] > ary[offset + child]) child += 1;
+      if (ary[offset + child] <= v) break;
+      ary[offset + k] = ary[offset + child];
+      k = child;
+    }
+    ary[offset + k] = v;
+  }
+
+  private static void swap(int[] ary, int i, int j) {
+    int tmp = ary[i];
+    ary[i] = ary[j];
+    ary[j] = tmp;
   }
 
-  private void _sort(int[] ary, int begin, int end) {
-//    System.out.println("begin: " + begin + " end: " + end);
-    int pivot = begin + (end - begin) / 2;
-    int l = begin;
-    int r = end;
-    while (r > l) {
-      while (ary[l] < ary[pivot]) {
-        l += 1;
+  private void threeWaySort(long[] ary, int begin, int end, int depthLimit) {
+    while (end - begin > INSERTION_SORT_THRESHOLD) {
+      if (depthLimit == 0) {
+        heapSort(ary, begin, end);
+        return;
       }
+      depthLimit -= 1;
+
+      long pivot = ary[choosePivot(ary, begin, end)];
+
+      int lt = begin;
+      int gt = end - 1;
+      int i = begin;
+      while (i <= gt) {
+        long v = ary[i];
+        if (v < pivot) {
+          swap(ary, lt, i);
+          lt += 1;
+          i += 1;
+        } else if (v > pivot) {
+          swap(ary, i, gt);
+          gt -= 1;
+        } else {
+          i += 1;
+        }
+      }
+
+      if (lt - begin < end - gt - 1) {
+        threeWaySort(ary, begin, lt, depthLimit);
+        begin = gt + 1;
+      } else {
+        threeWaySort(ary, gt + 1, end, depthLimit);
+        end = lt;
+      }
+    }
+    InsertionSort.insertionSort(ary, begin, end);
+  }
 
-      while (ary[r] > ary[pivot]) {
-        r -= 1;
+  private void dualPivotSort(long[] ary, int begin, int end, int depthLimit) {
+    while (end - begin > INSERTION_SORT_THRESHOLD) {
+      if (depthLimit == 0) {
+        heapSort(ary, begin, end);
+        return;
       }
+      depthLimit -= 1;
 
-      if (l >= r) break;
+      int seventh = (end - begin) / 7;
+      int e3 = begin + (end - begin) / 2;
+      int e2 = e3 - seventh;
+      int e1 = e2 - seventh;
+      int e4 = e3 + seventh;
+      int e5 = e4 + seventh;
+      sortFive(ary, e1, e2, e3, e4, e5);
+      swap(ary, e2, begin);
+      swap(ary, e4, end - 1);
+      long p1 = ary[begin];
+      long p2 = ary[end - 1];
 
-      int tmp = ary[l];
-      ary[l] = ary[r];
-      ary[r] = tmp;
+      int less = begin + 1;
+      int great = end - 2;
+      for (int k = less; k <= great; k++) {
+        long v = ary[k];
+        if (v < p1) {
+          swap(ary, k, less);
+          less += 1;
+        } else if (v > p2) {
+          while (ary[great] > p2 && k < great) great -= 1;
+          swap(ary, k, great);
+          great -= 1;
+          if (ary[k] < p1) {
+            swap(ary, k, less);
+            less += 1;
+          }
+        }
+      }
+      less -= 1;
+      great += 1;
+      swap(ary, begin, less);
+      swap(ary, end - 1, great);
 
-      if (l == pivot) r -= 1;
+      int leftSize = less - begin;
+      int middleSize = p1 < p2 ? great - less - 1 : 0;
+      int rightSize = end - great - 1;
 
-      if (r == pivot) l += 1;
+      if (rightSize >= leftSize && rightSize >= middleSize) {
+        dualPivotSort(ary, begin, less, depthLimit);
+        if (middleSize > 0) dualPivotSort(ary, less + 1, great, depthLimit);
+        begin = great + 1;
+      } else if (leftSize >= middleSize) {
+        if (middleSize > 0) dualPivotSort(ary, less + 1, great, depthLimit);
+        dualPivotSort(ary, great + 1, end, depthLimit);
+        end = less;
+      } else {
+        dualPivotSort(ary, begin, less, depthLimit);
+        dualPivotSort(ary, great + 1, end, depthLimit);
+        begin = less + 1;
+        end = great;
+      }
     }
+    InsertionSort.insertionSort(ary, begin, end);
+  }
 
-    if (l == r) {
-      l += 1;
-      r -= 1;
+  private void blockSort(
+      long[] ary, int begin, int end, int depthLimit, int[] offsetsL, int[] offsetsR) {
+    while (end - begin > INSERTION_SORT_THRESHOLD) {
+      if (depthLimit == 0) {
+        heapSort(ary, begin, end);
+        return;
+      }
+      depthLimit -= 1;
+
+      int mid = blockPartition(ary, begin, end, offsetsL, offsetsR);
+
+      if (mid - begin < end - mid - 1) {
+        blockSort(ary, begin, mid, depthLimit, offsetsL, offsetsR);
+        begin = mid + 1;
+      } else {
+        blockSort(ary, mid + 1, end, depthLimit, offsetsL, offsetsR);
+        end = mid;
+      }
     }
+    InsertionSort.insertionSort(ary, begin, end);
+  }
+
+  private int blockPartition(long[] ary, int begin, int end, int[] offsetsL, int[] offsetsR) {
+    swap(ary, begin, choosePivot(ary, begin, end));
+    long pivot = ary[begin];
+
+    int l = begin + 1;
+    int r = end - 1;
+    int numL = 0, numR = 0, startL = 0, startR = 0;
+    while (r - l + 1 > 2 * BLOCK_SIZE) {
+      if (numL == 0) {
+        startL = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+          offsetsL[numL] = i;
+          numL += ary[l + i] >= pivot ? 1 : 0;
+        }
+      }
+      if (numR == 0) {
+        startR = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+          offsetsR[numR] = i;
+          numR += pivot >= ary[r - i] ? 1 : 0;
+        }
+      }
+      int num = Math.min(numL, numR);
+      for (int j = 0; j < num; j++) {
+        swap(ary, l + offsetsL[startL + j], r - offsetsR[startR + j]);
+      }
+      numL -= num;
+      numR -= num;
+      startL += num;
+      startR += num;
+      if (numL == 0) l += BLOCK_SIZE;
+      if (numR == 0) r -= BLOCK_SIZE;
+    }
+
+    int i = l;
+    int j = r;
+    while (true) {
+      while (i <= j && ary[i] < pivot) i += 1;
+      while (i <= j && ary[j] > pivot) j -= 1;
+      if (i >= j) break;
+      swap(ary, i, j);
+      i += 1;
+      j -= 1;
+    }
+    swap(ary, begin, i - 1);
+    return i - 1;
+  }
+
+  private void sortFive(long[] ary, int e1, int e2, int e3, int e4, int e5) {
+    compareSwap(ary, e1, e2);
+    compareSwap(ary, e4, e5);
+    compareSwap(ary, e3, e5);
+    compareSwap(ary, e3, e4);
+    compareSwap(ary, e1, e4);
+    compareSwap(ary, e1, e3);
+    compareSwap(ary, e2, e5);
+    compareSwap(ary, e2, e4);
+    compareSwap(ary, e2, e3);
+  }
+
+  private static void compareSwap(long[] ary, int i, int j) {
+    if (ary[i] > ary[j]) swap(ary, i, j);
+  }
+
+  private int choosePivot(long[] ary, int begin, int end) {
+    int n = end - begin;
+    int mid = begin + n / 2;
+    if (n > NINTHER_THRESHOLD) {
+      int step = n / 8;
+      int a = medianOfThree(ary, begin, begin + step, begin + 2 * step);
+      int b = medianOfThree(ary, mid - step, mid, mid + step);
+      int c = medianOfThree(ary, end - 1 - 2 * step, end - 1 - step, end - 1);
+      return medianOfThree(ary, a, b, c);
+    }
+    return medianOfThree(ary, begin, mid, end - 1);
+  }
+
+  private int medianOfThree(long[] ary, int i, int j, int k) {
+    if (ary[i] < ary[j]) {
+      if (ary[j] < ary[k]) return j;
+      return ary[i] < ary[k] ? k : i;
+    }
+    if (ary[k] < ary[j]) return j;
+    return ary[k] < ary[i] ? k : i;
+  }
+
+  private void heapSort(long[] ary, int begin, int end) {
+    int n = end - begin;
+    for (int i = n / 2 - 1; i >= 0; i--) sink(ary, begin, i, n);
+    for (int last = n - 1; last > 0; last--) {
+      swap(ary, begin, begin + last);
+      sink(ary, begin, 0, last);
+    }
+  }
+
+  private void sink(long[] ary, int offset, int k, int n) {
+    long v = ary[offset + k];
+    while (true) {
+      int child = 2 * k + 1;
+      if (child >= n) break;
+      if (child + 1 < n && ary[offset + child + 1] > ary[offset + child]) child += 1;
+      if (ary[offset + child] <= v) break;
+      ary[offset + k] = ary[offset + child];
+      k = child;
+    }
+    ary[offset + k] = v;
+  }
+
+  private static void swap(long[] ary, int i, int j) {
+    long tmp = ary[i];
+    ary[i] = ary[j];
+    ary[j] = tmp;
+  }
+
+  private <T> void threeWaySort(
+      T[] ary, int begin, int end, int depthLimit, Comparator<? super T> comparator) {
+    while (end - begin > INSERTION_SORT_THRESHOLD) {
+      if (depthLimit == 0) {
+        heapSort(ary, begin, end, comparator);
+        return;
+      }
+      depthLimit -= 1;
+
+      T pivot = ary[choosePivot(ary, begin, end, comparator)];
+
+      int lt = begin;
+      int gt = end - 1;
+      int i = begin;
+      while (i <= gt) {
+        int cmp = comparator.compare(ary[i], pivot);
+        if (cmp < 0) {
+          swap(ary, lt, i);
+          lt += 1;
+          i += 1;
+        } else if (cmp > 0) {
+          swap(ary, i, gt);
+          gt -= 1;
+        } else {
+          i += 1;
+        }
+      }
+
+      if (lt - begin < end - gt - 1) {
+        threeWaySort(ary, begin, lt, depthLimit, comparator);
+        begin = gt + 1;
+      } else {
+        threeWaySort(ary, gt + 1, end, depthLimit, comparator);
+        end = lt;
+      }
+    }
+    InsertionSort.insertionSort(ary, begin, end, comparator);
+  }
+
+  private <T> int choosePivot(T[] ary, int begin, int end, Comparator<? super T> comparator) {
+    int n = end - begin;
+    int mid = begin + n / 2;
+    if (n > NINTHER_THRESHOLD) {
+      int step = n / 8;
+      int a = medianOfThree(ary, begin, begin + step, begin + 2 * step, comparator);
+      int b = medianOfThree(ary, mid - step, mid, mid + step, comparator);
+      int c = medianOfThree(ary, end - 1 - 2 * step, end - 1 - step, end - 1, comparator);
+      return medianOfThree(ary, a, b, c, comparator);
+    }
+    return medianOfThree(ary, begin, mid, end - 1, comparator);
+  }
+
+  private <T> int medianOfThree(T[] ary, int i, int j, int k, Comparator<? super T> comparator) {
+    if (comparator.compare(ary[i], ary[j]) < 0) {
+      if (comparator.compare(ary[j], ary[k]) < 0) return j;
+      return comparator.compare(ary[i], ary[k]) < 0 ? k : i;
+    }
+    if (comparator.compare(ary[k], ary[j]) < 0) return j;
+    return comparator.compare(ary[k], ary[i]) < 0 ? k : i;
+  }
+
+  private <T> void heapSort(T[] ary, int begin, int end, Comparator<? super T> comparator) {
+    int n = end - begin;
+    for (int i = n / 2 - 1; i >= 0; i--) sink(ary, begin, i, n, comparator);
+    for (int last = n - 1; last > 0; last--) {
+      swap(ary, begin, begin + last);
+      sink(ary, begin, 0, last, comparator);
+    }
+  }
+
+  private <T> void sink(T[] ary, int offset, int k, int n, Comparator<? super T> comparator) {
+    T v = ary[offset + k];
+    while (true) {
+      int child = 2 * k + 1;
+      if (child >= n) break;
+      if (child + 1 < n && comparator.compare(ary[offset + child + 1], ary[offset + child]) > 0) {
+        child += 1;
+      }
+      if (comparator.compare(ary[offset + child], v) <= 0) break;
+      ary[offset + k] = ary[offset + child];
+      k = child;
+    }
+    ary[offset + k] = v;
+  }
+
+  private static void swap(Object[] ary, int i, int j) {
+    Object tmp = ary[i];
+    ary[i] = ary[j];
+    ary[j] = tmp;
+  }
 
-//    for (int i = 0; i < ary.length; i++) System.out.println(ary[i]);
-    if (l < end) _sort(ary, l, end);
-    if (r > begin) _sort(ary, begin, r);
+  private static int log2(int n) {
+    return 31 - Integer.numberOfLeadingZeros(n);
   }
 }
@@ -1,41 +1,242 @@
 package com.datastructure;
-import java.util.Arrays;
 
-public class RadixSort {
-  public void sort(int[] ary) {
-    int maxMember = ary[0];
-    for (int i = 0; i < ary.length; i++) {
-      if (ary[i] > maxMember) maxMember = ary[i];
+/**
+ * LSD radix sort on bytes. Each pass counts the occurrences of one byte, turns the counts into
+ * starting offsets with a prefix sum and scatters the elements into a single scratch array of the
+ * same length as the input, so the extra memory is n elements plus one 256-entry histogram per
+ * byte. All histograms are filled in one read pass up front, which also lets a pass be skipped
+ * entirely when every element has the same value in that byte.
+ *
+ * <p>Signed values are ordered by flipping the sign bit of the most significant byte. Floating
+ * point values are mapped onto their IEEE 754 bit patterns with the magnitude bits of negative
+ * numbers inverted, giving the same order as {@link java.util.Arrays#sort(double[])}: -0.0 before
+ * 0.0 and NaN last.
+ *
+ * <p>A radix sort needs the bits of the key, so there is no Comparator path and {@code sort(T[],
+ * Comparator)} throws {@link UnsupportedOperationException}. Objects with an int key can be sorted
+ * with {@link Sorter#sortByKey}.
+ */
+public class RadixSort implements Sorter {
+
+  private static final int RADIX = 256;
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new int[to - from]);
+  }
+
+  public void sort(int[] ary, int[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  // 排序 ary[from, to), aux 的长度至少为 to - from
+  public void sort(int[] ary, int from, int to, int[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+
+    int[] counts = new int[4 * RADIX];
+    for (int i = from; i < to; i++) {
+      int key = ary[i] ^ Integer.MIN_VALUE;
+      counts[key & 0xFF] += 1;
+      counts[RADIX + ((key >>> 8) & 0xFF)] += 1;
+      counts[2 * RADIX + ((key >>> 16) & 0xFF)] += 1;
+      counts[3 * RADIX + (key >>> 24)] += 1;
+    }
+
+    int[] src = ary;
+    int[] dst = aux;
+    int srcOff = from;
+    int dstOff = 0;
+    for (int pass = 0, shift = 0; pass < 4; pass++, shift += 8) {
+      int offset = pass * RADIX;
+      // 所有元素在这个字节上都相同, 这一趟不会改变顺序
+      if (counts[offset + (((src[srcOff] ^ Integer.MIN_VALUE) >>> shift) & 0xFF)] == n) continue;
+      prefixSum(counts, offset);
+      for (int i = 0; i < n; i++) {
+        int value = src[srcOff + i];
+        int digit = ((value ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+        dst[dstOff + counts[offset + digit]++] = value;
+      }
+      int[] tmp = src;
+      src = dst;
+      dst = tmp;
+      int tmpOff = srcOff;
+      srcOff = dstOff;
+      dstOff = tmpOff;
+    }
+    if (src != ary) System.arraycopy(src, 0, ary, from, n);
+  }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new long[to - from]);
+  }
+
+  public void sort(long[] ary, long[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  public void sort(long[] ary, int from, int to, long[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+
+    int[] counts = new int[8 * RADIX];
+    for (int i = from; i < to; i++) {
+      long key = ary[i] ^ Long.MIN_VALUE;
+      for (int pass = 0; pass < 8; pass++) {
+        counts[pass * RADIX + (int) ((key >>> (pass * 8)) & 0xFF)] += 1;
+      }
+    }
+
+    long[] src = ary;
+    long[] dst = aux;
+    int srcOff = from;
+    int dstOff = 0;
+    for (int pass = 0, shift = 0; pass < 8; pass++, shift += 8) {
+      int offset = pass * RADIX;
+      long first = src[srcOff] ^ Long.MIN_VALUE;
+      if (counts[offset + (int) ((first >>> shift) & 0xFF)] == n) continue;
+      prefixSum(counts, offset);
+      for (int i = 0; i < n; i++) {
+        long value = src[srcOff + i];
+        int digit = (int) (((value ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+        dst[dstOff + counts[offset + digit]++] = value;
+      }
+      long[] tmp = src;
+      src = dst;
+      dst = tmp;
+      int tmpOff = srcOff;
+      srcOff = dstOff;
+      dstOff = tmpOff;
+    }
+    if (src != ary) System.arraycopy(src, 0, ary, from, n);
+  }
+
+  public void sort(float[] ary) {
+    sort(ary, 0, ary.length);
+  }
+
+  public void sort(float[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new float[to - from]);
+  }
+
+  public void sort(float[] ary, float[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  public void sort(float[] ary, int from, int to, float[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+
+    int[] counts = new int[4 * RADIX];
+    for (int i = from; i < to; i++) {
+      int key = sortableBits(ary[i]);
+      counts[key & 0xFF] += 1;
+      counts[RADIX + ((key >>> 8) & 0xFF)] += 1;
+      counts[2 * RADIX + ((key >>> 16) & 0xFF)] += 1;
+      counts[3 * RADIX + (key >>> 24)] += 1;
     }
 
-    int maxDigitNum = String.valueOf(maxMember).length();
+    float[] src = ary;
+    float[] dst = aux;
+    int srcOff = from;
+    int dstOff = 0;
+    for (int pass = 0, shift = 0; pass < 4; pass++, shift += 8) {
+      int offset = pass * RADIX;
+      if (counts[offset + ((sortableBits(src[srcOff]) >>> shift) & 0xFF)] == n) continue;
+      prefixSum(counts, offset);
+      for (int i = 0; i < n; i++) {
+        float value = src[srcOff + i];
+        int digit = (sortableBits(value) >>> shift) & 0xFF;
+        dst[dstOff + counts[offset + digit]++] = value;
+      }
+      float[] tmp = src;
+      src = dst;
+      dst = tmp;
+      int tmpOff = srcOff;
+      srcOff = dstOff;
+      dstOff = tmpOff;
+    }
+    if (src != ary) System.arraycopy(src, 0, ary, from, n);
+  }
 
-    int[] memberCounts = new int[10];
+  @Override
+  public void sort(double[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    sort(ary, from, to, new double[to - from]);
+  }
+
+  public void sort(double[] ary, double[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
 
-    int[][] buckets = new int[10][ary.length];
+  public void sort(double[] ary, int from, int to, double[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux.length < n) throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
 
-    for (int i = 0, n = 1; i < maxDigitNum; i++, n *= 10) {
-      for (int k = 0; k < ary.length; k++) {
-        int digit = (ary[k] / n) % 10;
-        buckets[digit][memberCounts[digit]] = ary[k];
-        memberCounts[digit] += 1;
+    int[] counts = new int[8 * RADIX];
+    for (int i = from; i < to; i++) {
+      long key = sortableBits(ary[i]);
+      for (int pass = 0; pass < 8; pass++) {
+        counts[pass * RADIX + (int) ((key >>> (pass * 8)) & 0xFF)] += 1;
       }
+    }
 
-//      for (int j = 0; j < 10; j++) {
-//        System.out.println(Arrays.toString(buckets[j]));
-//      }
-//      System.out.println(Arrays.toString(memberCounts));
-      int c = 0;
-      for (int l = 0; l < 10; l++) {
-        if (memberCounts[l] > 0) {
-          for (int j = 0; j < memberCounts[l]; j++) {
-//            System.out.println("ary[" + c + "]" + "=buckets[" + l + "]" + "[" + j + "]");
-            ary[c] = buckets[l][j];
-            c += 1;
-          }
-        }
-        memberCounts[l] = 0;
+    double[] src = ary;
+    double[] dst = aux;
+    int srcOff = from;
+    int dstOff = 0;
+    for (int pass = 0, shift = 0; pass < 8; pass++, shift += 8) {
+      int offset = pass * RADIX;
+      if (counts[offset + (int) ((sortableBits(src[srcOff]) >>> shift) & 0xFF)] == n) continue;
+      prefixSum(counts, offset);
+      for (int i = 0; i < n; i++) {
+        double value = src[srcOff + i];
+        int digit = (int) ((sortableBits(value) >>> shift) & 0xFF);
+        dst[dstOff + counts[offset + digit]++] = value;
       }
+      double[] tmp = src;
+      src = dst;
+      dst = tmp;
+      int tmpOff = srcOff;
+      srcOff = dstOff;
+      dstOff = tmpOff;
     }
+    if (src != ary) System.arraycopy(src, 0, ary, from, n);
+  }
+
+  // 把 counts[offset, offset + RADIX) 的计数就地改成每个桶的起始下标
+  private static void prefixSum(int[] counts, int offset) {
+    int sum = 0;
+    for (int i = offset; i < offset + RADIX; i++) {
+      int count = counts[i];
+      counts[i] = sum;
+      sum += count;
+    }
+  }
+
+  //  float 的位模式按无符号整数比较时的顺序:
+  //  正数: 翻转符号位, 排在所有负数之后.
+  //  负数: 所有位取反, 绝对值越大排得越前.
+  //  NaN 统一成 floatToIntBits 的规范值, 排在 +Infinity 之后.
+  static int sortableBits(float value) {
+    int bits = Float.floatToIntBits(value);
+    return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+  }
+
+  static long sortableBits(double value) {
+    long bits = Double.doubleToLongBits(value);
+    return bits ^ ((bits >> 63) | Long.MIN_VALUE);
   }
 }
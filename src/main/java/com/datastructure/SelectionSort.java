@@ -1,19 +1,61 @@
 package com.datastructure;
 
-public class SelectionSort {
+import java.util.Comparator;
 
-  public void sort(int[] ary) {
-    int n = ary.length;
+public class SelectionSort implements Sorter {
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
     for (int i = 0; i < n - 1; i++) {
-      int maxPosition = 0;
-      for (int j = 1; j < n - i; j++) {
+      int last = to - i - 1;
+      int maxPosition = from;
+      for (int j = from + 1; j <= last; j++) {
         if (ary[j] > ary[maxPosition]) {
           maxPosition = j;
         }
       }
       int tmp = ary[maxPosition];
-      ary[maxPosition] = ary[n - i - 1];
-      ary[n - i - 1] = tmp;
+      ary[maxPosition] = ary[last];
+      ary[last] = tmp;
+    }
+  }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    for (int i = 0; i < n - 1; i++) {
+      int last = to - i - 1;
+      int maxPosition = from;
+      for (int j = from + 1; j <= last; j++) {
+        if (ary[j] > ary[maxPosition]) {
+          maxPosition = j;
+        }
+      }
+      long tmp = ary[maxPosition];
+      ary[maxPosition] = ary[last];
+      ary[last] = tmp;
+    }
+  }
+
+  // 和最后一个元素交换会打乱相等元素的顺序, 不稳定
+  @Override
+  public <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    for (int i = 0; i < n - 1; i++) {
+      int last = to - i - 1;
+      int maxPosition = from;
+      for (int j = from + 1; j <= last; j++) {
+        if (comparator.compare(ary[j], ary[maxPosition]) > 0) {
+          maxPosition = j;
+        }
+      }
+      T tmp = ary[maxPosition];
+      ary[maxPosition] = ary[last];
+      ary[last] = tmp;
     }
   }
 }
@@ -0,0 +1,94 @@
+package com.datastructure;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+/**
+ * Common entry point for the sorters in this package. Every sorter handles int[] ranges; long[]
+ * ranges and arrays of objects with a Comparator are only available where the sorter implements
+ * them with its own algorithm, the defaults throw {@link UnsupportedOperationException} instead of
+ * quietly handing the work to {@link Arrays#sort}. Whether a Comparator path is stable is
+ * documented by each sorter.
+ *
+ * <p>The remaining defaults are built on the sorter's own long[] path:
+ *
+ * <ul>
+ *   <li>double[] is mapped onto longs whose signed order matches {@link Arrays#sort(double[])}
+ *       (-0.0 before 0.0, NaN last), sorted through the long[] path and mapped back. NaNs come
+ *       back as the canonical NaN.
+ *   <li>T[] by an int key packs each key with the element's index into one long, sorts those
+ *       through the long[] path and permutes the elements accordingly. Keys are extracted once
+ *       and never boxed, and equal keys keep their input order.
+ * </ul>
+ */
+public interface Sorter {
+
+  void sort(int[] ary, int from, int to);
+
+  default void sort(int[] ary) {
+    sort(ary, 0, ary.length);
+  }
+
+  default void sort(long[] ary, int from, int to) {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot sort long[]");
+  }
+
+  default void sort(long[] ary) {
+    sort(ary, 0, ary.length);
+  }
+
+  default void sort(double[] ary, int from, int to) {
+    checkRange(ary.length, from, to);
+    int n = to - from;
+    long[] keys = new long[n];
+    for (int i = 0; i < n; i++) keys[i] = sortableBits(ary[from + i]);
+    sort(keys, 0, n);
+    for (int i = 0; i < n; i++) ary[from + i] = fromSortableBits(keys[i]);
+  }
+
+  default void sort(double[] ary) {
+    sort(ary, 0, ary.length);
+  }
+
+  default <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    throw new UnsupportedOperationException(
+        getClass().getSimpleName() + " cannot sort with a Comparator");
+  }
+
+  default <T> void sort(T[] ary, Comparator<? super T> comparator) {
+    sort(ary, 0, ary.length, comparator);
+  }
+
+  //  高 32 位是 key, 低 32 位是元素在区间里的下标, 按 long 排序就是先按 key 再按原来的位置排,
+  //  所以相同 key 的元素保持原来的相对顺序.
+  @SuppressWarnings("unchecked")
+  default <T> void sortByKey(T[] ary, int from, int to, ToIntFunction<? super T> key) {
+    checkRange(ary.length, from, to);
+    int n = to - from;
+    if (n < 2) return;
+    long[] packed = new long[n];
+    for (int i = 0; i < n; i++) packed[i] = ((long) key.applyAsInt(ary[from + i]) << 32) | i;
+    sort(packed, 0, n);
+    Object[] copy = Arrays.copyOfRange(ary, from, to, Object[].class);
+    for (int i = 0; i < n; i++) ary[from + i] = (T) copy[(int) packed[i]];
+  }
+
+  default <T> void sortByKey(T[] ary, ToIntFunction<? super T> key) {
+    sortByKey(ary, 0, ary.length, key);
+  }
+
+  static void checkRange(int length, int from, int to) {
+    if (from < 0 || to > length || from > to) throw new IllegalArgumentException("Illegal range");
+  }
+
+  // 负数把除符号位以外的位取反, 这样按有符号 long 比较的顺序和 double 的顺序一致
+  static long sortableBits(double value) {
+    long bits = Double.doubleToLongBits(value);
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+
+  static double fromSortableBits(long bits) {
+    return Double.longBitsToDouble(bits ^ ((bits >> 63) & Long.MAX_VALUE));
+  }
+}
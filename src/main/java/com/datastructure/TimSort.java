@@ -0,0 +1,1148 @@
+package com.datastructure;
+
+import java.util.Comparator;
+
+/**
+ * A natural merge sort in the style of Tim Peters' listsort, for int[], long[] and arrays of
+ * objects with a Comparator. The input is scanned for
+ * runs that are already ascending (or strictly descending, which are reversed in place); runs
+ * shorter than minrun are extended with binary insertion sort. Runs are kept on a stack whose
+ * lengths must shrink at least as fast as the Fibonacci numbers, and are merged pairwise when that
+ * invariant breaks. Merges start by skipping the prefix/suffix that is already in place and switch
+ * to galloping (exponential search) when one side keeps winning, so input that is almost sorted is
+ * handled in close to linear time.
+ *
+ * <p>All merges share one temporary buffer of n/2 elements, which is only allocated once a merge
+ * actually happens, or can be supplied by the caller.
+ */
+public class TimSort implements Sorter {
+
+  // 小于这个长度的数组直接用二分插入排序, 也是 minrun 的上限
+  private static final int MIN_MERGE = 32;
+
+  // 一边连续赢这么多次之后进入 galloping 模式
+  private static final int MIN_GALLOP = 7;
+
+  // run 长度满足 Fibonacci 式的不变式, 2^31 个元素最多需要 49 个 run
+  private static final int MAX_RUNS = 49;
+
+  @Override
+  public void sort(int[] ary, int from, int to) {
+    sort(ary, from, to, null);
+  }
+
+  // aux 为 null 时在第一次 merge 时才分配, 否则长度至少为 ary.length / 2
+  public void sort(int[] ary, int[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  // 排序 ary[from, to), aux 为 null 或者长度至少为 (to - from) / 2
+  public void sort(int[] ary, int from, int to, int[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux != null && aux.length < n / 2)
+      throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+
+    if (n < MIN_MERGE) {
+      int runLen = countRunAndMakeAscending(ary, from, to);
+      InsertionSort.binaryInsertionSort(ary, from, to, from + runLen);
+      return;
+    }
+
+    Merger merger = new Merger(ary, n, aux);
+    int minRun = minRunLength(n);
+    int lo = from;
+    int remaining = n;
+    do {
+      int runLen = countRunAndMakeAscending(ary, lo, to);
+      // 自然 run 太短, 用二分插入排序扩展到 minRun
+      if (runLen < minRun) {
+        int force = Math.min(remaining, minRun);
+        InsertionSort.binaryInsertionSort(ary, lo, lo + force, lo + runLen);
+        runLen = force;
+      }
+      merger.pushRun(lo, runLen);
+      merger.mergeCollapse();
+      lo += runLen;
+      remaining -= runLen;
+    } while (remaining != 0);
+    merger.mergeForceCollapse();
+  }
+
+  @Override
+  public void sort(long[] ary, int from, int to) {
+    sort(ary, from, to, null);
+  }
+
+  public void sort(long[] ary, long[] aux) {
+    sort(ary, 0, ary.length, aux);
+  }
+
+  public void sort(long[] ary, int from, int to, long[] aux) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (aux != null && aux.length < n / 2)
+      throw new IllegalArgumentException("Scratch buffer too small");
+    if (n < 2) return;
+
+    if (n < MIN_MERGE) {
+      int runLen = countRunAndMakeAscending(ary, from, to);
+      InsertionSort.binaryInsertionSort(ary, from, to, from + runLen);
+      return;
+    }
+
+    LongMerger merger = new LongMerger(ary, n, aux);
+    int minRun = minRunLength(n);
+    int lo = from;
+    int remaining = n;
+    do {
+      int runLen = countRunAndMakeAscending(ary, lo, to);
+      if (runLen < minRun) {
+        int force = Math.min(remaining, minRun);
+        InsertionSort.binaryInsertionSort(ary, lo, lo + force, lo + runLen);
+        runLen = force;
+      }
+      merger.pushRun(lo, runLen);
+      merger.mergeCollapse();
+      lo += runLen;
+      remaining -= runLen;
+    } while (remaining != 0);
+    merger.mergeForceCollapse();
+  }
+
+  // 相等的元素保持原来的顺序
+  @Override
+  public <T> void sort(T[] ary, int from, int to, Comparator<? super T> comparator) {
+    Sorter.checkRange(ary.length, from, to);
+    int n = to - from;
+    if (n < 2) return;
+
+    if (n < MIN_MERGE) {
+      int runLen = countRunAndMakeAscending(ary, from, to, comparator);
+      InsertionSort.binaryInsertionSort(ary, from, to, from + runLen, comparator);
+      return;
+    }
+
+    ObjectMerger<T> merger = new ObjectMerger<>(ary, n, comparator);
+    int minRun = minRunLength(n);
+    int lo = from;
+    int remaining = n;
+    do {
+      int runLen = countRunAndMakeAscending(ary, lo, to, comparator);
+      if (runLen < minRun) {
+        int force = Math.min(remaining, minRun);
+        InsertionSort.binaryInsertionSort(ary, lo, lo + force, lo + runLen, comparator);
+        runLen = force;
+      }
+      merger.pushRun(lo, runLen);
+      merger.mergeCollapse();
+      lo += runLen;
+      remaining -= runLen;
+    } while (remaining != 0);
+    merger.mergeForceCollapse();
+  }
+
+  //  返回从 lo 开始的 run 的长度. 严格递减的 run 会被就地翻转成递增的
+  //  (必须是严格递减, 否则翻转会破坏相等元素的相对顺序).
+  static int countRunAndMakeAscending(int[] ary, int lo, int hi) {
+    int runHi = lo + 1;
+    if (runHi == hi) return 1;
+    if (ary[runHi++] < ary[lo]) {
+      while (runHi < hi && ary[runHi] < ary[runHi - 1]) runHi++;
+      reverseRange(ary, lo, runHi);
+    } else {
+      while (runHi < hi && ary[runHi] >= ary[runHi - 1]) runHi++;
+    }
+    return runHi - lo;
+  }
+
+  private static void reverseRange(int[] ary, int lo, int hi) {
+    hi -= 1;
+    while (lo < hi) {
+      int tmp = ary[lo];
+      ary[lo++] = ary[hi];
+      ary[hi--] = tmp;
+    }
+  }
+
+  static int countRunAndMakeAscending(long[] ary, int lo, int hi) {
+    int runHi = lo + 1;
+    if (runHi == hi) return 1;
+    if (ary[runHi++] < ary[lo]) {
+      while (runHi < hi && ary[runHi] < ary[runHi - 1]) runHi++;
+      reverseRange(ary, lo, runHi);
+    } else {
+      while (runHi < hi && ary[runHi] >= ary[runHi - 1]) runHi++;
+    }
+    return runHi - lo;
+  }
+
+  private static void reverseRange(long[] ary, int lo, int hi) {
+    hi -= 1;
+    while (lo < hi) {
+      long tmp = ary[lo];
+      ary[lo++] = ary[hi];
+      ary[hi--] = tmp;
+    }
+  }
+
+  static <T> int countRunAndMakeAscending(T[] ary, int lo, int hi, Comparator<? super T> c) {
+    int runHi = lo + 1;
+    if (runHi == hi) return 1;
+    if (c.compare(ary[runHi++], ary[lo]) < 0) {
+      while (runHi < hi && c.compare(ary[runHi], ary[runHi - 1]) < 0) runHi++;
+      reverseRange(ary, lo, runHi);
+    } else {
+      while (runHi < hi && c.compare(ary[runHi], ary[runHi - 1]) >= 0) runHi++;
+    }
+    return runHi - lo;
+  }
+
+  private static void reverseRange(Object[] ary, int lo, int hi) {
+    hi -= 1;
+    while (lo < hi) {
+      Object tmp = ary[lo];
+      ary[lo++] = ary[hi];
+      ary[hi--] = tmp;
+    }
+  }
+
+  //  n < MIN_MERGE 时返回 n, 否则返回 [MIN_MERGE / 2, MIN_MERGE] 之间的 k,
+  //  使得 n / k 刚好等于或略小于 2 的幂, 这样最后的 merge 两边长度接近.
+  private static int minRunLength(int n) {
+    int r = 0;
+    while (n >= MIN_MERGE) {
+      r |= (n & 1);
+      n >>= 1;
+    }
+    return n + r;
+  }
+
+  //  a[base + k - 1] < key <= a[base + k], 从 hint 开始往两边指数搜索再二分.
+  static int gallopLeft(int key, int[] ary, int base, int len, int hint) {
+    int lastOfs = 0;
+    int ofs = 1;
+    if (key > ary[base + hint]) {
+      int maxOfs = len - hint;
+      while (ofs < maxOfs && key > ary[base + hint + ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      lastOfs += hint;
+      ofs += hint;
+    } else {
+      int maxOfs = hint + 1;
+      while (ofs < maxOfs && key <= ary[base + hint - ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      int tmp = lastOfs;
+      lastOfs = hint - ofs;
+      ofs = hint - tmp;
+    }
+
+    lastOfs++;
+    while (lastOfs < ofs) {
+      int m = lastOfs + ((ofs - lastOfs) >>> 1);
+      if (key > ary[base + m]) lastOfs = m + 1;
+      else ofs = m;
+    }
+    return ofs;
+  }
+
+  //  a[base + k - 1] <= key < a[base + k], 相等的元素返回最右边的位置, 保证稳定.
+  static int gallopRight(int key, int[] ary, int base, int len, int hint) {
+    int ofs = 1;
+    int lastOfs = 0;
+    if (key < ary[base + hint]) {
+      int maxOfs = hint + 1;
+      while (ofs < maxOfs && key < ary[base + hint - ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      int tmp = lastOfs;
+      lastOfs = hint - ofs;
+      ofs = hint - tmp;
+    } else {
+      int maxOfs = len - hint;
+      while (ofs < maxOfs && key >= ary[base + hint + ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      lastOfs += hint;
+      ofs += hint;
+    }
+
+    lastOfs++;
+    while (lastOfs < ofs) {
+      int m = lastOfs + ((ofs - lastOfs) >>> 1);
+      if (key < ary[base + m]) ofs = m;
+      else lastOfs = m + 1;
+    }
+    return ofs;
+  }
+
+  static int gallopLeft(long key, long[] ary, int base, int len, int hint) {
+    int lastOfs = 0;
+    int ofs = 1;
+    if (key > ary[base + hint]) {
+      int maxOfs = len - hint;
+      while (ofs < maxOfs && key > ary[base + hint + ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      lastOfs += hint;
+      ofs += hint;
+    } else {
+      int maxOfs = hint + 1;
+      while (ofs < maxOfs && key <= ary[base + hint - ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      int tmp = lastOfs;
+      lastOfs = hint - ofs;
+      ofs = hint - tmp;
+    }
+
+    lastOfs++;
+    while (lastOfs < ofs) {
+      int m = lastOfs + ((ofs - lastOfs) >>> 1);
+      if (key > ary[base + m]) lastOfs = m + 1;
+      else ofs = m;
+    }
+    return ofs;
+  }
+
+  static int gallopRight(long key, long[] ary, int base, int len, int hint) {
+    int ofs = 1;
+    int lastOfs = 0;
+    if (key < ary[base + hint]) {
+      int maxOfs = hint + 1;
+      while (ofs < maxOfs && key < ary[base + hint - ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      int tmp = lastOfs;
+      lastOfs = hint - ofs;
+      ofs = hint - tmp;
+    } else {
+      int maxOfs = len - hint;
+      while (ofs < maxOfs && key >= ary[base + hint + ofs]) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      lastOfs += hint;
+      ofs += hint;
+    }
+
+    lastOfs++;
+    while (lastOfs < ofs) {
+      int m = lastOfs + ((ofs - lastOfs) >>> 1);
+      if (key < ary[base + m]) ofs = m;
+      else lastOfs = m + 1;
+    }
+    return ofs;
+  }
+
+  static <T> int gallopLeft(
+      T key, T[] ary, int base, int len, int hint, Comparator<? super T> c) {
+    int lastOfs = 0;
+    int ofs = 1;
+    if (c.compare(key, ary[base + hint]) > 0) {
+      int maxOfs = len - hint;
+      while (ofs < maxOfs && c.compare(key, ary[base + hint + ofs]) > 0) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      lastOfs += hint;
+      ofs += hint;
+    } else {
+      int maxOfs = hint + 1;
+      while (ofs < maxOfs && c.compare(key, ary[base + hint - ofs]) <= 0) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      int tmp = lastOfs;
+      lastOfs = hint - ofs;
+      ofs = hint - tmp;
+    }
+
+    lastOfs++;
+    while (lastOfs < ofs) {
+      int m = lastOfs + ((ofs - lastOfs) >>> 1);
+      if (c.compare(key, ary[base + m]) > 0) lastOfs = m + 1;
+      else ofs = m;
+    }
+    return ofs;
+  }
+
+  static <T> int gallopRight(
+      T key, T[] ary, int base, int len, int hint, Comparator<? super T> c) {
+    int ofs = 1;
+    int lastOfs = 0;
+    if (c.compare(key, ary[base + hint]) < 0) {
+      int maxOfs = hint + 1;
+      while (ofs < maxOfs && c.compare(key, ary[base + hint - ofs]) < 0) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      int tmp = lastOfs;
+      lastOfs = hint - ofs;
+      ofs = hint - tmp;
+    } else {
+      int maxOfs = len - hint;
+      while (ofs < maxOfs && c.compare(key, ary[base + hint + ofs]) >= 0) {
+        lastOfs = ofs;
+        ofs = (ofs << 1) + 1;
+        if (ofs <= 0) ofs = maxOfs;
+      }
+      if (ofs > maxOfs) ofs = maxOfs;
+      lastOfs += hint;
+      ofs += hint;
+    }
+
+    lastOfs++;
+    while (lastOfs < ofs) {
+      int m = lastOfs + ((ofs - lastOfs) >>> 1);
+      if (c.compare(key, ary[base + m]) < 0) ofs = m;
+      else lastOfs = m + 1;
+    }
+    return ofs;
+  }
+
+  // 一次排序过程中的状态: run 栈, 临时 buffer 和自适应的 galloping 阈值
+  private static final class Merger {
+    private final int[] ary;
+    private final int length;
+    private int[] tmp;
+    private int minGallop = MIN_GALLOP;
+
+    private final int[] runBase = new int[MAX_RUNS];
+    private final int[] runLen = new int[MAX_RUNS];
+    private int stackSize = 0;
+
+    Merger(int[] ary, int length, int[] tmp) {
+      this.ary = ary;
+      this.length = length;
+      this.tmp = tmp;
+    }
+
+    void pushRun(int base, int len) {
+      runBase[stackSize] = base;
+      runLen[stackSize] = len;
+      stackSize++;
+    }
+
+    //  维护栈顶几个 run 的不变式 (从栈顶往下记为 Z, Y, X, W):
+    //  1. X > Y + Z   2. W > X + Y   3. Y > Z
+    //  不满足时合并 Y 和 X, Z 中较短的那个.
+    void mergeCollapse() {
+      while (stackSize > 1) {
+        int n = stackSize - 2;
+        if ((n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1])
+            || (n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1])) {
+          if (runLen[n - 1] < runLen[n + 1]) n--;
+        } else if (runLen[n] > runLen[n + 1]) {
+          break;
+        }
+        mergeAt(n);
+      }
+    }
+
+    void mergeForceCollapse() {
+      while (stackSize > 1) {
+        int n = stackSize - 2;
+        if (n > 0 && runLen[n - 1] < runLen[n + 1]) n--;
+        mergeAt(n);
+      }
+    }
+
+    // 合并栈上第 i 和 i + 1 个 run
+    private void mergeAt(int i) {
+      int base1 = runBase[i];
+      int len1 = runLen[i];
+      int base2 = runBase[i + 1];
+      int len2 = runLen[i + 1];
+
+      runLen[i] = len1 + len2;
+      if (i == stackSize - 3) {
+        runBase[i + 1] = runBase[i + 2];
+        runLen[i + 1] = runLen[i + 2];
+      }
+      stackSize--;
+
+      // run1 中比 run2 第一个元素还小的前缀已经在最终位置上
+      int k = gallopRight(ary[base2], ary, base1, len1, 0);
+      base1 += k;
+      len1 -= k;
+      if (len1 == 0) return;
+
+      // run2 中比 run1 最后一个元素还大的后缀也已经在最终位置上
+      len2 = gallopLeft(ary[base1 + len1 - 1], ary, base2, len2, len2 - 1);
+      if (len2 == 0) return;
+
+      if (len1 <= len2) mergeLo(base1, len1, base2, len2);
+      else mergeHi(base1, len1, base2, len2);
+    }
+
+    //  run1 较短: 把 run1 拷进 tmp, 从左往右合并.
+    //  进入时 ary[base1] > ary[base2], run1 的最后一个元素比 run2 中所有元素都大.
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+      int[] a = ary;
+      int[] t = ensureCapacity(len1);
+      System.arraycopy(a, base1, t, 0, len1);
+      int cursor1 = 0;
+      int cursor2 = base2;
+      int dest = base1;
+
+      a[dest++] = a[cursor2++];
+      if (--len2 == 0) {
+        System.arraycopy(t, cursor1, a, dest, len1);
+        return;
+      }
+      if (len1 == 1) {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = t[cursor1];
+        return;
+      }
+
+      int minGallop = this.minGallop;
+      outer:
+      while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        // 一对一比较, 直到某一边连续赢了 minGallop 次
+        do {
+          if (a[cursor2] < t[cursor1]) {
+            a[dest++] = a[cursor2++];
+            count2++;
+            count1 = 0;
+            if (--len2 == 0) break outer;
+          } else {
+            a[dest++] = t[cursor1++];
+            count1++;
+            count2 = 0;
+            if (--len1 == 1) break outer;
+          }
+        } while ((count1 | count2) < minGallop);
+
+        // galloping: 直接找出一边能连续搬多少个, 用 arraycopy 整段搬过去
+        do {
+          count1 = gallopRight(a[cursor2], t, cursor1, len1, 0);
+          if (count1 != 0) {
+            System.arraycopy(t, cursor1, a, dest, count1);
+            dest += count1;
+            cursor1 += count1;
+            len1 -= count1;
+            if (len1 <= 1) break outer;
+          }
+          a[dest++] = a[cursor2++];
+          if (--len2 == 0) break outer;
+
+          count2 = gallopLeft(t[cursor1], a, cursor2, len2, 0);
+          if (count2 != 0) {
+            System.arraycopy(a, cursor2, a, dest, count2);
+            dest += count2;
+            cursor2 += count2;
+            len2 -= count2;
+            if (len2 == 0) break outer;
+          }
+          a[dest++] = t[cursor1++];
+          if (--len1 == 1) break outer;
+          minGallop--;
+        } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0) minGallop = 0;
+        // 离开 galloping 模式的惩罚
+        minGallop += 2;
+      }
+      this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+      if (len1 == 1) {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = t[cursor1];
+      } else {
+        System.arraycopy(t, cursor1, a, dest, len1);
+      }
+    }
+
+    // run2 较短: 把 run2 拷进 tmp, 从右往左合并
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+      int[] a = ary;
+      int[] t = ensureCapacity(len2);
+      System.arraycopy(a, base2, t, 0, len2);
+
+      int cursor1 = base1 + len1 - 1;
+      int cursor2 = len2 - 1;
+      int dest = base2 + len2 - 1;
+
+      a[dest--] = a[cursor1--];
+      if (--len1 == 0) {
+        System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+        return;
+      }
+      if (len2 == 1) {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = t[cursor2];
+        return;
+      }
+
+      int minGallop = this.minGallop;
+      outer:
+      while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        do {
+          if (t[cursor2] < a[cursor1]) {
+            a[dest--] = a[cursor1--];
+            count1++;
+            count2 = 0;
+            if (--len1 == 0) break outer;
+          } else {
+            a[dest--] = t[cursor2--];
+            count2++;
+            count1 = 0;
+            if (--len2 == 1) break outer;
+          }
+        } while ((count1 | count2) < minGallop);
+
+        do {
+          count1 = len1 - gallopRight(t[cursor2], a, base1, len1, len1 - 1);
+          if (count1 != 0) {
+            dest -= count1;
+            cursor1 -= count1;
+            len1 -= count1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+            if (len1 == 0) break outer;
+          }
+          a[dest--] = t[cursor2--];
+          if (--len2 == 1) break outer;
+
+          count2 = len2 - gallopLeft(a[cursor1], t, 0, len2, len2 - 1);
+          if (count2 != 0) {
+            dest -= count2;
+            cursor2 -= count2;
+            len2 -= count2;
+            System.arraycopy(t, cursor2 + 1, a, dest + 1, count2);
+            if (len2 <= 1) break outer;
+          }
+          a[dest--] = a[cursor1--];
+          if (--len1 == 0) break outer;
+          minGallop--;
+        } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0) minGallop = 0;
+        minGallop += 2;
+      }
+      this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+      if (len2 == 1) {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = t[cursor2];
+      } else {
+        System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+      }
+    }
+
+    private int[] ensureCapacity(int minCapacity) {
+      if (tmp == null) tmp = new int[Math.max(minCapacity, length >>> 1)];
+      return tmp;
+    }
+  }
+
+  private static final class LongMerger {
+    private final long[] ary;
+    private final int length;
+    private long[] tmp;
+    private int minGallop = MIN_GALLOP;
+
+    private final int[] runBase = new int[MAX_RUNS];
+    private final int[] runLen = new int[MAX_RUNS];
+    private int stackSize = 0;
+
+    LongMerger(long[] ary, int length, long[] tmp) {
+      this.ary = ary;
+      this.length = length;
+      this.tmp = tmp;
+    }
+
+    void pushRun(int base, int len) {
+      runBase[stackSize] = base;
+      runLen[stackSize] = len;
+      stackSize++;
+    }
+
+    void mergeCollapse() {
+      while (stackSize > 1) {
+        int n = stackSize - 2;
+        if ((n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1])
+            || (n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1])) {
+          if (runLen[n - 1] < runLen[n + 1]) n--;
+        } else if (runLen[n] > runLen[n + 1]) {
+          break;
+        }
+        mergeAt(n);
+      }
+    }
+
+    void mergeForceCollapse() {
+      while (stackSize > 1) {
+        int n = stackSize - 2;
+        if (n > 0 && runLen[n - 1] < runLen[n + 1]) n--;
+        mergeAt(n);
+      }
+    }
+
+    private void mergeAt(int i) {
+      int base1 = runBase[i];
+      int len1 = runLen[i];
+      int base2 = runBase[i + 1];
+      int len2 = runLen[i + 1];
+
+      runLen[i] = len1 + len2;
+      if (i == stackSize - 3) {
+        runBase[i + 1] = runBase[i + 2];
+        runLen[i + 1] = runLen[i + 2];
+      }
+      stackSize--;
+
+      int k = gallopRight(ary[base2], ary, base1, len1, 0);
+      base1 += k;
+      len1 -= k;
+      if (len1 == 0) return;
+
+      len2 = gallopLeft(ary[base1 + len1 - 1], ary, base2, len2, len2 - 1);
+      if (len2 == 0) return;
+
+      if (len1 <= len2) mergeLo(base1, len1, base2, len2);
+      else mergeHi(base1, len1, base2, len2);
+    }
+
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+      long[] a = ary;
+      long[] t = ensureCapacity(len1);
+      System.arraycopy(a, base1, t, 0, len1);
+      int cursor1 = 0;
+      int cursor2 = base2;
+      int dest = base1;
+
+      a[dest++] = a[cursor2++];
+      if (--len2 == 0) {
+        System.arraycopy(t, cursor1, a, dest, len1);
+        return;
+      }
+      if (len1 == 1) {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = t[cursor1];
+        return;
+      }
+
+      int minGallop = this.minGallop;
+      outer:
+      while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        do {
+          if (a[cursor2] < t[cursor1]) {
+            a[dest++] = a[cursor2++];
+            count2++;
+            count1 = 0;
+            if (--len2 == 0) break outer;
+          } else {
+            a[dest++] = t[cursor1++];
+            count1++;
+            count2 = 0;
+            if (--len1 == 1) break outer;
+          }
+        } while ((count1 | count2) < minGallop);
+
+        do {
+          count1 = gallopRight(a[cursor2], t, cursor1, len1, 0);
+          if (count1 != 0) {
+            System.arraycopy(t, cursor1, a, dest, count1);
+            dest += count1;
+            cursor1 += count1;
+            len1 -= count1;
+            if (len1 <= 1) break outer;
+          }
+          a[dest++] = a[cursor2++];
+          if (--len2 == 0) break outer;
+
+          count2 = gallopLeft(t[cursor1], a, cursor2, len2, 0);
+          if (count2 != 0) {
+            System.arraycopy(a, cursor2, a, dest, count2);
+            dest += count2;
+            cursor2 += count2;
+            len2 -= count2;
+            if (len2 == 0) break outer;
+          }
+          a[dest++] = t[cursor1++];
+          if (--len1 == 1) break outer;
+          minGallop--;
+        } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0) minGallop = 0;
+        minGallop += 2;
+      }
+      this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+      if (len1 == 1) {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = t[cursor1];
+      } else {
+        System.arraycopy(t, cursor1, a, dest, len1);
+      }
+    }
+
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+      long[] a = ary;
+      long[] t = ensureCapacity(len2);
+      System.arraycopy(a, base2, t, 0, len2);
+
+      int cursor1 = base1 + len1 - 1;
+      int cursor2 = len2 - 1;
+      int dest = base2 + len2 - 1;
+
+      a[dest--] = a[cursor1--];
+      if (--len1 == 0) {
+        System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+        return;
+      }
+      if (len2 == 1) {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = t[cursor2];
+        return;
+      }
+
+      int minGallop = this.minGallop;
+      outer:
+      while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        do {
+          if (t[cursor2] < a[cursor1]) {
+            a[dest--] = a[cursor1--];
+            count1++;
+            count2 = 0;
+            if (--len1 == 0) break outer;
+          } else {
+            a[dest--] = t[cursor2--];
+            count2++;
+            count1 = 0;
+            if (--len2 == 1) break outer;
+          }
+        } while ((count1 | count2) < minGallop);
+
+        do {
+          count1 = len1 - gallopRight(t[cursor2], a, base1, len1, len1 - 1);
+          if (count1 != 0) {
+            dest -= count1;
+            cursor1 -= count1;
+            len1 -= count1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+            if (len1 == 0) break outer;
+          }
+          a[dest--] = t[cursor2--];
+          if (--len2 == 1) break outer;
+
+          count2 = len2 - gallopLeft(a[cursor1], t, 0, len2, len2 - 1);
+          if (count2 != 0) {
+            dest -= count2;
+            cursor2 -= count2;
+            len2 -= count2;
+            System.arraycopy(t, cursor2 + 1, a, dest + 1, count2);
+            if (len2 <= 1) break outer;
+          }
+          a[dest--] = a[cursor1--];
+          if (--len1 == 0) break outer;
+          minGallop--;
+        } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0) minGallop = 0;
+        minGallop += 2;
+      }
+      this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+      if (len2 == 1) {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = t[cursor2];
+      } else {
+        System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+      }
+    }
+
+    private long[] ensureCapacity(int minCapacity) {
+      if (tmp == null) tmp = new long[Math.max(minCapacity, length >>> 1)];
+      return tmp;
+    }
+  }
+
+  private static final class ObjectMerger<T> {
+    private final T[] ary;
+    private final int length;
+    private final Comparator<? super T> c;
+    private T[] tmp;
+    private int minGallop = MIN_GALLOP;
+
+    private final int[] runBase = new int[MAX_RUNS];
+    private final int[] runLen = new int[MAX_RUNS];
+    private int stackSize = 0;
+
+    ObjectMerger(T[] ary, int length, Comparator<? super T> c) {
+      this.ary = ary;
+      this.length = length;
+      this.c = c;
+    }
+
+    void pushRun(int base, int len) {
+      runBase[stackSize] = base;
+      runLen[stackSize] = len;
+      stackSize++;
+    }
+
+    void mergeCollapse() {
+      while (stackSize > 1) {
+        int n = stackSize - 2;
+        if ((n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1])
+            || (n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1])) {
+          if (runLen[n - 1] < runLen[n + 1]) n--;
+        } else if (runLen[n] > runLen[n + 1]) {
+          break;
+        }
+        mergeAt(n);
+      }
+    }
+
+    void mergeForceCollapse() {
+      while (stackSize > 1) {
+        int n = stackSize - 2;
+        if (n > 0 && runLen[n - 1] < runLen[n + 1]) n--;
+        mergeAt(n);
+      }
+    }
+
+    private void mergeAt(int i) {
+      int base1 = runBase[i];
+      int len1 = runLen[i];
+      int base2 = runBase[i + 1];
+      int len2 = runLen[i + 1];
+
+      runLen[i] = len1 + len2;
+      if (i == stackSize - 3) {
+        runBase[i + 1] = runBase[i + 2];
+        runLen[i + 1] = runLen[i + 2];
+      }
+      stackSize--;
+
+      int k = gallopRight(ary[base2], ary, base1, len1, 0, c);
+      base1 += k;
+      len1 -= k;
+      if (len1 == 0) return;
+
+      len2 = gallopLeft(ary[base1 + len1 - 1], ary, base2, len2, len2 - 1, c);
+      if (len2 == 0) return;
+
+      if (len1 <= len2) mergeLo(base1, len1, base2, len2);
+      else mergeHi(base1, len1, base2, len2);
+    }
+
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+      T[] a = ary;
+      T[] t = ensureCapacity(len1);
+      System.arraycopy(a, base1, t, 0, len1);
+      int cursor1 = 0;
+      int cursor2 = base2;
+      int dest = base1;
+
+      a[dest++] = a[cursor2++];
+      if (--len2 == 0) {
+        System.arraycopy(t, cursor1, a, dest, len1);
+        return;
+      }
+      if (len1 == 1) {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = t[cursor1];
+        return;
+      }
+
+      int minGallop = this.minGallop;
+      outer:
+      while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        do {
+          if (c.compare(a[cursor2], t[cursor1]) < 0) {
+            a[dest++] = a[cursor2++];
+            count2++;
+            count1 = 0;
+            if (--len2 == 0) break outer;
+          } else {
+            a[dest++] = t[cursor1++];
+            count1++;
+            count2 = 0;
+            if (--len1 == 1) break outer;
+          }
+        } while ((count1 | count2) < minGallop);
+
+        do {
+          count1 = gallopRight(a[cursor2], t, cursor1, len1, 0, c);
+          if (count1 != 0) {
+            System.arraycopy(t, cursor1, a, dest, count1);
+            dest += count1;
+            cursor1 += count1;
+            len1 -= count1;
+            if (len1 <= 1) break outer;
+          }
+          a[dest++] = a[cursor2++];
+          if (--len2 == 0) break outer;
+
+          count2 = gallopLeft(t[cursor1], a, cursor2, len2, 0, c);
+          if (count2 != 0) {
+            System.arraycopy(a, cursor2, a, dest, count2);
+            dest += count2;
+            cursor2 += count2;
+            len2 -= count2;
+            if (len2 == 0) break outer;
+          }
+          a[dest++] = t[cursor1++];
+          if (--len1 == 1) break outer;
+          minGallop--;
+        } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0) minGallop = 0;
+        minGallop += 2;
+      }
+      this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+      if (len1 == 1) {
+        System.arraycopy(a, cursor2, a, dest, len2);
+        a[dest + len2] = t[cursor1];
+      } else {
+        System.arraycopy(t, cursor1, a, dest, len1);
+      }
+    }
+
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+      T[] a = ary;
+      T[] t = ensureCapacity(len2);
+      System.arraycopy(a, base2, t, 0, len2);
+
+      int cursor1 = base1 + len1 - 1;
+      int cursor2 = len2 - 1;
+      int dest = base2 + len2 - 1;
+
+      a[dest--] = a[cursor1--];
+      if (--len1 == 0) {
+        System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+        return;
+      }
+      if (len2 == 1) {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = t[cursor2];
+        return;
+      }
+
+      int minGallop = this.minGallop;
+      outer:
+      while (true) {
+        int count1 = 0;
+        int count2 = 0;
+
+        do {
+          if (c.compare(t[cursor2], a[cursor1]) < 0) {
+            a[dest--] = a[cursor1--];
+            count1++;
+            count2 = 0;
+            if (--len1 == 0) break outer;
+          } else {
+            a[dest--] = t[cursor2--];
+            count2++;
+            count1 = 0;
+            if (--len2 == 1) break outer;
+          }
+        } while ((count1 | count2) < minGallop);
+
+        do {
+          count1 = len1 - gallopRight(t[cursor2], a, base1, len1, len1 - 1, c);
+          if (count1 != 0) {
+            dest -= count1;
+            cursor1 -= count1;
+            len1 -= count1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+            if (len1 == 0) break outer;
+          }
+          a[dest--] = t[cursor2--];
+          if (--len2 == 1) break outer;
+
+          count2 = len2 - gallopLeft(a[cursor1], t, 0, len2, len2 - 1, c);
+          if (count2 != 0) {
+            dest -= count2;
+            cursor2 -= count2;
+            len2 -= count2;
+            System.arraycopy(t, cursor2 + 1, a, dest + 1, count2);
+            if (len2 <= 1) break outer;
+          }
+          a[dest--] = a[cursor1--];
+          if (--len1 == 0) break outer;
+          minGallop--;
+        } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0) minGallop = 0;
+        minGallop += 2;
+      }
+      this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+      if (len2 == 1) {
+        dest -= len1;
+        cursor1 -= len1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+        a[dest] = t[cursor2];
+      } else {
+        System.arraycopy(t, 0, a, dest - (len2 - 1), len2);
+      }
+    }
+
+    private T[] ensureCapacity(int minCapacity) {
+      if (tmp == null) tmp = newTmp(Math.max(minCapacity, length >>> 1));
+      return tmp;
+    }
+
+    // tmp 只在 merge 内部使用, 不会流到外面, 所以可以用 Object[] 冒充 T[]
+    @SuppressWarnings("unchecked")
+    private T[] newTmp(int n) {
+      return (T[]) new Object[n];
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.datastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A hierarchical timer wheel that schedules timers by deadline in O(1) and expires them in
+ * amortized O(1), instead of keeping them in a priority queue.
+ *
+ * <p>Each level is an array of buckets covering a span of time: seconds, minutes, hours, days and
+ * one bucket for everything further out. A timer goes into the bucket of the smallest level whose
+ * span is larger than the time left until its deadline. When the wheel advances, the buckets that
+ * were passed are emptied; timers that are due are handed to the caller, the others move down to a
+ * finer level. Times are in nanoseconds, like System.nanoTime, and may be negative.
+ *
+ * <p>Timers are intrusive: a timer can be in at most one wheel, and is unlinked in O(1). The wheel
+ * is not thread-safe.
+ */
+final class TimerWheel<T extends TimerWheel.Timer> {
+
+  /** A node of the wheel. A timer that is not scheduled has no links. */
+  static class Timer {
+    long deadline;
+    Timer prev, next;
+
+    boolean isScheduled() {
+      return prev != null;
+    }
+  }
+
+  // 每一层的桶数, 以及每个桶的时间跨度 (都是 2 的幂, 约 1.07 秒, 1.14 分钟, 1.22 小时, 1.63 天)
+  static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  static final long[] SPANS = {1L << 30, 1L << 36, 1L << 42, 1L << 47, 1L << 49};
+  static final int[] SHIFTS = {
+    Long.numberOfTrailingZeros(SPANS[0]),
+    Long.numberOfTrailingZeros(SPANS[1]),
+    Long.numberOfTrailingZeros(SPANS[2]),
+    Long.numberOfTrailingZeros(SPANS[3]),
+    Long.numberOfTrailingZeros(SPANS[4]),
+  };
+
+  // 每个桶是一个带哨兵的循环双向链表
+  private final Timer[][] wheel;
+  private long nanos;
+
+  TimerWheel(long now) {
+    nanos = now;
+    wheel = new Timer[BUCKETS.length][];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new Timer[BUCKETS[i]];
+      for (int j = 0; j < BUCKETS[i]; j++) {
+        Timer sentinel = new Timer();
+        sentinel.prev = sentinel.next = sentinel;
+        wheel[i][j] = sentinel;
+      }
+    }
+  }
+
+  /** Schedules the timer at its deadline, moving it if it is already scheduled. */
+  void schedule(T timer) {
+    if (timer.isScheduled()) unlink(timer);
+    Timer sentinel = findBucket(timer.deadline);
+    timer.prev = sentinel.prev;
+    timer.next = sentinel;
+    sentinel.prev.next = timer;
+    sentinel.prev = timer;
+  }
+
+  void deschedule(T timer) {
+    if (timer.isScheduled()) unlink(timer);
+  }
+
+  private static void unlink(Timer timer) {
+    timer.prev.next = timer.next;
+    timer.next.prev = timer.prev;
+    timer.prev = timer.next = null;
+  }
+
+  //  找到时间差小于下一层跨度的最低一层, 桶的下标是 deadline 在这一层的刻度.
+  //  已经过期的 timer 放在第一层当前的桶里, 时间走到下一个刻度时就会处理它.
+  private Timer findBucket(long deadline) {
+    long duration = deadline - nanos;
+    if (duration < 0) deadline = nanos;
+    int last = wheel.length - 1;
+    for (int i = 0; i < last; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = deadline >> SHIFTS[i];
+        return wheel[i][(int) (ticks & (BUCKETS[i] - 1))];
+      }
+    }
+    return wheel[last][0];
+  }
+
+  /**
+   * Advances the wheel to now. Every due timer is unscheduled and passed to onExpired, which
+   * returns false if the timer should stay, in which case it is scheduled again.
+   */
+  @SuppressWarnings("unchecked")
+  void advance(long now, Predicate<? super T> onExpired) {
+    long previous = nanos;
+    nanos = now;
+    //  刻度用算术右移, 时间从负数走到正数时刻度也是递增的.
+    //  没到期 (或者被保留) 的 timer 等所有层都处理完再重新放, 一次 advance 里每个 timer 只处理一次.
+    List<Timer> retained = new ArrayList<>();
+    for (int i = 0; i < SHIFTS.length; i++) {
+      long previousTicks = previous >> SHIFTS[i];
+      long currentTicks = now >> SHIFTS[i];
+      long delta = currentTicks - previousTicks;
+      if (delta <= 0) break;
+      expire(i, previousTicks, delta, onExpired, retained);
+    }
+    for (Timer timer : retained) schedule((T) timer);
+  }
+
+  // 处理第 index 层从 previousTicks 起经过的 delta 个桶 (最多转一圈), 包括原来所在的桶
+  @SuppressWarnings("unchecked")
+  private void expire(
+      int index,
+      long previousTicks,
+      long delta,
+      Predicate<? super T> onExpired,
+      List<Timer> retained) {
+    Timer[] buckets = wheel[index];
+    int mask = buckets.length - 1;
+    int steps = (int) Math.min(delta + 1, buckets.length);
+    int start = (int) (previousTicks & mask);
+    for (int i = start; i < start + steps; i++) {
+      Timer sentinel = buckets[i & mask];
+      Timer timer = sentinel.next;
+      sentinel.prev = sentinel.next = sentinel;
+      while (timer != sentinel) {
+        Timer next = timer.next;
+        timer.prev = timer.next = null;
+        if (timer.deadline - nanos > 0 || !onExpired.test((T) timer)) retained.add(timer);
+        timer = next;
+      }
+    }
+  }
+}
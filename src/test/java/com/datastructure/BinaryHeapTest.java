@@ -3,6 +3,7 @@ package com.datastructure;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.PriorityQueue;
@@ -293,6 +294,66 @@ public class BinaryHeapTest {
     }
   }
 
+  @Test
+  public void testAddAll() {
+    // 小批量逐个上浮, 大批量整体重建, 两条路径都要覆盖
+    int[][] shapes = {{1000, 1}, {1000, 50}, {10, 1000}, {0, 100}, {100, 0}};
+    for (int[] shape : shapes) {
+      Integer[] initial = genRandArray(shape[0]);
+      BinaryHeap<Integer> pq = new BinaryHeap<>(initial);
+      PriorityQueue<Integer> PQ = new PriorityQueue<>(Arrays.asList(initial));
+      List<Integer> batch = genRandList(shape[1]);
+      pq.addAll(batch);
+      PQ.addAll(batch);
+      assertTrue(pq.isMinHeap(0));
+      assertEquals(PQ.size(), pq.size());
+      while (!PQ.isEmpty()) assertEquals(PQ.poll(), pq.poll());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddAllNull() {
+    BinaryHeap<Integer> pq = new BinaryHeap<>();
+    pq.addAll(Arrays.asList(1, null));
+  }
+
+  @Test
+  public void testPollN() {
+    List<Integer> lst = genRandList(100);
+    BinaryHeap<Integer> pq = new BinaryHeap<>();
+    pq.addAll(lst);
+    Collections.sort(lst);
+
+    List<Integer> out = new ArrayList<>();
+    assertEquals(10, pq.pollN(10, out::add));
+    assertEquals(lst.subList(0, 10), out);
+    assertTrue(pq.isMinHeap(0));
+    assertEquals(90, pq.pollN(1000, out::add));
+    assertEquals(lst, out);
+    assertEquals(0, pq.pollN(1, out::add));
+  }
+
+  @Test
+  public void testReplaceTop() {
+    BinaryHeap<Integer> pq = new BinaryHeap<>();
+    assertNull(pq.replaceTop(5));
+    assertEquals(Integer.valueOf(5), pq.peek());
+
+    // 用大小为 k 的最小堆保留流里最大的 k 个元素
+    int k = 20;
+    pq.clear();
+    List<Integer> stream = genRandList(5000);
+    for (int x : stream) {
+      if (pq.size() < k) pq.add(x);
+      else if (x > pq.peek()) pq.replaceTop(x);
+      assertTrue(pq.isMinHeap(0));
+    }
+    Collections.sort(stream);
+    List<Integer> top = new ArrayList<>();
+    pq.pollN(k, top::add);
+    assertEquals(stream.subList(stream.size() - k, stream.size()), top);
+  }
+
   static Integer[] genRandArray(int sz) {
     Integer[] lst = new Integer[sz];
     for (int i = 0; i < sz; i++) lst[i] = (int) (Math.random() * MAX_SZ);
@@ -0,0 +1,150 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class BoundedCacheTest {
+  static final Random RANDOM = new Random();
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation() {
+    new BoundedCache<Integer, Integer>(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullKey() {
+    new BoundedCache<Integer, Integer>(10).put(null, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullValue() {
+    new BoundedCache<Integer, Integer>(10).put(1, null);
+  }
+
+  @Test
+  public void testLruOrder() {
+    List<Integer> evicted = new ArrayList<>();
+    BoundedCache<Integer, String> cache =
+        new BoundedCache<>(3, BoundedCache.Policy.LRU, (k, v) -> 1, (k, v) -> evicted.add(k));
+    cache.put(1, "a");
+    cache.put(2, "b");
+    cache.put(3, "c");
+    assertEquals("a", cache.get(1));
+    cache.put(4, "d");
+    assertEquals(Arrays.asList(2), evicted);
+    assertEquals("c", cache.put(3, "cc"));
+    cache.put(5, "e");
+    cache.put(6, "f");
+    assertEquals(Arrays.asList(2, 1, 4), evicted);
+    assertEquals(3, cache.size());
+    assertEquals("cc", cache.get(3));
+    assertNull(cache.get(1));
+    assertEquals(3, cache.evictionCount());
+    assertEquals(2, cache.hitCount());
+    assertEquals(1, cache.missCount());
+  }
+
+  @Test
+  public void testRemoveDoesNotNotify() {
+    List<Integer> evicted = new ArrayList<>();
+    BoundedCache<Integer, Integer> cache =
+        new BoundedCache<>(10, BoundedCache.Policy.LRU, (k, v) -> 1, (k, v) -> evicted.add(k));
+    for (int i = 0; i < 10; i++) cache.put(i, i);
+    assertEquals(Integer.valueOf(5), cache.remove(5));
+    assertNull(cache.remove(5));
+    cache.clear();
+    assertTrue(cache.isEmpty());
+    assertEquals(0, cache.weightedSize());
+    assertTrue(evicted.isEmpty());
+    cache.put(1, 1);
+    assertEquals(Integer.valueOf(1), cache.get(1));
+  }
+
+  @Test
+  public void testWeights() {
+    for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+      long[] evictedWeight = {0};
+      BoundedCache<Integer, String> cache =
+          new BoundedCache<>(
+              100, policy, (k, v) -> v.length(), (k, v) -> evictedWeight[0] += v.length());
+      long putWeight = 0;
+      for (int i = 0; i < 1000; i++) {
+        String value = new String(new char[RANDOM.nextInt(20)]);
+        String old = cache.put(i, value);
+        assertNull(old);
+        putWeight += value.length();
+        assertTrue(cache.weightedSize() <= 100);
+        assertEquals(putWeight - evictedWeight[0], cache.weightedSize());
+      }
+      // 一个元素比整个 cache 还重, 放进去之后马上被淘汰
+      cache.put(-1, new String(new char[101]));
+      assertFalse(cache.containsKey(-1));
+    }
+  }
+
+  @Test
+  public void testZeroMaximum() {
+    for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+      BoundedCache<Integer, Integer> cache = new BoundedCache<>(0, policy);
+      cache.put(1, 1);
+      assertTrue(cache.isEmpty());
+      assertEquals(1, cache.evictionCount());
+    }
+  }
+
+  @Test
+  public void testTinyLfuResistsScans() {
+    BoundedCache<Integer, Integer> lfu = new BoundedCache<>(200);
+    BoundedCache<Integer, Integer> lru = new BoundedCache<>(200, BoundedCache.Policy.LRU);
+    for (BoundedCache<Integer, Integer> cache : Arrays.asList(lfu, lru)) {
+      // 100 个热点 key 反复访问, 然后扫描一遍大量只访问一次的 key
+      for (int round = 0; round < 10; round++) {
+        for (int key = 0; key < 100; key++) {
+          if (cache.get(key) == null) cache.put(key, key);
+        }
+      }
+      for (int key = 1000; key < 20000; key++) cache.put(key, key);
+    }
+    int lfuHot = 0, lruHot = 0;
+    for (int key = 0; key < 100; key++) {
+      if (lfu.containsKey(key)) lfuHot++;
+      if (lru.containsKey(key)) lruHot++;
+    }
+    assertEquals(0, lruHot);
+    assertTrue("hot keys kept: " + lfuHot, lfuHot >= 90);
+    assertEquals(200, lfu.size());
+  }
+
+  @Test
+  public void testRandomOperations() {
+    for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+      for (int loop = 0; loop < 20; loop++) {
+        int maximum = RANDOM.nextInt(100);
+        Map<Integer, Integer> live = new HashMap<>();
+        BoundedCache<Integer, Integer> cache =
+            new BoundedCache<>(
+                maximum,
+                policy,
+                (k, v) -> 1,
+                (k, v) -> assertEquals(live.remove(k), v));
+        for (int i = 0; i < 5000; i++) {
+          int key = (int) Math.abs(RANDOM.nextGaussian() * 100);
+          int op = RANDOM.nextInt(4);
+          if (op == 0) {
+            // put 里淘汰的元素 (包括刚放进去的这个) 会被 listener 从 live 中删掉
+            Integer old = live.put(key, i);
+            assertEquals(old, cache.put(key, i));
+          } else if (op == 1) {
+            assertEquals(live.remove(key), cache.remove(key));
+          } else {
+            assertEquals(live.get(key), cache.get(key));
+          }
+          assertEquals(live.size(), cache.size());
+          assertTrue(cache.size() <= maximum);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,293 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.*;
+
+public class ConcurrentBoundedCacheTest {
+  static final Random RANDOM = new Random();
+  static final int THREADS = 8;
+
+  private ExecutorService executor;
+  private final AtomicLong time = new AtomicLong();
+
+  @Before
+  public void setup() {
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRefreshRequiresLoader() {
+    ConcurrentBoundedCache.builder().refreshAfterWrite(1, TimeUnit.SECONDS).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalMaximum() {
+    ConcurrentBoundedCache.builder().maximumSize(-1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGetWithoutLoader() {
+    ConcurrentBoundedCache.<Integer, Integer>builder().build().get(1);
+  }
+
+  @Test
+  public void testBasicOperations() {
+    ConcurrentBoundedCache<String, Integer> cache =
+        ConcurrentBoundedCache.<String, Integer>builder().build();
+    assertNull(cache.put("a", 1));
+    assertEquals(Integer.valueOf(1), cache.put("a", 2));
+    assertEquals(Integer.valueOf(2), cache.getIfPresent("a"));
+    assertNull(cache.getIfPresent("b"));
+    assertEquals(Integer.valueOf(2), cache.remove("a"));
+    assertNull(cache.remove("a"));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.hitCount());
+    assertEquals(1, cache.missCount());
+    cache.cleanUp();
+    assertEquals(0, cache.weightedSize());
+  }
+
+  @Test
+  public void testLruEviction() {
+    List<Integer> evicted = new ArrayList<>();
+    ConcurrentBoundedCache<Integer, Integer> cache =
+        ConcurrentBoundedCache.<Integer, Integer>builder()
+            .maximumSize(3)
+            .evictionListener((k, v) -> evicted.add(k))
+            .build();
+    cache.put(1, 1);
+    cache.put(2, 2);
+    cache.put(3, 3);
+    assertEquals(Integer.valueOf(1), cache.getIfPresent(1));
+    cache.put(4, 4);
+    assertEquals(Arrays.asList(2), evicted);
+    for (int i = 5; i < 100; i++) cache.put(i, i);
+    cache.cleanUp();
+    assertEquals(3, cache.size());
+    assertEquals(96, cache.evictionCount());
+    for (int i = 97; i < 100; i++) assertEquals(Integer.valueOf(i), cache.getIfPresent(i));
+  }
+
+  @Test
+  public void testWeights() {
+    ConcurrentBoundedCache<Integer, String> cache =
+        ConcurrentBoundedCache.<Integer, String>builder()
+            .maximumWeight(100)
+            .weigher((k, v) -> v.length())
+            .build();
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, new String(new char[RANDOM.nextInt(20)]));
+      assertTrue(cache.weightedSize() <= 100);
+    }
+    cache.put(-1, new String(new char[101]));
+    cache.cleanUp();
+    assertNull(cache.getIfPresent(-1));
+  }
+
+  @Test
+  public void testExpireAfterWrite() {
+    List<Integer> expired = new ArrayList<>();
+    ConcurrentBoundedCache<Integer, Integer> cache =
+        ConcurrentBoundedCache.<Integer, Integer>builder()
+            .expireAfterWrite(3, TimeUnit.SECONDS)
+            .evictionListener((k, v) -> expired.add(k))
+            .ticker(time::get)
+            .build();
+    cache.put(1, 1);
+    advance(2, TimeUnit.SECONDS);
+    cache.put(2, 2);
+    assertEquals(Integer.valueOf(1), cache.getIfPresent(1));
+    advance(2, TimeUnit.SECONDS);
+    // 读不会延长写入过期
+    assertNull(cache.getIfPresent(1));
+    assertEquals(Integer.valueOf(2), cache.getIfPresent(2));
+    cache.cleanUp();
+    assertEquals(Arrays.asList(1), expired);
+    assertEquals(1, cache.size());
+
+    // 重新写入之后从头计时
+    assertNull(cache.put(1, 10));
+    advance(2, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertEquals(Integer.valueOf(10), cache.getIfPresent(1));
+    assertNull(cache.getIfPresent(2));
+    advance(2, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assertEquals(0, cache.size());
+    assertEquals(Arrays.asList(1, 2, 1), expired);
+  }
+
+  @Test
+  public void testExpireAfterAccess() {
+    ConcurrentBoundedCache<Integer, Integer> cache =
+        ConcurrentBoundedCache.<Integer, Integer>builder()
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .ticker(time::get)
+            .build();
+    cache.put(1, 1);
+    cache.put(2, 2);
+    for (int i = 0; i < 10; i++) {
+      advance(5, TimeUnit.MINUTES);
+      assertEquals(Integer.valueOf(1), cache.getIfPresent(1));
+      cache.cleanUp();
+    }
+    assertNull(cache.getIfPresent(2));
+    assertEquals(1, cache.size());
+    advance(11, TimeUnit.MINUTES);
+    cache.cleanUp();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testLongExpiryThroughWheelLevels() {
+    ConcurrentBoundedCache<Integer, Integer> cache =
+        ConcurrentBoundedCache.<Integer, Integer>builder()
+            .expireAfterWrite(30, TimeUnit.HOURS)
+            .ticker(time::get)
+            .build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, i);
+      advance(10, TimeUnit.MINUTES);
+    }
+    // 第 i 个元素在 30 小时 + 10i 分钟时过期
+    for (int step = 0; step < 100; step++) {
+      advance(7, TimeUnit.MINUTES);
+      cache.cleanUp();
+      long now = time.get();
+      int live = 0;
+      for (int i = 0; i < 100; i++) {
+        if (now - TimeUnit.MINUTES.toNanos(10 * i) < TimeUnit.HOURS.toNanos(30)) live++;
+      }
+      assertEquals(live, cache.size());
+    }
+  }
+
+  @Test
+  public void testLoadingGet() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    ConcurrentBoundedCache<Integer, Integer> cache =
+        ConcurrentBoundedCache.<Integer, Integer>builder()
+            .loader(
+                k -> {
+                  loads.incrementAndGet();
+                  return k < 0 ? null : k * 2;
+                })
+            .build();
+    assertNull(cache.get(-1));
+    assertEquals(0, cache.size());
+    int keys = 1000;
+    runConcurrently(
+        t -> {
+          for (int i = 0; i < keys; i++) {
+            int key = (i * 7 + t * 13) % keys;
+            assertEquals(Integer.valueOf(key * 2), cache.get(key));
+          }
+        });
+    assertEquals(keys + 1, loads.get());
+  }
+
+  @Test
+  public void testRefreshAfterWrite() {
+    AtomicInteger version = new AtomicInteger();
+    ConcurrentBoundedCache<String, Integer> cache =
+        ConcurrentBoundedCache.<String, Integer>builder()
+            .refreshAfterWrite(1, TimeUnit.MINUTES)
+            .loader(k -> version.incrementAndGet())
+            .executor(Runnable::run)
+            .ticker(time::get)
+            .build();
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertEquals(Integer.valueOf(1), cache.getIfPresent("a"));
+    advance(2, TimeUnit.MINUTES);
+    // 返回旧的值, 同时在 executor 上加载新的值
+    assertEquals(Integer.valueOf(1), cache.getIfPresent("a"));
+    assertEquals(Integer.valueOf(2), cache.getIfPresent("a"));
+    assertEquals(2, version.get());
+
+    // 刷新失败时保留旧的值
+    ConcurrentBoundedCache<String, Integer> failing =
+        ConcurrentBoundedCache.<String, Integer>builder()
+            .refreshAfterWrite(1, TimeUnit.MINUTES)
+            .loader(
+                k -> {
+                  if (version.incrementAndGet() > 3) throw new IllegalStateException();
+                  return 7;
+                })
+            .executor(Runnable::run)
+            .ticker(time::get)
+            .build();
+    assertEquals(Integer.valueOf(7), failing.get("a"));
+    advance(2, TimeUnit.MINUTES);
+    assertEquals(Integer.valueOf(7), failing.getIfPresent("a"));
+    assertEquals(Integer.valueOf(7), failing.getIfPresent("a"));
+  }
+
+  @Test
+  public void testConcurrentOperations() throws Exception {
+    int maximum = 500;
+    AtomicInteger evicted = new AtomicInteger();
+    ConcurrentBoundedCache<Integer, Integer> cache =
+        ConcurrentBoundedCache.<Integer, Integer>builder()
+            .maximumSize(maximum)
+            .evictionListener((k, v) -> evicted.incrementAndGet())
+            .build();
+    AtomicInteger removed = new AtomicInteger();
+    AtomicInteger inserted = new AtomicInteger();
+    runConcurrently(
+        t -> {
+          Random random = new Random(t);
+          for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(2000);
+            int op = random.nextInt(4);
+            if (op == 0) {
+              if (cache.put(key, key) == null) inserted.incrementAndGet();
+            } else if (op == 1) {
+              if (cache.remove(key) != null) removed.incrementAndGet();
+            } else {
+              Integer value = cache.getIfPresent(key);
+              if (value != null) assertEquals(Integer.valueOf(key), value);
+            }
+          }
+        });
+    cache.cleanUp();
+    assertTrue(cache.size() <= maximum);
+    assertEquals(cache.size(), cache.weightedSize());
+    assertEquals(evicted.get(), cache.evictionCount());
+    assertEquals(inserted.get() - removed.get() - evicted.get(), cache.size());
+  }
+
+  private void advance(long duration, TimeUnit unit) {
+    time.addAndGet(unit.toNanos(duration));
+  }
+
+  interface ThreadBody {
+    void run(int thread) throws Exception;
+  }
+
+  private void runConcurrently(ThreadBody body) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                body.run(thread);
+                return null;
+              }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+  }
+}
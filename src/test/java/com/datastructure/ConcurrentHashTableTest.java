@@ -0,0 +1,207 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.*;
+
+public class ConcurrentHashTableTest {
+  static final Random RANDOM = new Random();
+  static final int THREADS = 8;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setup() {
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullKey() {
+    new ConcurrentHashTable<Integer, Integer>().put(null, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullValue() {
+    new ConcurrentHashTable<Integer, Integer>().put(1, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation() {
+    new ConcurrentHashTable<Integer, Integer>(-1);
+  }
+
+  @Test
+  public void testAtomicOperations() {
+    ConcurrentHashTable<String, Integer> map = new ConcurrentHashTable<>();
+    assertNull(map.putIfAbsent("a", 1));
+    assertEquals(Integer.valueOf(1), map.putIfAbsent("a", 2));
+    assertEquals(Integer.valueOf(1), map.get("a"));
+
+    assertEquals(Integer.valueOf(3), map.computeIfAbsent("b", k -> 3));
+    assertEquals(Integer.valueOf(3), map.computeIfAbsent("b", k -> 4));
+    assertNull(map.computeIfAbsent("c", k -> null));
+    assertFalse(map.containsKey("c"));
+
+    assertEquals(Integer.valueOf(5), map.merge("d", 5, Integer::sum));
+    assertEquals(Integer.valueOf(12), map.merge("d", 7, Integer::sum));
+    assertNull(map.merge("d", 0, (a, b) -> null));
+    assertFalse(map.containsKey("d"));
+    assertEquals(2, map.size());
+
+    assertFalse(map.remove("a", 2));
+    assertFalse(map.remove("x", 1));
+    assertTrue(map.remove("a", 1));
+    assertFalse(map.containsKey("a"));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testRandomMapOperations() {
+    HashMap<Integer, Integer> jmap = new HashMap<>();
+    for (int loop = 0; loop < 200; loop++) {
+      ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>(RANDOM.nextInt(8));
+      jmap.clear();
+      for (int i = 0; i < 1000; i++) {
+        int key = RANDOM.nextInt(600) - 300;
+        int op = RANDOM.nextInt(4);
+        if (op == 0) assertEquals(jmap.put(key, i), map.put(key, i));
+        else if (op == 1) assertEquals(jmap.remove(key), map.remove(key));
+        else if (op == 2) assertEquals(jmap.putIfAbsent(key, i), map.putIfAbsent(key, i));
+        else assertEquals(jmap.merge(key, i, Integer::sum), map.merge(key, i, Integer::sum));
+        assertEquals(jmap.get(key), map.get(key));
+        assertEquals(jmap.size(), map.size());
+      }
+      assertEquals(new HashSet<>(jmap.keySet()), new HashSet<>(map.keys()));
+      map.clear();
+      assertTrue(map.isEmpty());
+    }
+  }
+
+  @Test
+  public void testConcurrentPutsWhileResizing() throws Exception {
+    // 从最小的表开始, 插入过程中会经历很多次并发扩容
+    ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>(0);
+    int perThread = 20000;
+    runConcurrently(
+        t -> {
+          for (int i = 0; i < perThread; i++) {
+            int key = t * perThread + i;
+            assertNull(map.put(key, key));
+            assertEquals(Integer.valueOf(key), map.get(key));
+          }
+        });
+    assertEquals(THREADS * perThread, map.size());
+    for (int key = 0; key < THREADS * perThread; key++) {
+      assertEquals(Integer.valueOf(key), map.get(key));
+    }
+    assertEquals(THREADS * perThread, map.keys().size());
+  }
+
+  @Test
+  public void testResizeStressWithMoreThreadsThanCores() throws Exception {
+    // 线程比核多, 线程经常在扩容的中途被换下, 才能碰到 startResize 里检查和 CAS 之间的窗口
+    int threads = Math.max(4 * Runtime.getRuntime().availableProcessors(), 16);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      for (int round = 0; round < 50; round++) {
+        ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>(0);
+        int perThread = 500;
+        runConcurrently(
+            pool,
+            threads,
+            t -> {
+              for (int i = 0; i < perThread; i++) {
+                int key = t * perThread + i;
+                assertNull(map.put(key, key));
+                if ((i & 7) == 0) Thread.yield();
+              }
+            });
+        assertEquals(threads * perThread, map.size());
+        for (int key = 0; key < threads * perThread; key++) {
+          assertEquals(Integer.valueOf(key), map.get(key));
+        }
+        assertEquals(threads * perThread, map.keys().size());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentComputeIfAbsentComputesOnce() throws Exception {
+    ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>(0);
+    AtomicInteger calls = new AtomicInteger();
+    int keys = 5000;
+    runConcurrently(
+        t -> {
+          for (int i = 0; i < keys; i++) {
+            int key = (i * 7 + t * 13) % keys;
+            Integer value =
+                map.computeIfAbsent(
+                    key,
+                    k -> {
+                      calls.incrementAndGet();
+                      return k * 2;
+                    });
+            assertEquals(Integer.valueOf(key * 2), value);
+          }
+        });
+    assertEquals(keys, calls.get());
+    assertEquals(keys, map.size());
+  }
+
+  @Test
+  public void testConcurrentMergeAndRemove() throws Exception {
+    ConcurrentHashTable<Integer, Integer> map = new ConcurrentHashTable<>();
+    int keys = 100;
+    int rounds = 5000;
+    runConcurrently(
+        t -> {
+          for (int i = 0; i < rounds; i++) map.merge(i % keys, 1, Integer::sum);
+          // 额外的 key 插入后再删除, 和 merge 在同样的 bin 上竞争
+          for (int i = 0; i < rounds; i++) {
+            int key = keys + t * rounds + i;
+            map.put(key, i);
+            assertEquals(Integer.valueOf(i), map.remove(key));
+          }
+        });
+    assertEquals(keys, map.size());
+    for (int key = 0; key < keys; key++) {
+      assertEquals(Integer.valueOf(THREADS * rounds / keys), map.get(key));
+    }
+  }
+
+  interface ThreadBody {
+    void run(int thread) throws Exception;
+  }
+
+  private void runConcurrently(ThreadBody body) throws Exception {
+    runConcurrently(executor, THREADS, body);
+  }
+
+  private static void runConcurrently(ExecutorService executor, int threads, ThreadBody body)
+      throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                body.run(thread);
+                return null;
+              }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,67 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class DaryHeapTest {
+  static final Random RANDOM = new Random();
+  static final int[] ARITIES = {2, 4, 8, 16};
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalArity() {
+    new DaryHeap<Integer>(3);
+  }
+
+  @Test
+  public void testEmpty() {
+    DaryHeap<Integer> q = new DaryHeap<>(8, 0, true);
+    assertTrue(q.isEmpty());
+    assertNull(q.poll());
+    assertNull(q.peek());
+  }
+
+  @Test
+  public void testHeapify() {
+    for (int arity : ARITIES) {
+      for (int n = 0; n < 200; n++) {
+        Integer[] values = new Integer[n];
+        PriorityQueue<Integer> expected = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) expected.add(values[i] = RANDOM.nextInt(50));
+        DaryHeap<Integer> q = new DaryHeap<>(arity, values);
+        assertTrue(q.isMinHeap(0));
+        while (!expected.isEmpty()) assertEquals(expected.poll(), q.poll());
+        assertTrue(q.isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void testRandomOperations() {
+    for (int arity : ARITIES) {
+      for (boolean aligned : new boolean[] {false, true}) {
+        DaryHeap<Integer> q = new DaryHeap<>(arity, 1, aligned);
+        PriorityQueue<Integer> expected = new PriorityQueue<>();
+        for (int i = 0; i < 10000; i++) {
+          int op = RANDOM.nextInt(5);
+          Integer value = RANDOM.nextInt(200);
+          if (op < 3) {
+            q.add(value);
+            expected.add(value);
+          } else if (op == 3) {
+            assertEquals(expected.remove(value), q.remove(value));
+          } else {
+            assertEquals(expected.peek(), q.peek());
+            assertEquals(expected.poll(), q.poll());
+          }
+          assertEquals(expected.size(), q.size());
+          assertEquals(expected.contains(value), q.contains(value));
+        }
+        assertTrue(q.isMinHeap(0));
+        q.clear();
+        assertEquals("[]", q.toString());
+      }
+    }
+  }
+}
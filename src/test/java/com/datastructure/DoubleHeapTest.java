@@ -0,0 +1,74 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class DoubleHeapTest {
+  static final Random RANDOM = new Random();
+  static final int LOOPS = 300;
+
+  @Test(expected = NoSuchElementException.class)
+  public void testPollEmpty() {
+    new DoubleHeap().poll();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCapacity() {
+    new DoubleHeap(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNaN() {
+    new DoubleHeap().add(Double.NaN);
+  }
+
+  @Test
+  public void testInfinities() {
+    DoubleHeap heap = new DoubleHeap(new double[] {1.5, Double.POSITIVE_INFINITY, -0.5});
+    heap.add(Double.NEGATIVE_INFINITY);
+    assertEquals(Double.NEGATIVE_INFINITY, heap.poll(), 0);
+    assertEquals(-0.5, heap.poll(), 0);
+    assertEquals(1.5, heap.poll(), 0);
+    assertEquals(Double.POSITIVE_INFINITY, heap.poll(), 0);
+  }
+
+  @Test
+  public void testHeapify() {
+    for (int n = 0; n < LOOPS; n++) {
+      double[] values = new double[n];
+      PriorityQueue<Double> expected = new PriorityQueue<>();
+      for (int i = 0; i < n; i++) {
+        values[i] = RANDOM.nextGaussian();
+        expected.add(values[i]);
+      }
+      DoubleHeap heap = new DoubleHeap(values);
+      assertTrue(heap.isMinHeap(0));
+      assertEquals(n, heap.size());
+      while (!expected.isEmpty()) assertEquals(expected.poll(), heap.poll(), 0);
+      assertTrue(heap.isEmpty());
+    }
+  }
+
+  @Test
+  public void testRandomOperations() {
+    DoubleHeap heap = new DoubleHeap(0);
+    PriorityQueue<Double> expected = new PriorityQueue<>();
+    for (int i = 0; i < 20000; i++) {
+      if (RANDOM.nextInt(3) > 0) {
+        double value = RANDOM.nextGaussian();
+        heap.add(value);
+        expected.add(value);
+      } else if (!expected.isEmpty()) {
+        assertEquals(expected.peek(), heap.peek(), 0);
+        assertEquals(expected.poll(), heap.poll(), 0);
+      }
+      assertEquals(expected.size(), heap.size());
+    }
+    assertTrue(heap.isMinHeap(0));
+    heap.clear();
+    assertTrue(heap.isEmpty());
+    assertEquals(0, heap.toArray().length);
+  }
+}
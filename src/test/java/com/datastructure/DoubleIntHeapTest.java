@@ -0,0 +1,64 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class DoubleIntHeapTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNaN() {
+    new DoubleIntHeap().add(Double.NaN, 1);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testPollEmpty() {
+    new DoubleIntHeap().poll();
+  }
+
+  @Test
+  public void testDijkstra() {
+    // 随机稀疏图, 与不带堆的 O(V^2) Dijkstra 比较
+    Random random = new Random(7);
+    int n = 300;
+    double[][] weight = new double[n][n];
+    for (double[] row : weight) Arrays.fill(row, Double.POSITIVE_INFINITY);
+    for (int i = 0; i < n * 5; i++) {
+      weight[random.nextInt(n)][random.nextInt(n)] = random.nextDouble() * 10;
+    }
+
+    double[] dist = new double[n];
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    dist[0] = 0;
+    DoubleIntHeap heap = new DoubleIntHeap();
+    heap.add(0, 0);
+    while (!heap.isEmpty()) {
+      double d = heap.peekKey();
+      int u = heap.poll();
+      if (d > dist[u]) continue;
+      for (int v = 0; v < n; v++) {
+        if (d + weight[u][v] < dist[v]) {
+          dist[v] = d + weight[u][v];
+          heap.add(dist[v], v);
+        }
+      }
+    }
+
+    double[] expected = new double[n];
+    boolean[] done = new boolean[n];
+    Arrays.fill(expected, Double.POSITIVE_INFINITY);
+    expected[0] = 0;
+    for (int round = 0; round < n; round++) {
+      int u = -1;
+      for (int v = 0; v < n; v++) {
+        if (!done[v] && (u < 0 || expected[v] < expected[u])) u = v;
+      }
+      done[u] = true;
+      for (int v = 0; v < n; v++) {
+        expected[v] = Math.min(expected[v], expected[u] + weight[u][v]);
+      }
+    }
+    assertArrayEquals(expected, dist, 1e-9);
+  }
+}
@@ -0,0 +1,56 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.*;
+
+public class HashTableMonitorTest {
+
+  @Test
+  public void testRegisterAndReadAttributes() throws Exception {
+    HashTableSeparateChaining<Integer, Integer> table = new HashTableSeparateChaining<>();
+    for (int i = 0; i < 1000; i++) table.put(i, i);
+    HashTableMonitor monitor = new HashTableMonitor(table::stats);
+    ObjectName name = monitor.register("test-table");
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      assertTrue(server.isRegistered(name));
+      assertEquals(1000, server.getAttribute(name, "Size"));
+      assertEquals(table.stats().getCapacity(), server.getAttribute(name, "Capacity"));
+      assertEquals(table.stats().getResizeCount(), server.getAttribute(name, "ResizeCount"));
+      long[] histogram = (long[]) server.getAttribute(name, "ProbeLengthHistogram");
+      assertEquals(HashTableStats.HISTOGRAM_SIZE, histogram.length);
+    } finally {
+      monitor.unregister();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+  }
+
+  @Test
+  public void testSnapshotIsReused() {
+    HashTableSeparateChaining<Integer, Integer> table = new HashTableSeparateChaining<>();
+    int[] calls = {0};
+    HashTableMonitor cached =
+        new HashTableMonitor(
+            () -> {
+              calls[0]++;
+              return table.stats();
+            },
+            1,
+            TimeUnit.HOURS);
+    table.put(1, 1);
+    assertEquals(1, cached.getSize());
+    table.put(2, 2);
+    assertEquals(1, cached.getSize());
+    assertEquals(1, calls[0]);
+
+    HashTableMonitor uncached = new HashTableMonitor(table::stats, 0, TimeUnit.SECONDS);
+    assertEquals(2, uncached.getSize());
+    table.put(3, 3);
+    assertEquals(3, uncached.getSize());
+  }
+}
@@ -0,0 +1,190 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+import java.util.*;
+import org.junit.*;
+
+public class HashTableOpenAddressingTest {
+
+  static class HashObject {
+    final int hash, data;
+
+    public HashObject(int hash, int data) {
+      this.hash = hash;
+      this.data = data;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      HashObject ho = (HashObject) o;
+      return hashCode() == ho.hashCode() && data == ho.data;
+    }
+  }
+
+  static final Random RANDOM = new Random();
+  static final int LOOPS = 2000;
+  static final int MAX_SIZE = 500;
+  static final int MAX_RAND_NUM = 300;
+
+  HashTableOpenAddressing<Integer, Integer> map;
+
+  @Before
+  public void setup() {
+    map = new HashTableOpenAddressing<>();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullKey() {
+    map.put(null, 5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation1() {
+    new HashTableOpenAddressing<>(-3, 0.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation2() {
+    new HashTableOpenAddressing<>(5, 1.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation3() {
+    new HashTableOpenAddressing<>(6, -0.5);
+  }
+
+  @Test
+  public void testLegalCreation() {
+    new HashTableOpenAddressing<>(0, 0.9).put(1, 1);
+    new HashTableOpenAddressing<>(6, 0.01).put(1, 1);
+  }
+
+  @Test
+  public void testUpdatingValue() {
+    map.add(1, 1);
+    assertTrue(1 == map.get(1));
+
+    map.add(1, 5);
+    assertTrue(5 == map.get(1));
+
+    map.add(1, -7);
+    assertTrue(-7 == map.get(1));
+    assertEquals(1, map.size());
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void testConcurrentModificationException() {
+    map.add(1, 1);
+    map.add(2, 1);
+    map.add(3, 1);
+    for (Integer key : map) map.add(4, 4);
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void testConcurrentModificationException2() {
+    map.add(1, 1);
+    map.add(2, 1);
+    map.add(3, 1);
+    for (Integer key : map) map.remove(2);
+  }
+
+  @Test
+  public void testCollidingKeys() {
+    // 所有 key 的 hash 都相同, 落在同一个探测序列上; 从中间删除之后后面的 key 还要能找到
+    HashTableOpenAddressing<HashObject, Integer> m = new HashTableOpenAddressing<>();
+    List<HashObject> objects = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      HashObject o = new HashObject(88, i);
+      objects.add(o);
+      assertNull(m.put(o, i));
+    }
+    for (int i = 0; i < 50; i += 3) assertEquals(Integer.valueOf(i), m.remove(objects.get(i)));
+    for (int i = 0; i < 50; i++) {
+      if (i % 3 == 0) assertFalse(m.containsKey(objects.get(i)));
+      else assertEquals(Integer.valueOf(i), m.get(objects.get(i)));
+    }
+    for (int i = 0; i < 50; i++) m.remove(objects.get(i));
+    assertTrue(m.isEmpty());
+  }
+
+  @Test
+  public void testKeysAndValues() {
+    for (int i = 0; i < 100; i++) map.put(i, i * 2);
+    List<Integer> keys = map.keys();
+    List<Integer> values = map.values();
+    assertEquals(100, keys.size());
+    for (int i = 0; i < keys.size(); i++) assertEquals(keys.get(i) * 2, (int) values.get(i));
+
+    Set<Integer> iterated = new HashSet<>();
+    for (Integer key : map) iterated.add(key);
+    assertEquals(new HashSet<>(keys), iterated);
+  }
+
+  @Test
+  public void testStats() {
+    for (int i = 0; i < 10000; i++) map.put(i, i);
+    HashTableStats stats = map.stats();
+    assertEquals(10000, stats.getSize());
+    assertTrue(stats.getResizeCount() > 0);
+    assertTrue(stats.getMeanProbeLength() >= 1);
+    long entries = 0, total = 0;
+    long[] histogram = stats.getProbeLengthHistogram();
+    for (int distance = 0; distance < histogram.length; distance++) {
+      entries += histogram[distance];
+      total += histogram[distance] * (distance + 1);
+    }
+    assertEquals(10000, entries);
+    // 大部分元素就在初始位置上
+    assertTrue(histogram[0] > 0);
+    if (stats.getMaxProbeLength() < HashTableStats.HISTOGRAM_SIZE) {
+      assertEquals(stats.getMeanProbeLength(), (double) total / entries, 1e-9);
+    }
+
+    // hash 相同的 key 排成一串, 最后一个离初始位置最远
+    HashTableOpenAddressing<HashObject, Integer> m = new HashTableOpenAddressing<>(64);
+    for (int i = 0; i < 20; i++) m.put(new HashObject(7, i), i);
+    stats = m.stats();
+    assertEquals(20, stats.getMaxProbeLength());
+    assertEquals(10.5, stats.getMeanProbeLength(), 1e-9);
+  }
+
+  @Test
+  public void testRandomMapOperations() {
+    HashMap<Integer, Integer> jmap = new HashMap<>();
+
+    for (int loop = 0; loop < LOOPS; loop++) {
+      map = new HashTableOpenAddressing<>(randInt(0, 16), 0.5 + RANDOM.nextDouble() * 0.45);
+      jmap.clear();
+
+      final double probability1 = Math.random();
+      final double probability2 = Math.random();
+
+      for (int i = 0; i < MAX_SIZE; i++) {
+        double r = Math.random();
+        int key = randInt(-MAX_RAND_NUM, MAX_RAND_NUM);
+
+        if (r < probability1) assertEquals(jmap.put(key, i), map.put(key, i));
+
+        assertEquals(jmap.get(key), map.get(key));
+        assertEquals(jmap.containsKey(key), map.containsKey(key));
+        assertEquals(jmap.size(), map.size());
+
+        if (r > probability2) assertEquals(jmap.remove(key), map.remove(key));
+
+        assertEquals(jmap.get(key), map.get(key));
+        assertEquals(jmap.containsKey(key), map.containsKey(key));
+        assertEquals(jmap.size(), map.size());
+      }
+      for (Integer key : jmap.keySet()) assertEquals(jmap.get(key), map.get(key));
+    }
+  }
+
+  static int randInt(int min, int max) {
+    return RANDOM.nextInt((max - min) + 1) + min;
+  }
+}
@@ -28,6 +28,30 @@ public class HashTableSeparateChainingTest {
     }
   }
 
+  // hash 全部相同, 但是可以比较大小的 key
+  static class ComparableHashObject implements Comparable<ComparableHashObject> {
+    final int data;
+
+    ComparableHashObject(int data) {
+      this.data = data;
+    }
+
+    @Override
+    public int hashCode() {
+      return 42;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ComparableHashObject && ((ComparableHashObject) o).data == data;
+    }
+
+    @Override
+    public int compareTo(ComparableHashObject o) {
+      return Integer.compare(data, o.data);
+    }
+  }
+
   static final Random RANDOM = new Random();
   static int LOOPS, MAX_SIZE, MAX_RAND_NUM;
 
@@ -69,6 +93,74 @@ public class HashTableSeparateChainingTest {
     new HashTableSeparateChaining<>(6, 0.9);
   }
 
+  @Test
+  public void testZeroCapacity() {
+    HashTableSeparateChaining<Integer, Integer> m = new HashTableSeparateChaining<>(0);
+    for (int i = 0; i < 100; i++) m.put(i, i);
+    for (int i = 0; i < 100; i++) assertEquals(Integer.valueOf(i), m.get(i));
+    assertEquals(100, m.size());
+  }
+
+  @Test
+  public void testLowEntropyHashes() {
+    // hashCode 只在高位不同, 取掩码之前要先 spread, 之后扩容时拆分 bucket 也要保留所有元素
+    HashTableSeparateChaining<HashObject, Integer> m = new HashTableSeparateChaining<>();
+    for (int i = 0; i < 5000; i++) m.put(new HashObject(i << 16, i), i);
+    assertEquals(5000, m.size());
+    for (int i = 0; i < 5000; i++) {
+      assertEquals(Integer.valueOf(i), m.get(new HashObject(i << 16, i)));
+    }
+    for (int i = 0; i < 5000; i += 2) m.remove(new HashObject(i << 16, i));
+    for (int i = 0; i < 5000; i++) assertEquals(i % 2 == 1, m.hasKey(new HashObject(i << 16, i)));
+  }
+
+  @Test
+  public void testTreeifiedBucket() {
+    // 所有 key 落在同一个 bucket 里, 转成树之后每次查找是 O(log n), 否则这个测试要跑很久
+    HashTableSeparateChaining<ComparableHashObject, Integer> m = new HashTableSeparateChaining<>();
+    int n = 30000;
+    for (int i = 0; i < n; i++) assertNull(m.put(new ComparableHashObject(i), i));
+    for (int i = 0; i < n; i++) {
+      assertEquals(Integer.valueOf(i), m.get(new ComparableHashObject(i)));
+    }
+    for (int i = 0; i < n; i += 2) {
+      assertEquals(Integer.valueOf(i), m.remove(new ComparableHashObject(i)));
+    }
+    assertEquals(n / 2, m.size());
+    for (int i = 0; i < n; i++) assertEquals(i % 2 == 1, m.hasKey(new ComparableHashObject(i)));
+
+    int count = 0;
+    for (ComparableHashObject key : m) {
+      assertEquals(1, key.data % 2);
+      count++;
+    }
+    assertEquals(n / 2, count);
+
+    // 删到只剩几个元素, 树换回链表之后照样能用
+    for (int i = 1; i < n - 6; i += 2) m.remove(new ComparableHashObject(i));
+    assertEquals(3, m.size());
+    assertEquals(3, m.keys().size());
+  }
+
+  @Test
+  public void testRandomCollidingKeys() {
+    // 只有几个不同的 hash, 可比较和不可比较的 key 混在一起, 反复经历转树, 拆分和退回链表
+    HashTableSeparateChaining<Object, Integer> m = new HashTableSeparateChaining<>();
+    HashMap<Object, Integer> jmap = new HashMap<>();
+    for (int i = 0; i < 50000; i++) {
+      int data = randInt(0, 400);
+      Object key =
+          RANDOM.nextBoolean()
+              ? new HashObject(data % 3, data)
+              : new ComparableHashObject(data);
+      if (RANDOM.nextInt(3) > 0) assertEquals(jmap.put(key, i), m.put(key, i));
+      else assertEquals(jmap.remove(key), m.remove(key));
+      assertEquals(jmap.get(key), m.get(key));
+      assertEquals(jmap.size(), m.size());
+    }
+    assertEquals(jmap.keySet(), new HashSet<>(m.keys()));
+  }
+
   @Test
   public void testUpdatingValue() {
 
@@ -124,6 +216,41 @@ public class HashTableSeparateChainingTest {
     }
   }
 
+  @Test
+  public void testStats() {
+    HashTableStats empty = map.stats();
+    assertEquals(0, empty.getSize());
+    assertEquals(0, empty.getMaxProbeLength());
+    assertEquals(empty.getCapacity(), empty.getEmptyBuckets());
+    assertEquals(empty.getCapacity(), empty.getProbeLengthHistogram()[0]);
+
+    for (int i = 0; i < 10000; i++) map.put(i, i);
+    HashTableStats stats = map.stats();
+    assertEquals(10000, stats.getSize());
+    assertTrue(stats.getResizeCount() > 0);
+    assertTrue(stats.getLoadFactor() <= 0.75);
+    // 连续的整数经过 spread 之后分布均匀, bucket 都很短
+    assertTrue(stats.getMeanProbeLength() < 2);
+    assertTrue(stats.getMaxProbeLength() < HashTableStats.HISTOGRAM_SIZE);
+    long buckets = 0, entries = 0;
+    long[] histogram = stats.getProbeLengthHistogram();
+    for (int length = 0; length < histogram.length; length++) {
+      buckets += histogram[length];
+      entries += histogram[length] * length;
+    }
+    assertEquals(stats.getCapacity(), buckets);
+    assertEquals(stats.getEmptyBuckets(), histogram[0]);
+    assertEquals(10000, entries);
+
+    // 全部冲突的 key 落在一个树化的 bucket 里
+    HashTableSeparateChaining<ComparableHashObject, Integer> m = new HashTableSeparateChaining<>();
+    for (int i = 0; i < 100; i++) m.put(new ComparableHashObject(i), i);
+    stats = m.stats();
+    assertEquals(100, stats.getMaxProbeLength());
+    assertEquals(1, stats.getTreeifiedBuckets());
+    assertEquals(1, stats.getProbeLengthHistogram()[HashTableStats.HISTOGRAM_SIZE - 1]);
+  }
+
   @Test(expected = ConcurrentModificationException.class)
   public void testConcurrentModificationException() {
     map.add(1, 1);
@@ -140,6 +267,127 @@ public class HashTableSeparateChainingTest {
     for (Integer key : map) map.remove(2);
   }
 
+  @Test(expected = ConcurrentModificationException.class)
+  public void testCursorConcurrentModification() {
+    map.add(1, 1);
+    map.add(2, 1);
+    for (HashTableSeparateChaining<Integer, Integer>.Cursor c = map.cursor(); c.advance(); ) {
+      map.remove(c.key());
+    }
+  }
+
+  @Test
+  public void testForEachAndCursor() {
+    for (int i = 0; i < 1000; i++) map.put(i, i * 3);
+    Map<Integer, Integer> seen = new HashMap<>();
+    map.forEach((k, v) -> assertNull(seen.put(k, v)));
+    assertEquals(1000, seen.size());
+    for (int i = 0; i < 1000; i++) assertEquals(Integer.valueOf(i * 3), seen.get(i));
+
+    // cursor 可以原地修改 value
+    int count = 0;
+    HashTableSeparateChaining<Integer, Integer>.Cursor c = map.cursor();
+    while (c.advance()) {
+      assertEquals(Integer.valueOf(c.key() * 3), c.setValue(c.key() + 1));
+      count++;
+    }
+    assertEquals(1000, count);
+    assertFalse(c.advance());
+    for (int i = 0; i < 1000; i++) assertEquals(Integer.valueOf(i + 1), map.get(i));
+
+    c.reset();
+    count = 0;
+    while (c.advance()) count++;
+    assertEquals(1000, count);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testCursorBeforeAdvance() {
+    map.put(1, 1);
+    map.cursor().key();
+  }
+
+  @Test
+  public void testSpliterator() {
+    int n = 20000;
+    for (int i = 0; i < n; i++) map.put(i, i);
+    Spliterator<Integer> spliterator = map.spliterator();
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+    assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+    assertEquals(n, spliterator.estimateSize());
+
+    Spliterator<Integer> prefix = spliterator.trySplit();
+    assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+    Set<Integer> keys = new HashSet<>();
+    prefix.forEachRemaining(k -> assertTrue(keys.add(k)));
+    while (spliterator.tryAdvance(k -> assertTrue(keys.add(k)))) ;
+    assertEquals(n, keys.size());
+
+    assertEquals(n, java.util.stream.StreamSupport.stream(map.spliterator(), true).count());
+    long sum =
+        java.util.stream.StreamSupport.stream(map.spliterator(), true)
+            .distinct()
+            .mapToLong(Integer::longValue)
+            .sum();
+    assertEquals((long) n * (n - 1) / 2, sum);
+
+    long values =
+        java.util.stream.StreamSupport.stream(map.entrySpliterator(), true)
+            .filter(e -> e.getKey().equals(e.getValue()))
+            .count();
+    assertEquals(n, values);
+  }
+
+  @Test
+  public void testRemoveIf() {
+    for (int i = 0; i < 1000; i++) map.put(i, i);
+    assertFalse(map.removeIf((k, v) -> k < 0));
+    assertTrue(map.removeIf((k, v) -> v % 3 == 0));
+    assertEquals(666, map.size());
+    for (int i = 0; i < 1000; i++) assertEquals(i % 3 != 0, map.containsKey(i));
+
+    // 所有 key 都在同一个树化的 bucket 里, 删掉大部分之后会变回链表
+    HashTableSeparateChaining<ComparableHashObject, Integer> m = new HashTableSeparateChaining<>();
+    for (int i = 0; i < 500; i++) m.put(new ComparableHashObject(i), i);
+    assertTrue(m.removeIf((k, v) -> v % 2 == 0));
+    assertEquals(250, m.size());
+    for (int i = 0; i < 500; i++) {
+      assertEquals(i % 2 != 0, m.containsKey(new ComparableHashObject(i)));
+    }
+    assertTrue(m.removeIf((k, v) -> v > 5));
+    assertEquals(3, m.size());
+    for (int i = 0; i < 500; i++) {
+      assertEquals(i % 2 != 0 && i <= 5, m.containsKey(new ComparableHashObject(i)));
+    }
+    m.put(new ComparableHashObject(1000), 1000);
+    assertEquals(Integer.valueOf(1000), m.remove(new ComparableHashObject(1000)));
+    assertEquals(3, m.size());
+  }
+
+  @Test
+  public void testRemoveIfThrowingFilter() {
+    for (int i = 0; i < 1000; i++) map.put(i, i);
+    int[] seen = {0};
+    try {
+      map.removeIf(
+          (k, v) -> {
+            if (++seen[0] == 500) throw new IllegalStateException();
+            return true;
+          });
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    // 已经摘掉的 entry 都要反映在 size 里
+    int live = 0;
+    for (int i = 0; i < 1000; i++) if (map.containsKey(i)) live++;
+    assertEquals(live, map.size());
+    assertEquals(501, live);
+    assertEquals(live, map.stats().getSize());
+    int iterated = 0;
+    for (Integer key : map) iterated++;
+    assertEquals(live, iterated);
+  }
+
   @Test
   public void randomRemove() {
 
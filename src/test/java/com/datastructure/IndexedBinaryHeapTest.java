@@ -0,0 +1,103 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class IndexedBinaryHeapTest {
+  static final Random RANDOM = new Random();
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateKeyIndex() {
+    IndexedBinaryHeap<Integer> heap = new IndexedBinaryHeap<>(4);
+    heap.insert(1, 10);
+    heap.insert(1, 20);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalKeyIndex() {
+    new IndexedBinaryHeap<Integer>(4).contains(4);
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testMissingKeyIndex() {
+    new IndexedBinaryHeap<Integer>(4).delete(2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecreaseKeyWithLargerValue() {
+    IndexedBinaryHeap<Integer> heap = new IndexedBinaryHeap<>(4);
+    heap.insert(0, 5);
+    heap.decreaseKey(0, 6);
+  }
+
+  @Test
+  public void testBasicOperations() {
+    IndexedBinaryHeap<String> heap = new IndexedBinaryHeap<>(10);
+    heap.insert(3, "d");
+    heap.insert(7, "b");
+    heap.insert(0, "c");
+    assertTrue(heap.contains(7));
+    assertFalse(heap.contains(1));
+    assertEquals(7, heap.peekMinKeyIndex());
+    assertEquals("b", heap.peekMinValue());
+
+    heap.decreaseKey(3, "a");
+    assertEquals(3, heap.peekMinKeyIndex());
+    heap.increaseKey(3, "e");
+    assertEquals(7, heap.peekMinKeyIndex());
+    assertEquals("b", heap.update(7, "z"));
+    assertEquals("c", heap.delete(0));
+    assertFalse(heap.contains(0));
+    assertEquals(2, heap.size());
+    assertEquals("e", heap.pollMinValue());
+    assertEquals(7, heap.pollMinKeyIndex());
+    assertTrue(heap.isEmpty());
+
+    // 删除之后 key index 可以重新使用
+    heap.insert(0, "x");
+    assertEquals("x", heap.valueOf(0));
+  }
+
+  @Test
+  public void testRandomOperations() {
+    int n = 200;
+    IndexedBinaryHeap<Integer> heap = new IndexedBinaryHeap<>(n);
+    Integer[] expected = new Integer[n];
+    for (int i = 0; i < 50000; i++) {
+      int ki = RANDOM.nextInt(n);
+      int value = RANDOM.nextInt(1000);
+      int op = RANDOM.nextInt(5);
+      if (expected[ki] == null) {
+        if (op < 3) {
+          heap.insert(ki, value);
+          expected[ki] = value;
+        }
+      } else if (op == 0) {
+        assertEquals(expected[ki], heap.delete(ki));
+        expected[ki] = null;
+      } else if (op == 1) {
+        assertEquals(expected[ki], heap.update(ki, value));
+        expected[ki] = value;
+      } else if (op == 2) {
+        if (value <= expected[ki]) heap.decreaseKey(ki, value);
+        else heap.increaseKey(ki, value);
+        expected[ki] = value;
+      } else {
+        int min = Integer.MAX_VALUE;
+        for (Integer v : expected) if (v != null) min = Math.min(min, v);
+        int polled = heap.pollMinKeyIndex();
+        assertEquals(min, (int) expected[polled]);
+        expected[polled] = null;
+      }
+      int count = 0;
+      for (int j = 0; j < n; j++) {
+        assertEquals(expected[j] != null, heap.contains(j));
+        if (expected[j] != null) count++;
+      }
+      assertEquals(count, heap.size());
+    }
+    assertTrue(heap.isMinHeap(0));
+  }
+}
@@ -1,5 +1,8 @@
 package com.datastructure;
 
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -19,4 +22,49 @@ public class InsertionSortTest {
       System.out.println(ary[i]);
     }
   }
+
+  @Test
+  public void testLinearAndBinary() {
+    InsertionSort algo = new InsertionSort();
+    for (int sz = 0; sz < 500; sz += 7) {
+      int[] values = new int[sz];
+      for (int i = 0; i < sz; i++) values[i] = TestUtils.randInt(-20, 20);
+      int[] expected = values.clone();
+      Arrays.sort(expected);
+
+      int[] linear = values.clone();
+      algo.sort(linear);
+      assertArrayEquals(expected, linear);
+
+      int[] binary = values.clone();
+      algo.binarySort(binary);
+      assertArrayEquals(expected, binary);
+    }
+  }
+
+  @Test
+  public void testRange() {
+    InsertionSort algo = new InsertionSort();
+    int[] linear = {9, 8, 7, 6, 5, 4, 3, 2, 1};
+    algo.sort(linear, 2, 6);
+    assertArrayEquals(new int[] {9, 8, 4, 5, 6, 7, 3, 2, 1}, linear);
+
+    int[] binary = {9, 8, 7, 6, 5, 4, 3, 2, 1};
+    algo.binarySort(binary, 2, 6);
+    assertArrayEquals(new int[] {9, 8, 4, 5, 6, 7, 3, 2, 1}, binary);
+
+    long[] longs = {3, 2, 1, 0};
+    algo.sort(longs, 0, 3);
+    assertArrayEquals(new long[] {1, 2, 3, 0}, longs);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalRange1() {
+    new InsertionSort().sort(ary, 3, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalRange2() {
+    new InsertionSort().binarySort(ary, 0, ary.length + 1);
+  }
 }
@@ -0,0 +1,68 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class IntHeapTest {
+  static final Random RANDOM = new Random();
+  static final int LOOPS = 300;
+
+  @Test(expected = NoSuchElementException.class)
+  public void testPollEmpty() {
+    new IntHeap().poll();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCapacity() {
+    new IntHeap(-1);
+  }
+
+  @Test
+  public void testDuplicatesAndExtremes() {
+    IntHeap heap = new IntHeap();
+    int[] values = {3, Integer.MIN_VALUE, 3, Integer.MAX_VALUE, -1, 3};
+    for (int value : values) heap.add(value);
+    Arrays.sort(values);
+    for (int value : values) assertEquals(value, heap.poll());
+  }
+
+  @Test
+  public void testHeapify() {
+    for (int n = 0; n < LOOPS; n++) {
+      int[] values = new int[n];
+      PriorityQueue<Integer> expected = new PriorityQueue<>();
+      for (int i = 0; i < n; i++) {
+        values[i] = RANDOM.nextInt(100) - 50;
+        expected.add(values[i]);
+      }
+      IntHeap heap = new IntHeap(values);
+      assertTrue(heap.isMinHeap(0));
+      assertEquals(n, heap.size());
+      while (!expected.isEmpty()) assertEquals((int) expected.poll(), heap.poll());
+      assertTrue(heap.isEmpty());
+    }
+  }
+
+  @Test
+  public void testRandomOperations() {
+    IntHeap heap = new IntHeap(0);
+    PriorityQueue<Integer> expected = new PriorityQueue<>();
+    for (int i = 0; i < 20000; i++) {
+      if (RANDOM.nextInt(3) > 0) {
+        int value = RANDOM.nextInt(100) - 50;
+        heap.add(value);
+        expected.add(value);
+      } else if (!expected.isEmpty()) {
+        assertEquals((int) expected.peek(), heap.peek());
+        assertEquals((int) expected.poll(), heap.poll());
+      }
+      assertEquals(expected.size(), heap.size());
+    }
+    assertTrue(heap.isMinHeap(0));
+    heap.clear();
+    assertTrue(heap.isEmpty());
+    assertEquals(0, heap.toArray().length);
+  }
+}
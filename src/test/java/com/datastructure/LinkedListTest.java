@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class LinkedListTest {
@@ -331,4 +332,40 @@ public class LinkedListTest {
     Collections.shuffle(lst);
     return lst;
   }
+
+  @Test
+  public void testNodeHandles() {
+    DoublyLinkedList.Node<Integer> first = list.addLastNode(1);
+    DoublyLinkedList.Node<Integer> middle = list.addLastNode(2);
+    DoublyLinkedList.Node<Integer> last = list.addLastNode(3);
+    assertTrue(list.firstNode() == first);
+    assertTrue(list.lastNode() == last);
+
+    list.moveToLast(first);
+    assertEquals("[2, 3, 1]", list.toString());
+    list.moveToLast(first);
+    assertEquals("[2, 3, 1]", list.toString());
+
+    // 删除头, 尾和唯一的节点
+    assertEquals(2, (int) list.remove(middle));
+    assertEquals("[3, 1]", list.toString());
+    assertEquals(1, (int) list.remove(first));
+    assertEquals("[3]", list.toString());
+    assertEquals(3, (int) list.remove(last));
+    assertTrue(list.isEmpty());
+    assertNull(list.firstNode());
+    assertNull(list.lastNode());
+
+    // 摘下来的节点可以接到另一个链表上
+    DoublyLinkedList<Integer> other = new DoublyLinkedList<>();
+    DoublyLinkedList.Node<Integer> node = list.addLastNode(7);
+    list.addLast(8);
+    list.unlink(node);
+    other.linkLast(node);
+    other.addLast(9);
+    assertEquals("[8]", list.toString());
+    assertEquals("[7, 9]", other.toString());
+    assertEquals(1, list.size());
+    assertEquals(2, other.size());
+  }
 }
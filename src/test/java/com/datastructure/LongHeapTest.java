@@ -0,0 +1,68 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class LongHeapTest {
+  static final Random RANDOM = new Random();
+  static final int LOOPS = 300;
+
+  @Test(expected = NoSuchElementException.class)
+  public void testPollEmpty() {
+    new LongHeap().poll();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCapacity() {
+    new LongHeap(-1);
+  }
+
+  @Test
+  public void testToArray() {
+    LongHeap heap = new LongHeap(new long[] {5, 4, 3, 2, 1});
+    long[] array = heap.toArray();
+    assertEquals(1, array[0]);
+    Arrays.sort(array);
+    assertArrayEquals(new long[] {1, 2, 3, 4, 5}, array);
+  }
+
+  @Test
+  public void testHeapify() {
+    for (int n = 0; n < LOOPS; n++) {
+      long[] values = new long[n];
+      PriorityQueue<Long> expected = new PriorityQueue<>();
+      for (int i = 0; i < n; i++) {
+        values[i] = RANDOM.nextLong() >> RANDOM.nextInt(64);
+        expected.add(values[i]);
+      }
+      LongHeap heap = new LongHeap(values);
+      assertTrue(heap.isMinHeap(0));
+      assertEquals(n, heap.size());
+      while (!expected.isEmpty()) assertEquals((long) expected.poll(), heap.poll());
+      assertTrue(heap.isEmpty());
+    }
+  }
+
+  @Test
+  public void testRandomOperations() {
+    LongHeap heap = new LongHeap(0);
+    PriorityQueue<Long> expected = new PriorityQueue<>();
+    for (int i = 0; i < 20000; i++) {
+      if (RANDOM.nextInt(3) > 0) {
+        long value = RANDOM.nextLong() >> RANDOM.nextInt(64);
+        heap.add(value);
+        expected.add(value);
+      } else if (!expected.isEmpty()) {
+        assertEquals((long) expected.peek(), heap.peek());
+        assertEquals((long) expected.poll(), heap.poll());
+      }
+      assertEquals(expected.size(), heap.size());
+    }
+    assertTrue(heap.isMinHeap(0));
+    heap.clear();
+    assertTrue(heap.isEmpty());
+    assertEquals(0, heap.toArray().length);
+  }
+}
@@ -0,0 +1,125 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class LongLongMapTest {
+  static final Random RANDOM = new Random();
+
+  LongLongMap map;
+
+  @Before
+  public void setup() {
+    map = new LongLongMap();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation() {
+    new LongLongMap(16, 0.0);
+  }
+
+  @Test
+  public void testZeroKeyAndDefaults() {
+    assertEquals(0, map.get(0));
+    assertEquals(-1, map.getOrDefault(0, -1));
+    assertEquals(0, map.put(0, 42));
+    assertEquals(42, map.put(0, 43));
+    assertEquals(43, map.get(0));
+    assertEquals(-1, map.getOrDefault(9, -1));
+    assertEquals(1, map.size());
+    assertEquals(43, map.remove(0));
+    assertFalse(map.containsKey(0));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testAddTo() {
+    for (long key = -20; key < 20; key++) {
+      for (int i = 0; i <= key + 20; i++) map.addTo(key, 1);
+    }
+    for (long key = -20; key < 20; key++) assertEquals(key + 21, map.get(key));
+    assertEquals(40, map.size());
+  }
+
+  @Test
+  public void testCursor() {
+    Map<Long, Long> expected = new HashMap<>();
+    for (long key = -50; key <= 50; key++) {
+      map.put(key << 20, key);
+      expected.put(key << 20, key);
+    }
+    Map<Long, Long> seen = new HashMap<>();
+    for (LongLongMap.Cursor cursor = map.cursor(); cursor.advance(); ) {
+      assertNull(seen.put(cursor.key(), cursor.value()));
+    }
+    assertEquals(expected, seen);
+
+    long[] keys = map.keys();
+    long[] values = map.values();
+    assertEquals(expected.size(), keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals((long) expected.get(keys[i]), values[i]);
+    }
+  }
+
+  @Test
+  public void testCursorNotPositioned() {
+    map.put(1L, 1L);
+    LongLongMap.Cursor cursor = map.cursor();
+    // advance 之前, 返回 false 之后和 reset 之后都没有当前 entry
+    assertNotPositioned(cursor);
+    assertTrue(cursor.advance());
+    assertEquals(1L, cursor.key());
+    assertFalse(cursor.advance());
+    assertNotPositioned(cursor);
+    cursor.reset();
+    assertNotPositioned(cursor);
+  }
+
+  private static void assertNotPositioned(LongLongMap.Cursor cursor) {
+    try {
+      cursor.key();
+      fail();
+    } catch (NoSuchElementException expected) {
+    }
+    try {
+      cursor.value();
+      fail();
+    } catch (NoSuchElementException expected) {
+    }
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void testConcurrentModification() {
+    for (long key = 0; key < 10; key++) map.put(key, key);
+    LongLongMap.Cursor cursor = map.cursor();
+    while (cursor.advance()) map.put(cursor.key() + 100, 0);
+  }
+
+  @Test
+  public void testRandomMapOperations() {
+    HashMap<Long, Long> jmap = new HashMap<>();
+    for (int loop = 0; loop < 300; loop++) {
+      map = new LongLongMap(RANDOM.nextInt(16), 0.3 + RANDOM.nextDouble() * 0.65);
+      jmap.clear();
+      double putProbability = RANDOM.nextDouble();
+      for (int i = 0; i < 1000; i++) {
+        long key = (RANDOM.nextInt(401) - 200) * 0x100000001L;
+        long value = i;
+        if (RANDOM.nextDouble() < putProbability) {
+          Long old = jmap.put(key, value);
+          assertEquals(old == null ? 0 : old, map.put(key, value));
+        } else {
+          Long old = jmap.remove(key);
+          assertEquals(old == null ? 0 : old, map.remove(key));
+        }
+        assertEquals(jmap.containsKey(key), map.containsKey(key));
+        assertEquals((long) jmap.getOrDefault(key, -1L), map.getOrDefault(key, -1L));
+        assertEquals(jmap.size(), map.size());
+      }
+      for (Long key : jmap.keySet()) assertEquals((long) jmap.get(key), map.get(key));
+    }
+  }
+}
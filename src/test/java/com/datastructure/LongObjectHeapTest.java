@@ -0,0 +1,54 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class LongObjectHeapTest {
+  static final Random RANDOM = new Random();
+
+  @Test(expected = NoSuchElementException.class)
+  public void testPeekEmpty() {
+    new LongObjectHeap<String>().peekKey();
+  }
+
+  @Test
+  public void testPayloadsFollowKeys() {
+    LongObjectHeap<String> heap = new LongObjectHeap<>();
+    heap.add(30, "c");
+    heap.add(10, "a");
+    heap.add(20, null);
+    assertEquals(10, heap.peekKey());
+    assertEquals("a", heap.peekValue());
+    assertEquals("a", heap.poll());
+    assertNull(heap.poll());
+    assertEquals("c", heap.poll());
+    assertTrue(heap.isEmpty());
+  }
+
+  @Test
+  public void testRandomOperations() {
+    LongObjectHeap<long[]> heap = new LongObjectHeap<>(0);
+    // 用 {key, 序号} 作为 payload, 按 key 比较
+    PriorityQueue<long[]> expected =
+        new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+    for (int i = 0; i < 20000; i++) {
+      if (RANDOM.nextInt(3) > 0) {
+        long[] entry = {RANDOM.nextInt(1000), i};
+        heap.add(entry[0], entry);
+        expected.add(entry);
+      } else if (!expected.isEmpty()) {
+        long key = expected.peek()[0];
+        assertEquals(key, heap.peekKey());
+        long[] polled = heap.poll();
+        assertEquals(key, polled[0]);
+        assertTrue(expected.remove(polled));
+      }
+      assertEquals(expected.size(), heap.size());
+    }
+    assertTrue(heap.isMinHeap(0));
+    heap.clear();
+    assertEquals(0, heap.size());
+  }
+}
@@ -0,0 +1,127 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class LongObjectMapTest {
+  static final Random RANDOM = new Random();
+
+  LongObjectMap<String> map;
+
+  @Before
+  public void setup() {
+    map = new LongObjectMap<>();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation1() {
+    new LongObjectMap<>(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation2() {
+    new LongObjectMap<>(16, 1.0);
+  }
+
+  @Test
+  public void testZeroKey() {
+    assertFalse(map.containsKey(0));
+    assertNull(map.get(0));
+    assertNull(map.put(0, "zero"));
+    assertEquals("zero", map.put(0, "ZERO"));
+    assertTrue(map.containsKey(0));
+    assertEquals("ZERO", map.get(0));
+    assertEquals(1, map.size());
+    assertEquals("ZERO", map.remove(0));
+    assertNull(map.remove(0));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testNullValue() {
+    assertNull(map.put(5, null));
+    assertTrue(map.containsKey(5));
+    assertNull(map.get(5));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testCursor() {
+    Map<Long, String> expected = new HashMap<>();
+    for (long key = -50; key <= 50; key++) {
+      map.put(key * 7, "v" + key);
+      expected.put(key * 7, "v" + key);
+    }
+    Map<Long, String> seen = new HashMap<>();
+    LongObjectMap<String>.Cursor cursor = map.cursor();
+    while (cursor.advance()) assertNull(seen.put(cursor.key(), cursor.value()));
+    assertEquals(expected, seen);
+
+    // reset 之后同一个 cursor 可以再遍历一遍
+    cursor.reset();
+    int count = 0;
+    while (cursor.advance()) count++;
+    assertEquals(expected.size(), count);
+    assertEquals(expected.size(), map.keys().length);
+    assertEquals(expected.size(), map.values().size());
+  }
+
+  @Test
+  public void testCursorNotPositioned() {
+    map.put(1L, "a");
+    LongObjectMap<String>.Cursor cursor = map.cursor();
+    // advance 之前, 返回 false 之后和 reset 之后都没有当前 entry
+    assertNotPositioned(cursor);
+    assertTrue(cursor.advance());
+    assertEquals(1L, cursor.key());
+    assertFalse(cursor.advance());
+    assertNotPositioned(cursor);
+    cursor.reset();
+    assertNotPositioned(cursor);
+  }
+
+  private static void assertNotPositioned(LongObjectMap<?>.Cursor cursor) {
+    try {
+      cursor.key();
+      fail();
+    } catch (NoSuchElementException expected) {
+    }
+    try {
+      cursor.value();
+      fail();
+    } catch (NoSuchElementException expected) {
+    }
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void testConcurrentModification() {
+    for (long key = 0; key < 10; key++) map.put(key, "v");
+    LongObjectMap<String>.Cursor cursor = map.cursor();
+    while (cursor.advance()) map.remove(cursor.key());
+  }
+
+  @Test
+  public void testRandomMapOperations() {
+    HashMap<Long, String> jmap = new HashMap<>();
+    for (int loop = 0; loop < 300; loop++) {
+      map = new LongObjectMap<>(RANDOM.nextInt(16));
+      jmap.clear();
+      double putProbability = RANDOM.nextDouble();
+      for (int i = 0; i < 1000; i++) {
+        long key = (RANDOM.nextInt(401) - 200) * 0x100000001L;
+        String value = Integer.toString(i);
+        if (RANDOM.nextDouble() < putProbability) {
+          assertEquals(jmap.put(key, value), map.put(key, value));
+        } else {
+          assertEquals(jmap.remove(key), map.remove(key));
+        }
+        assertEquals(jmap.get(key), map.get(key));
+        assertEquals(jmap.containsKey(key), map.containsKey(key));
+        assertEquals(jmap.size(), map.size());
+      }
+      for (Long key : jmap.keySet()) assertEquals(jmap.get(key), map.get(key));
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package com.datastructure;
 
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -19,4 +22,23 @@ public class MergeSortTest {
       System.out.println(ary[i]);
     }
   }
+
+  @Test
+  public void testSortReusingScratchBuffer() {
+    MergeSort algo = new MergeSort();
+    int[] aux = new int[1000];
+    for (int sz = 0; sz <= 1000; sz += 37) {
+      int[] values = new int[sz];
+      for (int i = 0; i < sz; i++) values[i] = TestUtils.randInt(-50, 50);
+      int[] expected = values.clone();
+      Arrays.sort(expected);
+      algo.sort(values, aux);
+      assertArrayEquals(expected, values);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScratchBufferTooSmall() {
+    new MergeSort().sort(ary, new int[ary.length - 1]);
+  }
 }
@@ -0,0 +1,137 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.*;
+
+public class OffHeapHashTableTest {
+  static final Random RANDOM = new Random();
+
+  private Path file;
+
+  @Before
+  public void setup() throws IOException {
+    file = Files.createTempFile("offheap", ".table");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalCreation() {
+    OffHeapHashTable.allocateDirect(-1);
+  }
+
+  @Test
+  public void testZeroKeyAndDefaults() {
+    OffHeapHashTable table = OffHeapHashTable.allocateDirect(16);
+    assertEquals(0, table.get(0));
+    assertEquals(-1, table.getOrDefault(0, -1));
+    assertEquals(0, table.put(0, 42));
+    assertEquals(42, table.put(0, 43));
+    assertEquals(43, table.get(0));
+    assertEquals(44, table.addTo(0, 1));
+    assertEquals(-1, table.getOrDefault(9, -1));
+    assertEquals(1, table.size());
+    assertEquals(44, table.remove(0));
+    assertFalse(table.containsKey(0));
+    assertTrue(table.isEmpty());
+  }
+
+  @Test
+  public void testFixedCapacity() {
+    OffHeapHashTable table = OffHeapHashTable.allocateDirect(100);
+    assertEquals(100, table.capacity());
+    for (long key = 0; key < 100; key++) table.put(key, key);
+    // 更新已有的 key 不需要新的槽
+    assertEquals(5, table.put(5, 6));
+    try {
+      table.put(1000, 1);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    table.remove(7);
+    table.put(1000, 1);
+    assertEquals(100, table.size());
+  }
+
+  @Test
+  public void testRandomOperations() {
+    LongLongMap expected = new LongLongMap();
+    for (int loop = 0; loop < 50; loop++) {
+      OffHeapHashTable table = OffHeapHashTable.allocateDirect(2000);
+      expected.clear();
+      for (int i = 0; i < 5000; i++) {
+        long key = RANDOM.nextInt(1000) - 500;
+        long value = RANDOM.nextLong();
+        int op = RANDOM.nextInt(3);
+        if (op == 0) assertEquals(expected.put(key, value), table.put(key, value));
+        else if (op == 1) assertEquals(expected.remove(key), table.remove(key));
+        else assertEquals(expected.addTo(key, value), table.addTo(key, value));
+        assertEquals(expected.containsKey(key), table.containsKey(key));
+        assertEquals(expected.get(key), table.get(key));
+        assertEquals(expected.size(), table.size());
+      }
+      Map<Long, Long> seen = new HashMap<>();
+      for (OffHeapHashTable.Cursor c = table.cursor(); c.advance(); ) {
+        assertNull(seen.put(c.key(), c.value()));
+        assertEquals(expected.get(c.key()), c.value());
+      }
+      assertEquals(expected.size(), seen.size());
+      table.clear();
+      assertTrue(table.isEmpty());
+      assertFalse(table.cursor().advance());
+    }
+  }
+
+  @Test
+  public void testMappedTableSurvivesReopen() throws IOException {
+    try (OffHeapHashTable table = OffHeapHashTable.map(file, 10000)) {
+      for (long key = -5000; key < 5000; key++) table.put(key * 31, key);
+      for (long key = -5000; key < 5000; key += 2) table.remove(key * 31);
+    }
+    // 重新打开时用文件里保存的 capacity, 参数被忽略
+    try (OffHeapHashTable table = OffHeapHashTable.map(file, 1)) {
+      assertEquals(10000, table.capacity());
+      assertEquals(5000, table.size());
+      for (long key = -5000; key < 5000; key++) {
+        assertEquals(key % 2 != 0, table.containsKey(key * 31));
+        if (key % 2 != 0) assertEquals(key, table.get(key * 31));
+      }
+      table.put(0, 7);
+    }
+    try (OffHeapHashTable table = OffHeapHashTable.map(file, 1)) {
+      // key 0 之前已经被删除了
+      assertEquals(5001, table.size());
+      assertEquals(7, table.get(0));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testMapRejectsForeignFile() throws IOException {
+    Files.write(file, new byte[100]);
+    OffHeapHashTable.map(file, 10);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testClosedTable() throws IOException {
+    OffHeapHashTable table = OffHeapHashTable.map(file, 10);
+    table.close();
+    table.get(1);
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void testCursorConcurrentModification() {
+    OffHeapHashTable table = OffHeapHashTable.allocateDirect(10);
+    table.put(1, 1);
+    table.put(2, 2);
+    for (OffHeapHashTable.Cursor c = table.cursor(); c.advance(); ) table.put(c.key() + 10, 0);
+  }
+}
@@ -0,0 +1,137 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import org.junit.*;
+
+public class PairingHeapTest {
+  static final Random RANDOM = new Random();
+
+  @Test(expected = NoSuchElementException.class)
+  public void testPollEmpty() {
+    new PairingHeap<Integer>().poll();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIncreaseWithDecreaseKey() {
+    PairingHeap<Integer> heap = new PairingHeap<>();
+    heap.decreaseKey(heap.add(5), 6);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testStaleHandle() {
+    PairingHeap<Integer> heap = new PairingHeap<>();
+    PairingHeap.Node<Integer> node = heap.add(1);
+    heap.poll();
+    heap.remove(node);
+  }
+
+  @Test
+  public void testHandlesAndDecreaseKey() {
+    PairingHeap<String> heap = new PairingHeap<>();
+    PairingHeap.Node<String> d = heap.add("d");
+    heap.add("b");
+    PairingHeap.Node<String> c = heap.add("c");
+    assertEquals("b", heap.peek());
+    heap.decreaseKey(d, "a");
+    assertEquals("a", d.value());
+    assertEquals("a", heap.peek());
+    heap.remove(c);
+    assertFalse(heap.contains(c));
+    assertTrue(heap.contains(d));
+    assertEquals("a", heap.poll());
+    assertEquals("b", heap.poll());
+    assertTrue(heap.isEmpty());
+  }
+
+  @Test
+  public void testMeld() {
+    PairingHeap<Integer> a = new PairingHeap<>();
+    PairingHeap<Integer> b = new PairingHeap<>();
+    PairingHeap<Integer> c = new PairingHeap<>();
+    for (int i = 0; i < 10; i++) a.add(i * 3);
+    List<PairingHeap.Node<Integer>> fromB = new ArrayList<>();
+    for (int i = 0; i < 10; i++) fromB.add(b.add(i * 3 + 1));
+    PairingHeap.Node<Integer> fromC = c.add(100);
+
+    b.meld(c);
+    a.meld(b);
+    assertEquals(21, a.size());
+    assertTrue(b.isEmpty());
+    assertTrue(c.isEmpty());
+    // meld 之后 handle 属于新的堆
+    assertTrue(a.contains(fromC));
+    assertFalse(b.contains(fromB.get(0)));
+    a.decreaseKey(fromC, -1);
+    a.remove(fromB.get(9));
+    assertEquals(Integer.valueOf(-1), a.poll());
+
+    // 被合并的堆可以继续使用, 新的 handle 不会跑到 a 里
+    PairingHeap.Node<Integer> again = b.add(7);
+    assertTrue(b.contains(again));
+    assertFalse(a.contains(again));
+
+    int last = Integer.MIN_VALUE;
+    int count = 0;
+    while (!a.isEmpty()) {
+      int value = a.poll();
+      assertTrue(value >= last);
+      assertTrue(value != 28);
+      last = value;
+      count++;
+    }
+    assertEquals(19, count);
+  }
+
+  @Test
+  public void testRandomOperations() {
+    List<PairingHeap<Integer>> heaps = new ArrayList<>();
+    List<PriorityQueue<Integer>> expected = new ArrayList<>();
+    List<List<PairingHeap.Node<Integer>>> handles = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      heaps.add(new PairingHeap<>());
+      expected.add(new PriorityQueue<>());
+      handles.add(new ArrayList<>());
+    }
+    for (int i = 0; i < 50000; i++) {
+      int h = RANDOM.nextInt(4);
+      PairingHeap<Integer> heap = heaps.get(h);
+      PriorityQueue<Integer> queue = expected.get(h);
+      List<PairingHeap.Node<Integer>> nodes = handles.get(h);
+      int op = RANDOM.nextInt(10);
+      if (op < 4) {
+        int value = RANDOM.nextInt(1000);
+        nodes.add(heap.add(value));
+        queue.add(value);
+      } else if (op < 6 && !queue.isEmpty()) {
+        assertEquals(queue.poll(), heap.poll());
+      } else if (op < 8 && !nodes.isEmpty()) {
+        PairingHeap.Node<Integer> node = nodes.get(RANDOM.nextInt(nodes.size()));
+        if (!heap.contains(node)) {
+          nodes.remove(node);
+        } else if (op == 6) {
+          int value = node.value() - RANDOM.nextInt(100);
+          queue.remove(node.value());
+          queue.add(value);
+          heap.decreaseKey(node, value);
+        } else {
+          queue.remove(node.value());
+          heap.remove(node);
+          nodes.remove(node);
+        }
+      } else if (op == 8) {
+        int other = RANDOM.nextInt(4);
+        if (other != h) {
+          heap.meld(heaps.get(other));
+          queue.addAll(expected.get(other));
+          expected.get(other).clear();
+          nodes.addAll(handles.get(other));
+          handles.get(other).clear();
+        }
+      }
+      assertEquals(queue.size(), heap.size());
+      if (!queue.isEmpty()) assertEquals(queue.peek(), heap.peek());
+    }
+  }
+}
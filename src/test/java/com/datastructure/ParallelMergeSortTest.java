@@ -0,0 +1,76 @@
+package com.datastructure;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelMergeSortTest {
+
+  static final Random RANDOM = new Random();
+
+  private ForkJoinPool pool;
+
+  @Before
+  public void setup() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @After
+  public void teardown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testSortInts() {
+    // 阈值设得很小, 保证并行拆分和并行 merge 都会走到
+    ParallelMergeSort algo = new ParallelMergeSort(pool, 8);
+    for (int sz : new int[] {0, 1, 2, 7, 100, 1000, 100000}) {
+      int[] ary = new int[sz];
+      for (int i = 0; i < sz; i++) ary[i] = RANDOM.nextInt(sz + 1) - sz / 2;
+      int[] expected = ary.clone();
+      Arrays.sort(expected);
+      algo.sort(ary);
+      assertArrayEquals(expected, ary);
+    }
+  }
+
+  @Test
+  public void testSortLongs() {
+    ParallelMergeSort algo = new ParallelMergeSort(pool, 8);
+    long[] aux = new long[100000];
+    for (int sz : new int[] {0, 1, 2, 7, 100, 1000, 100000}) {
+      long[] ary = new long[sz];
+      for (int i = 0; i < sz; i++) ary[i] = RANDOM.nextLong();
+      long[] expected = ary.clone();
+      Arrays.sort(expected);
+      algo.sort(ary, aux);
+      assertArrayEquals(expected, ary);
+    }
+  }
+
+  @Test
+  public void testManyDuplicates() {
+    ParallelMergeSort algo = new ParallelMergeSort(pool, 16);
+    int[] ary = new int[50000];
+    for (int i = 0; i < ary.length; i++) ary[i] = RANDOM.nextInt(3);
+    int[] expected = ary.clone();
+    Arrays.sort(expected);
+    algo.sort(ary);
+    assertArrayEquals(expected, ary);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalThreshold() {
+    new ParallelMergeSort(pool, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScratchBufferTooSmall() {
+    new ParallelMergeSort().sort(new long[10], new long[9]);
+  }
+}
@@ -0,0 +1,83 @@
+package com.datastructure;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelRadixSortTest {
+
+  static final Random RANDOM = new Random();
+
+  // 超过并行分桶的阈值 (1 << 18), 保证并行的统计和置换都会走到
+  static final int LARGE = 300000;
+
+  private ForkJoinPool pool;
+
+  @Before
+  public void setup() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @After
+  public void teardown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testSmallInts() {
+    ParallelRadixSort algo = new ParallelRadixSort(pool, 64);
+    for (int sz = 0; sz < 3000; sz += 97) {
+      int[] ary = new int[sz];
+      for (int i = 0; i < sz; i++) ary[i] = RANDOM.nextInt();
+      assertSorts(algo, ary);
+    }
+  }
+
+  @Test
+  public void testLargeInts() {
+    ParallelRadixSort algo = new ParallelRadixSort(pool);
+    int[] ary = new int[LARGE];
+    for (int i = 0; i < ary.length; i++) ary[i] = RANDOM.nextInt();
+    assertSorts(algo, ary);
+
+    // 大部分元素落在同一个桶里
+    for (int i = 0; i < ary.length; i++) ary[i] = RANDOM.nextInt(10) == 0 ? RANDOM.nextInt() : 42;
+    assertSorts(algo, ary);
+
+    for (int i = 0; i < ary.length; i++) ary[i] = RANDOM.nextInt(1000) - 500;
+    assertSorts(algo, ary);
+
+    Arrays.fill(ary, -7);
+    assertSorts(algo, ary);
+  }
+
+  @Test
+  public void testLongs() {
+    ParallelRadixSort algo = new ParallelRadixSort(pool, 64);
+    for (int sz : new int[] {0, 1, 2, 33, 1000, LARGE}) {
+      long[] ary = new long[sz];
+      for (int i = 0; i < sz; i++) ary[i] = RANDOM.nextLong() >> RANDOM.nextInt(64);
+      long[] expected = ary.clone();
+      Arrays.sort(expected);
+      algo.sort(ary);
+      assertArrayEquals(expected, ary);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIllegalThreshold() {
+    new ParallelRadixSort(pool, 0);
+  }
+
+  private static void assertSorts(ParallelRadixSort algo, int[] ary) {
+    int[] expected = ary.clone();
+    Arrays.sort(expected);
+    algo.sort(ary);
+    assertArrayEquals(expected, ary);
+  }
+}
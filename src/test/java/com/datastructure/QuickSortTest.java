@@ -1,5 +1,8 @@
 package com.datastructure;
 
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -19,4 +22,57 @@ public class QuickSortTest {
       System.out.println(ary[i]);
     }
   }
+
+  @Test
+  public void testRandomSizes() {
+    for (int sz = 0; sz < 2000; sz += 13) {
+      int[] values = new int[sz];
+      for (int i = 0; i < sz; i++) values[i] = TestUtils.randInt(-sz, sz);
+      assertSorts(values);
+    }
+  }
+
+  @Test
+  public void testFewUniqueValues() {
+    int[] values = new int[200000];
+    for (int i = 0; i < values.length; i++) values[i] = TestUtils.randInt(0, 4);
+    assertSorts(values);
+
+    Arrays.fill(values, 7);
+    assertSorts(values);
+  }
+
+  @Test
+  public void testStructuredInputs() {
+    int n = 100000;
+    int[] sorted = new int[n];
+    int[] reversed = new int[n];
+    int[] organPipe = new int[n];
+    int[] sawtooth = new int[n];
+    for (int i = 0; i < n; i++) {
+      sorted[i] = i;
+      reversed[i] = n - i;
+      organPipe[i] = i < n / 2 ? i : n - i;
+      sawtooth[i] = i % 1000;
+    }
+    assertSorts(sorted);
+    assertSorts(reversed);
+    assertSorts(organPipe);
+    assertSorts(sawtooth);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullPartition() {
+    new QuickSort(null);
+  }
+
+  private static void assertSorts(int[] values) {
+    int[] expected = values.clone();
+    Arrays.sort(expected);
+    for (QuickSort.Partition partition : QuickSort.Partition.values()) {
+      int[] actual = values.clone();
+      new QuickSort(partition).sort(actual);
+      assertArrayEquals(partition.toString(), expected, actual);
+    }
+  }
 }
@@ -1,9 +1,15 @@
 package com.datastructure;
 
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
 
 public class RadixSortTest {
+  static final Random RANDOM = new Random();
+
   private int[] ary;
 
   @Before
@@ -19,4 +25,75 @@ public class RadixSortTest {
       System.out.println(ary[i]);
     }
   }
+
+  @Test
+  public void testSortInts() {
+    RadixSort algo = new RadixSort();
+    for (int sz = 0; sz < 3000; sz += 101) {
+      int[] values = new int[sz];
+      for (int i = 0; i < sz; i++) values[i] = RANDOM.nextInt();
+      int[] expected = values.clone();
+      Arrays.sort(expected);
+      algo.sort(values);
+      assertArrayEquals(expected, values);
+    }
+
+    // 只有低字节不同, 其余三趟都会被跳过
+    int[] values = {-3, 5, -1, 0, 7, -128, 127, Integer.MIN_VALUE, Integer.MAX_VALUE};
+    int[] expected = values.clone();
+    Arrays.sort(expected);
+    algo.sort(values);
+    assertArrayEquals(expected, values);
+  }
+
+  @Test
+  public void testSortLongs() {
+    RadixSort algo = new RadixSort();
+    long[] aux = new long[5000];
+    for (int sz = 0; sz < 5000; sz += 499) {
+      long[] values = new long[sz];
+      for (int i = 0; i < sz; i++) values[i] = RANDOM.nextLong() >> RANDOM.nextInt(64);
+      long[] expected = values.clone();
+      Arrays.sort(expected);
+      algo.sort(values, aux);
+      assertArrayEquals(expected, values);
+    }
+  }
+
+  @Test
+  public void testSortFloats() {
+    float[] values = new float[2000];
+    for (int i = 0; i < values.length; i++) values[i] = (RANDOM.nextFloat() - 0.5f) * 1e6f;
+    values[0] = Float.NaN;
+    values[1] = -0.0f;
+    values[2] = 0.0f;
+    values[3] = Float.NEGATIVE_INFINITY;
+    values[4] = Float.POSITIVE_INFINITY;
+    values[5] = -Float.MIN_VALUE;
+    float[] expected = values.clone();
+    Arrays.sort(expected);
+    new RadixSort().sort(values);
+    assertArrayEquals(expected, values, 0f);
+  }
+
+  @Test
+  public void testSortDoubles() {
+    double[] values = new double[2000];
+    for (int i = 0; i < values.length; i++) values[i] = RANDOM.nextGaussian() * 1e12;
+    values[0] = Double.NaN;
+    values[1] = -0.0;
+    values[2] = 0.0;
+    values[3] = Double.NEGATIVE_INFINITY;
+    values[4] = Double.MAX_VALUE;
+    values[5] = -Double.MIN_VALUE;
+    double[] expected = values.clone();
+    Arrays.sort(expected);
+    new RadixSort().sort(values);
+    assertArrayEquals(expected, values, 0.0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScratchBufferTooSmall() {
+    new RadixSort().sort(ary, new int[ary.length - 1]);
+  }
 }
@@ -0,0 +1,201 @@
+package com.datastructure;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SorterTest {
+  static final Random RANDOM = new Random();
+
+  private ForkJoinPool pool;
+  private List<Sorter> sorters;
+
+  @Before
+  public void setup() {
+    pool = new ForkJoinPool(4);
+    sorters =
+        Arrays.asList(
+            new BubbleSort(),
+            new SelectionSort(),
+            new InsertionSort(),
+            new MergeSort(),
+            new ParallelMergeSort(pool, 64),
+            new TimSort(),
+            new QuickSort(),
+            new QuickSort(QuickSort.Partition.DUAL_PIVOT),
+            new QuickSort(QuickSort.Partition.BLOCK),
+            new RadixSort(),
+            new ParallelRadixSort(pool, 64));
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void testIntRange() {
+    for (Sorter sorter : sorters) {
+      for (int sz = 0; sz < 1500; sz += 97) {
+        int[] values = new int[sz];
+        for (int i = 0; i < sz; i++) values[i] = RANDOM.nextInt(sz + 1) - sz / 2;
+        int from = sz == 0 ? 0 : RANDOM.nextInt(sz);
+        int to = from + RANDOM.nextInt(sz - from + 1);
+
+        int[] expected = values.clone();
+        Arrays.sort(expected, from, to);
+        sorter.sort(values, from, to);
+        assertArrayEquals(sorter.getClass().getSimpleName(), expected, values);
+      }
+    }
+  }
+
+  @Test
+  public void testLongRange() {
+    for (Sorter sorter : sorters) {
+      for (int sz = 0; sz < 1500; sz += 97) {
+        long[] values = new long[sz];
+        for (int i = 0; i < sz; i++) values[i] = RANDOM.nextLong();
+        int from = sz / 4;
+        int to = sz - sz / 4;
+
+        long[] expected = values.clone();
+        Arrays.sort(expected, from, to);
+        sorter.sort(values, from, to);
+        assertArrayEquals(sorter.getClass().getSimpleName(), expected, values);
+      }
+    }
+  }
+
+  @Test
+  public void testDouble() {
+    double[] special = {
+      Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+      Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE
+    };
+    for (Sorter sorter : sorters) {
+      double[] values = new double[300];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = i < special.length ? special[i] : RANDOM.nextGaussian() * 1000;
+      }
+      double[] expected = values.clone();
+      Arrays.sort(expected);
+      sorter.sort(values);
+      // 按位比较, 这样 -0.0 和 0.0 的先后也能检查到
+      for (int i = 0; i < values.length; i++) {
+        assertEquals(Double.doubleToLongBits(expected[i]), Double.doubleToLongBits(values[i]));
+      }
+    }
+  }
+
+  @Test
+  public void testComparator() {
+    for (Sorter sorter : sorters) {
+      if (!hasComparatorPath(sorter)) continue;
+      String[] values = {"pear", "fig", "apple", "kiwi", "banana", "plum"};
+      sorter.sort(values, 1, 5, Comparator.comparingInt(String::length));
+      assertArrayEquals(new String[] {"pear", "fig", "kiwi", "apple", "banana", "plum"}, values);
+    }
+  }
+
+  @Test
+  public void testComparatorRandom() {
+    Comparator<Integer> byLowBits = Comparator.comparingInt((Integer v) -> v % 16);
+    for (Sorter sorter : sorters) {
+      if (!hasComparatorPath(sorter)) continue;
+      String name = sorter.getClass().getSimpleName();
+      for (int sz = 0; sz < 1500; sz += 97) {
+        Integer[] values = new Integer[sz];
+        for (int i = 0; i < sz; i++) values[i] = Integer.valueOf(128 + RANDOM.nextInt(1 << 20));
+        int from = sz / 4;
+        int to = sz - sz / 4;
+
+        Integer[] expected = values.clone();
+        Arrays.sort(expected, from, to, byLowBits);
+        sorter.sort(values, from, to, byLowBits);
+        for (int i = 0; i < sz; i++) {
+          if (isStable(sorter)) assertSame(name, expected[i], values[i]);
+          else assertEquals(name, expected[i] % 16, values[i] % 16);
+        }
+        if (!isStable(sorter)) {
+          Integer[] sortedExpected = expected.clone();
+          Integer[] sortedValues = values.clone();
+          Arrays.sort(sortedExpected, from, to);
+          Arrays.sort(sortedValues, from, to);
+          assertArrayEquals(name, sortedExpected, sortedValues);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testComparatorUnsupported() {
+    for (Sorter sorter : sorters) {
+      if (hasComparatorPath(sorter)) continue;
+      try {
+        sorter.sort(new String[] {"b", "a"}, Comparator.naturalOrder());
+        fail(sorter.getClass().getSimpleName() + " accepted a Comparator");
+      } catch (UnsupportedOperationException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void testSortByKeyIsStable() {
+    for (Sorter sorter : sorters) {
+      Integer[] values = new Integer[1000];
+      // 取值避开 Integer 的缓存区间, 每个 valueOf 都是一个新的对象
+      for (int i = 0; i < values.length; i++) {
+        values[i] = Integer.valueOf(128 + RANDOM.nextInt(1 << 20));
+      }
+      Integer[] expected = values.clone();
+      // Arrays.sort 对对象是稳定的, 比较对象引用就能检查相同 key 的元素有没有保持原来的顺序
+      Arrays.sort(expected, Comparator.comparingInt((Integer v) -> v % 16));
+      sorter.sortByKey(values, v -> v % 16);
+      for (int i = 0; i < values.length; i++) assertSame(expected[i], values[i]);
+    }
+  }
+
+  @Test
+  public void testSortByNegativeKey() {
+    for (Sorter sorter : sorters) {
+      String[] values = {"c", "a", "d", "b"};
+      int[] keys = {Integer.MAX_VALUE, Integer.MIN_VALUE, -1, 0};
+      sorter.sortByKey(values, v -> keys[v.charAt(0) - 'a']);
+      assertArrayEquals(new String[] {"b", "c", "d", "a"}, values);
+    }
+  }
+
+  @Test
+  public void testIllegalRange() {
+    for (Sorter sorter : sorters) {
+      int[][] ranges = {{-1, 2}, {3, 2}, {0, 11}};
+      for (int[] range : ranges) {
+        try {
+          sorter.sort(new int[10], range[0], range[1]);
+          fail(sorter.getClass().getSimpleName() + " accepted " + Arrays.toString(range));
+        } catch (IllegalArgumentException expected) {
+        }
+      }
+    }
+  }
+
+  // radix sort 需要 key 的二进制位, 没有 Comparator 的版本
+  private static boolean hasComparatorPath(Sorter sorter) {
+    return !(sorter instanceof RadixSort || sorter instanceof ParallelRadixSort);
+  }
+
+  private static boolean isStable(Sorter sorter) {
+    return !(sorter instanceof SelectionSort || sorter instanceof QuickSort);
+  }
+}
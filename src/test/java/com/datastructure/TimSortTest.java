@@ -0,0 +1,133 @@
+package com.datastructure;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimSortTest {
+  static final Random RANDOM = new Random();
+
+  private int[] ary;
+
+  @Before
+  public void setup() {
+    ary = new int[] {8, 9, 1, 7, 2, 3, 11, 100, 50, 4};
+  }
+
+  @Test
+  public void testSort() {
+    new TimSort().sort(ary);
+    assertArrayEquals(new int[] {1, 2, 3, 4, 7, 8, 9, 11, 50, 100}, ary);
+  }
+
+  @Test
+  public void testRandom() {
+    for (int sz = 0; sz < 5000; sz += 61) {
+      int[] values = new int[sz];
+      for (int i = 0; i < sz; i++) values[i] = RANDOM.nextInt();
+      assertSorts(values);
+    }
+  }
+
+  @Test
+  public void testNearlySorted() {
+    // 已经有序的数据后面不断追加, 偶尔有一些乱序的元素
+    int[] values = new int[200000];
+    for (int i = 0; i < values.length; i++) values[i] = i;
+    for (int i = 0; i < 200; i++) {
+      int j = RANDOM.nextInt(values.length);
+      int k = RANDOM.nextInt(values.length);
+      int tmp = values[j];
+      values[j] = values[k];
+      values[k] = tmp;
+    }
+    assertSorts(values);
+  }
+
+  @Test
+  public void testRuns() {
+    // 交替出现的递增和递减 run, 长度随机, 会触发各种 merge 和 galloping 的情况
+    int[] values = runs(100000);
+    assertSorts(values);
+  }
+
+  @Test
+  public void testRunsLong() {
+    int[] runs = runs(100000);
+    long[] values = new long[runs.length];
+    for (int i = 0; i < runs.length; i++) values[i] = (long) runs[i] << 20;
+    long[] expected = values.clone();
+    Arrays.sort(expected);
+    new TimSort().sort(values);
+    assertArrayEquals(expected, values);
+  }
+
+  @Test
+  public void testRunsStable() {
+    // 按 v / 10 比较, 递减的 run 里也有相等的 key, 只能翻转严格递减的部分
+    int[] runs = runs(100000);
+    Integer[] values = new Integer[runs.length];
+    // 加上偏移避开 Integer 的缓存区间, 每个 valueOf 都是一个新的对象
+    for (int i = 0; i < runs.length; i++) values[i] = Integer.valueOf(runs[i] + 4096);
+    Comparator<Integer> byTens = Comparator.comparingInt((Integer v) -> v / 10);
+    Integer[] expected = values.clone();
+    Arrays.sort(expected, byTens);
+    new TimSort().sort(values, byTens);
+    for (int i = 0; i < values.length; i++) assertSame(expected[i], values[i]);
+  }
+
+  @Test
+  public void testDuplicates() {
+    int[] values = new int[50000];
+    for (int i = 0; i < values.length; i++) values[i] = RANDOM.nextInt(5);
+    assertSorts(values);
+
+    // 非严格递减的 run 不能整体翻转
+    for (int i = 0; i < values.length; i++) values[i] = (values.length - i) / 100;
+    assertSorts(values);
+  }
+
+  @Test
+  public void testCallerSuppliedBuffer() {
+    TimSort algo = new TimSort();
+    int[] aux = new int[5000];
+    for (int sz = 0; sz <= 10000; sz += 999) {
+      int[] values = new int[sz];
+      for (int i = 0; i < sz; i++) values[i] = RANDOM.nextInt(100);
+      int[] expected = values.clone();
+      Arrays.sort(expected);
+      algo.sort(values, aux);
+      assertArrayEquals(expected, values);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScratchBufferTooSmall() {
+    new TimSort().sort(new int[100], new int[49]);
+  }
+
+  private static int[] runs(int n) {
+    int[] values = new int[n];
+    int i = 0;
+    while (i < n) {
+      int len = Math.min(n - i, 1 + RANDOM.nextInt(2000));
+      int start = RANDOM.nextInt(1000000);
+      boolean descending = RANDOM.nextBoolean();
+      for (int j = 0; j < len; j++) values[i + j] = descending ? start - j : start + j;
+      i += len;
+    }
+    return values;
+  }
+
+  private static void assertSorts(int[] values) {
+    int[] expected = values.clone();
+    Arrays.sort(expected);
+    new TimSort().sort(values);
+    assertArrayEquals(expected, values);
+  }
+}
@@ -0,0 +1,80 @@
+package com.datastructure;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+
+public class TimerWheelTest {
+  static final Random RANDOM = new Random();
+
+  static class Task extends TimerWheel.Timer {
+    Task(long deadline) {
+      this.deadline = deadline;
+    }
+  }
+
+  @Test
+  public void testExpiresInDeadlineOrderAcrossLevels() {
+    // 从负数的时间开始, 检查时间回绕
+    long start = -TimeUnit.DAYS.toNanos(3);
+    TimerWheel<Task> wheel = new TimerWheel<>(start);
+    List<Task> tasks = new ArrayList<>();
+    long[] durations = {
+      TimeUnit.MILLISECONDS.toNanos(500),
+      TimeUnit.SECONDS.toNanos(5),
+      TimeUnit.MINUTES.toNanos(5),
+      TimeUnit.HOURS.toNanos(5),
+      TimeUnit.DAYS.toNanos(5),
+      TimeUnit.DAYS.toNanos(50),
+    };
+    for (long duration : durations) {
+      for (int i = 0; i < 50; i++) {
+        Task task = new Task(start + (long) (RANDOM.nextDouble() * duration));
+        tasks.add(task);
+        wheel.schedule(task);
+      }
+    }
+
+    Set<Task> expired = new HashSet<>();
+    long now = start;
+    long step = TimeUnit.MINUTES.toNanos(17);
+    while (expired.size() < tasks.size()) {
+      now += step;
+      long time = now;
+      wheel.advance(
+          now,
+          task -> {
+            assertTrue(task.deadline - time <= 0);
+            assertTrue(expired.add(task));
+            return true;
+          });
+      // 到期的 timer 最多晚一个最小刻度 (约 1 秒) 才被处理
+      for (Task task : tasks) {
+        if (time - task.deadline > TimerWheel.SPANS[0]) assertTrue(expired.contains(task));
+      }
+    }
+    for (Task task : tasks) assertFalse(task.isScheduled());
+  }
+
+  @Test
+  public void testDescheduleAndRetain() {
+    TimerWheel<Task> wheel = new TimerWheel<>(0);
+    Task kept = new Task(TimeUnit.SECONDS.toNanos(2));
+    Task cancelled = new Task(TimeUnit.SECONDS.toNanos(2));
+    wheel.schedule(kept);
+    wheel.schedule(cancelled);
+    wheel.deschedule(cancelled);
+    assertFalse(cancelled.isScheduled());
+
+    // 回调返回 false 时 timer 被重新安排, 下一次还会被处理
+    List<Task> seen = new ArrayList<>();
+    wheel.advance(TimeUnit.SECONDS.toNanos(5), task -> seen.add(task) && false);
+    assertEquals(Arrays.asList(kept), seen);
+    assertTrue(kept.isScheduled());
+    wheel.advance(TimeUnit.SECONDS.toNanos(7), task -> seen.add(task));
+    assertEquals(Arrays.asList(kept, kept), seen);
+    assertFalse(kept.isScheduled());
+  }
+}